@@ -0,0 +1,131 @@
+package HW;
+
+import HW.RobinHoodConfig.HashFunction;
+import HW.WorkloadGenerator.Lengths;
+
+/**
+ * Measures how ordering the slots of every table by access frequency shortens
+ * the probes of a skewed workload. A Zipfian query trace with unknown words
+ * mixed in is split in two halves. The first half is searched with access
+ * counting enabled, after which {@link RobinHoodTrie#reorderByAccesses()}
+ * reorders the tables, and the second half is replayed before and after the
+ * reordering.
+ *
+ * <p>
+ * Every row reports the mean number of slots probed along the path of a found
+ * and of an unknown word, counting a whole probe window for a character that
+ * is not stored, the average and maximum probe length over all elements and
+ * the mean search time of the fastest of several passes.
+ *
+ * <p>
+ * Usage:
+ * {@code java -cp bin HW.AccessOrderBenchmark [words] [queries] [miss-ratio] [seed]}
+ */
+public class AccessOrderBenchmark {
+
+	/** The number of timed passes over the replayed queries. */
+	private static final int ROUNDS = 5;
+
+	public static void main(String[] args) {
+		int count = args.length > 0 ? Integer.parseInt(args[0]) : 100000;
+		int queries = args.length > 1 ? Integer.parseInt(args[1]) : 1000000;
+		double missRatio = args.length > 2 ? Double.parseDouble(args[2]) : 0.2;
+		long seed = args.length > 3 ? Long.parseLong(args[3]) : 42;
+
+		Lengths lengths = Lengths.parse("3-12");
+		String[] trace = WorkloadGenerator.queryTrace(seed, count, lengths, 2 * queries, missRatio,
+				WorkloadGenerator.DEFAULT_EXPONENT);
+		String[] training = new String[queries];
+		String[] replay = new String[queries];
+		System.arraycopy(trace, 0, training, 0, queries);
+		System.arraycopy(trace, queries, replay, 0, queries);
+
+		RobinHoodConfig[] configs = { new RobinHoodConfig(),
+				new RobinHoodConfig(HashFunction.MULTIPLICATIVE, 90, 25, new int[] { 5, 11, 19, 29 }),
+				new RobinHoodConfig(HashFunction.IDENTITY, 100, 25, new int[] { 5, 11, 19, 29 }) };
+
+		System.out.println("config,order,probes_per_hit,probes_per_miss,avg_probe,max_probe,ns_per_search");
+		for (RobinHoodConfig config : configs) {
+			RobinHoodTrie trie = new RobinHoodTrie(config);
+			for (long i = 0; i < count; i++) {
+				trie.insert(WorkloadGenerator.wordAt(seed, i, lengths));
+			}
+			boolean[] stored = new boolean[queries];
+			for (int i = 0; i < queries; i++) {
+				stored[i] = trie.search(replay[i]);
+			}
+			report(config, "insertion", trie, replay, stored);
+
+			trie.enableAccessCounts();
+			for (String word : training) {
+				trie.search(word);
+			}
+			trie.disableAccessCounts();
+			trie.reorderByAccesses();
+			report(config, "access", trie, replay, stored);
+		}
+	}
+
+	/**
+	 * Prints the row of one slot order.
+	 *
+	 * @param config the configuration of the trie.
+	 * @param order  the name of the slot order.
+	 * @param trie   the trie.
+	 * @param replay the replayed queries.
+	 * @param stored whether each replayed query is a stored word.
+	 */
+	private static void report(RobinHoodConfig config, String order, RobinHoodTrie trie, String[] replay,
+			boolean[] stored) {
+		long[] probes = new long[2];
+		long[] queries = new long[2];
+		for (int i = 0; i < replay.length; i++) {
+			int kind = stored[i] ? 0 : 1;
+			probes[kind] += probes(trie, replay[i]);
+			queries[kind]++;
+		}
+
+		// Collect the garbage of the reordering first and keep the fastest of
+		// several passes, so neither it nor the warm-up is measured
+		System.gc();
+		long time = Long.MAX_VALUE;
+		int found = 0;
+		for (int round = 0; round < ROUNDS; round++) {
+			long start = System.nanoTime();
+			for (String word : replay) {
+				found += trie.search(word) ? 1 : 0;
+			}
+			time = Math.min(time, System.nanoTime() - start);
+		}
+		if (found < 0) {
+			System.out.println(found);
+		}
+
+		System.out.printf("\"%s\",%s,%.3f,%.3f,%.4f,%d,%.1f%n", config, order,
+				(double) probes[0] / Math.max(1, queries[0]), (double) probes[1] / Math.max(1, queries[1]),
+				trie.findAverageProbeLength(), trie.findMaxProbeLength(), (double) time / replay.length);
+	}
+
+	/**
+	 * Counts the slots probed by a search for a word. A stored character costs
+	 * the probes up to its slot, a missing one the whole probe window of its
+	 * table.
+	 *
+	 * @param trie the trie.
+	 * @param word the word.
+	 * @return the number of slots probed.
+	 */
+	private static long probes(RobinHoodTrie trie, String word) {
+		long probes = 0;
+		RobinHoodHashing table = trie.root;
+		for (int i = 0; i < word.length() && table != null; i++) {
+			Element e = table.lookup(word.charAt(i));
+			if (e == null) {
+				return probes + Math.min(table.maxProbeLenght + 1, table.capacity);
+			}
+			probes += e.probeLength + 1;
+			table = e.next;
+		}
+		return probes;
+	}
+}
@@ -0,0 +1,121 @@
+package HW;
+
+import java.util.Arrays;
+import java.util.Random;
+
+/**
+ * Compares the throughput of per-word lookups and importance updates with the
+ * batch API of {@link RobinHoodTrie}, on a corpus that mixes dictionary words
+ * with random words. Before measuring, it checks that a batch mixing stored
+ * words with malformed ones answers the malformed words as absent.
+ *
+ * <p>
+ * Usage: {@code java -cp bin HW.BatchLookupBenchmark [words] [corpus-words] [batch-size] [seed]}
+ */
+public class BatchLookupBenchmark {
+
+	public static void main(String[] args) {
+		int count = args.length > 0 ? Integer.parseInt(args[0]) : 100000;
+		int corpusSize = args.length > 1 ? Integer.parseInt(args[1]) : 2000000;
+		int batchSize = args.length > 2 ? Integer.parseInt(args[2]) : 4096;
+		long seed = args.length > 3 ? Long.parseLong(args[3]) : 42;
+
+		String[] words = WorkloadGenerator.randomDictionary(seed, count, 3, 12);
+		checkMalformed(words);
+
+		RobinHoodTrie trie = new RobinHoodTrie();
+		for (String word : words) {
+			trie.insert(word);
+		}
+
+		// Three quarters of the corpus are dictionary words
+		Random rnd = new Random(seed + 1);
+		String[] corpus = new String[corpusSize];
+		for (int i = 0; i < corpusSize; i++) {
+			corpus[i] = rnd.nextInt(4) > 0 ? words[rnd.nextInt(words.length)] : WorkloadGenerator.randomWord(rnd, 3, 12);
+		}
+
+		System.out.println("mode,words_per_s,checksum");
+		for (int round = 0; round < 2; round++) {
+			long checksum = 0;
+			long start = System.nanoTime();
+			for (String word : corpus) {
+				if (trie.search(word)) {
+					checksum += trie.importance(word) + 1;
+				}
+			}
+			report(round, "search+importance", corpusSize, start, checksum);
+
+			checksum = 0;
+			start = System.nanoTime();
+			for (int from = 0; from < corpusSize; from += batchSize) {
+				String[] batch = Arrays.copyOfRange(corpus, from, Math.min(corpusSize, from + batchSize));
+				RobinHoodTrie.BatchResult result = trie.searchBatch(batch);
+				for (int i = 0; i < batch.length; i++) {
+					if (result.found[i]) {
+						checksum += result.importance[i] + 1;
+					}
+				}
+			}
+			report(round, "searchBatch", corpusSize, start, checksum);
+
+			start = System.nanoTime();
+			for (String word : corpus) {
+				trie.incImp(word);
+			}
+			report(round, "incImp", corpusSize, start, 0);
+
+			start = System.nanoTime();
+			for (int from = 0; from < corpusSize; from += batchSize) {
+				trie.incImpBatch(Arrays.copyOfRange(corpus, from, Math.min(corpusSize, from + batchSize)));
+			}
+			report(round, "incImpBatch", corpusSize, start, 0);
+		}
+	}
+
+	/**
+	 * Checks that the batch API answers words that are not made of letters a-z
+	 * only as absent and leaves them alone, while the stored words of the same
+	 * batch are found and incremented.
+	 *
+	 * @param words at least five stored words.
+	 * @throws IllegalStateException if a batch gives a wrong answer.
+	 */
+	private static void checkMalformed(String[] words) {
+		RobinHoodTrie trie = new RobinHoodTrie();
+		for (String word : words) {
+			trie.insert(word);
+		}
+		String[] batch = { words[0], "c-t", words[1].toUpperCase(), "1" + words[2], null, "", words[3] + ".",
+				"\u00e9t\u00e9", words[4] };
+		boolean[] stored = { true, false, true, false, false, false, false, false, true };
+
+		RobinHoodTrie.BatchResult before = trie.searchBatch(batch);
+		RobinHoodTrie.BatchResult after = trie.incImpBatch(batch);
+		for (int i = 0; i < batch.length; i++) {
+			if (before.found[i] != stored[i] || after.found[i] != stored[i]
+					|| after.importance[i] != before.importance[i] + (stored[i] ? 1 : 0)) {
+				throw new IllegalStateException("Batch answered " + batch[i] + " wrongly");
+			}
+		}
+		if (trie.importance(words[2]) != 0 || trie.importance(words[3]) != 0) {
+			throw new IllegalStateException("Batch incremented a malformed word");
+		}
+	}
+
+	/**
+	 * Prints the throughput of one mode as a CSV row, skipping the warm-up round.
+	 *
+	 * @param round    the round, 0 being the warm-up.
+	 * @param mode     the name of the mode.
+	 * @param words    the number of words processed.
+	 * @param start    the start time in nanoseconds.
+	 * @param checksum a checksum of the results.
+	 */
+	private static void report(int round, String mode, int words, long start, long checksum) {
+		long elapsed = System.nanoTime() - start;
+		if (round > 0) {
+			System.out.printf("%s,%.0f,%d%n", mode, words / (elapsed / 1e9), checksum);
+		}
+	}
+}
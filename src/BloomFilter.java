@@ -0,0 +1,179 @@
+package HW;
+
+/**
+ * A blocked Bloom filter of words. Each word selects one block of 512 bits,
+ * the size of a cache line, and sets {@link #PROBES} bits within it, so a
+ * lookup touches a single block instead of one table per character of the
+ * word. A word that was added is always reported as possibly contained; a word
+ * that was not added is reported as contained with a probability of about 1%
+ * while the filter holds at most its capacity. Words cannot be removed.
+ */
+public class BloomFilter {
+
+	/** The number of bits reserved for each word of the capacity. */
+	public static final int BITS_PER_WORD = 10;
+
+	/** The number of bits set for each word. */
+	public static final int PROBES = 7;
+
+	/** The smallest capacity of a filter. */
+	public static final int MIN_CAPACITY = 1024;
+
+	/** The number of bits addressing a bit within a block. */
+	private static final int BLOCK_BITS = 9;
+
+	/** The number of longs in each block. */
+	private static final int BLOCK_LONGS = (1 << BLOCK_BITS) / 64;
+
+	/** The bits of all blocks. */
+	private final long[] bits;
+
+	/** The number of blocks. */
+	private final int blocks;
+
+	/** The number of words the filter is sized for. */
+	private final int capacity;
+
+	/** The number of words added to the filter. */
+	private int count;
+
+	/**
+	 * Constructor for an empty filter sized for the given number of words.
+	 *
+	 * @param capacity the number of words, at least {@link #MIN_CAPACITY}.
+	 */
+	public BloomFilter(int capacity) {
+		this.capacity = Math.max(capacity, MIN_CAPACITY);
+		long needed = (long) this.capacity * BITS_PER_WORD;
+		blocks = (int) ((needed + (1 << BLOCK_BITS) - 1) >>> BLOCK_BITS);
+		bits = new long[blocks * BLOCK_LONGS];
+	}
+
+	/**
+	 * Copy constructor for a filter that can be added to without changing the
+	 * given one.
+	 *
+	 * @param other the filter to copy.
+	 */
+	BloomFilter(BloomFilter other) {
+		capacity = other.capacity;
+		blocks = other.blocks;
+		bits = other.bits.clone();
+		count = other.count;
+	}
+
+	/**
+	 * Adds a word to the filter.
+	 *
+	 * @param word the word to add.
+	 */
+	public void add(String word) {
+		long h = hash(word);
+		int base = block(h);
+		long probes = mix(h);
+		for (int i = 0; i < PROBES; i++) {
+			int bit = (int) probes & ((1 << BLOCK_BITS) - 1);
+			bits[base + (bit >>> 6)] |= 1L << bit;
+			probes >>>= BLOCK_BITS;
+		}
+		count++;
+	}
+
+	/**
+	 * Tests whether a word may have been added to the filter.
+	 *
+	 * @param word the word to test.
+	 * @return {@code false} if the word was certainly not added, {@code true} if
+	 *         it may have been.
+	 */
+	public boolean mightContain(String word) {
+		long h = hash(word);
+		int base = block(h);
+		long probes = mix(h);
+		for (int i = 0; i < PROBES; i++) {
+			int bit = (int) probes & ((1 << BLOCK_BITS) - 1);
+			if ((bits[base + (bit >>> 6)] & (1L << bit)) == 0) {
+				return false;
+			}
+			probes >>>= BLOCK_BITS;
+		}
+		return true;
+	}
+
+	/**
+	 * Tests whether the filter holds more words than it is sized for, after which
+	 * its false positive rate grows quickly.
+	 *
+	 * @return {@code true} if the filter should be rebuilt larger.
+	 */
+	public boolean isFull() {
+		return count > capacity;
+	}
+
+	/**
+	 * Returns the number of words the filter is sized for.
+	 *
+	 * @return the capacity.
+	 */
+	public int getCapacity() {
+		return capacity;
+	}
+
+	/**
+	 * Returns the number of words added to the filter.
+	 *
+	 * @return the number of words.
+	 */
+	public int getCount() {
+		return count;
+	}
+
+	/**
+	 * Estimates the memory used by the filter in bytes.
+	 *
+	 * @return the memory size.
+	 */
+	public long findMemorySize() {
+		return 16 + 16 + (long) bits.length * 8;
+	}
+
+	/**
+	 * Returns the index of the first long of the block of a hash.
+	 *
+	 * @param h the hash of a word.
+	 * @return the index into the bits.
+	 */
+	private int block(long h) {
+		return (int) (((h >>> 32) * blocks) >>> 32) * BLOCK_LONGS;
+	}
+
+	/**
+	 * Hashes a word with 64-bit FNV-1a.
+	 *
+	 * @param word the word to hash.
+	 * @return the hash of the word.
+	 */
+	static long hash(String word) {
+		long h = 0xcbf29ce484222325L;
+		for (int i = 0; i < word.length(); i++) {
+			h = (h ^ word.charAt(i)) * 0x100000001b3L;
+		}
+		return mix(h);
+	}
+
+	/**
+	 * Mixes the bits of a hash with the finalizer of MurmurHash3, so the probe
+	 * positions are independent of the block.
+	 *
+	 * @param h the hash to mix.
+	 * @return the mixed hash.
+	 */
+	private static long mix(long h) {
+		h ^= h >>> 33;
+		h *= 0xff51afd7ed558ccdL;
+		h ^= h >>> 33;
+		h *= 0xc4ceb53a7a5c4d63L;
+		h ^= h >>> 33;
+		return h;
+	}
+}
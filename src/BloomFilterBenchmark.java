@@ -0,0 +1,105 @@
+package HW;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.PrintWriter;
+
+/**
+ * Measures the ingestion throughput of a {@link RobinHoodTrie} with and without
+ * its Bloom filter on corpora with a growing share of out-of-vocabulary words.
+ * Every corpus is ingested both from a file with
+ * {@link RobinHoodTrie#insertText(String)} and from memory with
+ * {@link RobinHoodTrie#incImp(String)}, and the filter is built while reading
+ * the dictionary. The false positive rate is the share of out-of-vocabulary
+ * tokens the filter lets through.
+ *
+ * <p>
+ * Usage:
+ * {@code java -cp bin HW.BloomFilterBenchmark [words] [tokens] [oov rates] [seed]}
+ */
+public class BloomFilterBenchmark {
+
+	public static void main(String[] args) throws IOException {
+		int count = args.length > 0 ? Integer.parseInt(args[0]) : 100000;
+		int tokens = args.length > 1 ? Integer.parseInt(args[1]) : 1000000;
+		String[] rates = (args.length > 2 ? args[2] : "0,0.5,0.9,0.99").split(",");
+		long seed = args.length > 3 ? Long.parseLong(args[3]) : 42;
+		WorkloadGenerator.Lengths lengths = WorkloadGenerator.Lengths.parse("3-12");
+
+		File dictionary = File.createTempFile("bloom-dictionary", ".txt");
+		dictionary.deleteOnExit();
+		WorkloadGenerator.writeDictionary(dictionary.getPath(), seed, count, lengths);
+
+		System.out.println("oov,filter,dictionary_ms,text_tokens_per_sec,memory_tokens_per_sec,filter_bytes,"
+				+ "false_positive_rate");
+		for (String rate : rates) {
+			double oov = Double.parseDouble(rate);
+			String[] corpus = WorkloadGenerator.queryTrace(seed, count, lengths, tokens, oov,
+					WorkloadGenerator.DEFAULT_EXPONENT);
+			File text = File.createTempFile("bloom-corpus", ".txt");
+			text.deleteOnExit();
+			PrintWriter out = new PrintWriter(text);
+			for (int i = 0; i < corpus.length; i++) {
+				out.print(corpus[i]);
+				out.print(i % 16 == 15 ? '\n' : ' ');
+			}
+			out.println();
+			out.close();
+
+			for (int round = 0; round < 3; round++) {
+				for (boolean filtered : new boolean[] { false, true }) {
+					RobinHoodTrie trie = new RobinHoodTrie();
+					if (filtered) {
+						trie.enableBloomFilter();
+					}
+					long start = System.nanoTime();
+					trie.readDictionary(dictionary.getPath());
+					long build = System.nanoTime() - start;
+
+					start = System.nanoTime();
+					trie.insertText(text.getPath());
+					long fromText = System.nanoTime() - start;
+
+					start = System.nanoTime();
+					for (String token : corpus) {
+						trie.incImp(token);
+					}
+					long fromMemory = System.nanoTime() - start;
+
+					BloomFilter filter = trie.getBloomFilter();
+					long filterBytes = filter == null ? 0 : filter.findMemorySize();
+					String falsePositives = filter == null ? "" : String.format("%.4f", falsePositiveRate(trie, corpus));
+					if (round > 0) {
+						System.out.println(rate + "," + filtered + "," + build / 1000000 + ","
+								+ (long) (tokens * 1e9 / fromText) + "," + (long) (tokens * 1e9 / fromMemory) + ","
+								+ filterBytes + "," + falsePositives);
+					}
+				}
+			}
+			text.delete();
+		}
+	}
+
+	/**
+	 * Returns the share of tokens that are not stored but pass the filter.
+	 *
+	 * @param trie   the trie with a filter.
+	 * @param corpus the tokens.
+	 * @return the false positive rate, or 0 if no token is out of vocabulary.
+	 */
+	private static double falsePositiveRate(RobinHoodTrie trie, String[] corpus) {
+		BloomFilter filter = trie.getBloomFilter();
+		trie.disableBloomFilter();
+		long misses = 0;
+		long passed = 0;
+		for (String token : corpus) {
+			if (!trie.search(token)) {
+				misses++;
+				if (filter.mightContain(token)) {
+					passed++;
+				}
+			}
+		}
+		return misses == 0 ? 0 : (double) passed / misses;
+	}
+}
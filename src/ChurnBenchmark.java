@@ -0,0 +1,76 @@
+package HW;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+
+/**
+ * Benchmark for mixed insertions and deletions on a {@link RobinHoodTrie}. After
+ * the churn phase the probe lengths and memory of the trie are compared with a
+ * trie built from scratch with the same words.
+ *
+ * <p>
+ * Usage: {@code java -cp bin HW.ChurnBenchmark [words] [operations] [seed]}
+ */
+public class ChurnBenchmark {
+
+	public static void main(String[] args) {
+		int count = args.length > 0 ? Integer.parseInt(args[0]) : 100000;
+		int operations = args.length > 1 ? Integer.parseInt(args[1]) : 1000000;
+		long seed = args.length > 2 ? Long.parseLong(args[2]) : 42;
+
+		// Build the initial dictionary
+		RobinHoodTrie trie = new RobinHoodTrie();
+		List<String> live = new ArrayList<>();
+		Set<String> present = new HashSet<>();
+		for (String word : WorkloadGenerator.randomDictionary(seed, count, 3, 12)) {
+			trie.insert(word);
+			live.add(word);
+			present.add(word);
+		}
+
+		// Churn: half of the operations insert a new word, half delete a live one
+		Random rnd = new Random(seed + 1);
+		int inserts = 0;
+		int deletes = 0;
+		long start = System.nanoTime();
+		for (int op = 0; op < operations; op++) {
+			if (rnd.nextBoolean() || live.isEmpty()) {
+				String word = WorkloadGenerator.randomWord(rnd, 3, 12);
+				if (present.add(word)) {
+					live.add(word);
+				}
+				trie.insert(word);
+				inserts++;
+			} else {
+				int index = rnd.nextInt(live.size());
+				String word = live.get(index);
+				live.set(index, live.get(live.size() - 1));
+				live.remove(live.size() - 1);
+				present.remove(word);
+				if (!trie.delete(word)) {
+					throw new IllegalStateException("Word " + word + " could not be deleted");
+				}
+				deletes++;
+			}
+		}
+		long elapsed = System.nanoTime() - start;
+
+		// Rebuild the surviving words from scratch for comparison
+		RobinHoodTrie fresh = new RobinHoodTrie();
+		for (String word : live) {
+			fresh.insert(word);
+		}
+
+		System.out.println("Inserts: " + inserts + ", deletes: " + deletes);
+		System.out.printf("Churn throughput: %.0f ops/s%n", operations / (elapsed / 1e9));
+		System.out.println("Words after churn: " + trie.getWordCount() + " (fresh build: " + fresh.getWordCount() + ")");
+		System.out.printf("Average probe length: churned %.4f, fresh %.4f%n", trie.findAverageProbeLength(),
+				fresh.findAverageProbeLength());
+		System.out.println("Maximum probe length: churned " + trie.findMaxProbeLength() + ", fresh "
+				+ fresh.findMaxProbeLength());
+		System.out.println("Memory: churned " + trie.findMemorySize() + ", fresh " + fresh.findMemorySize());
+	}
+}
@@ -0,0 +1,57 @@
+package HW;
+
+/**
+ * Reports the memory of a {@link RobinHoodTrie} before and after
+ * {@link RobinHoodTrie#compact(int)} for the dictionary sizes of the report.
+ * Memory is given as the estimate of {@link RobinHoodTrie#findMemorySize()},
+ * the number of allocated slots and the measured heap usage.
+ *
+ * <p>
+ * Usage: {@code java -cp bin HW.CompactBenchmark [max-probe] [seed]}
+ */
+public class CompactBenchmark {
+
+	/** The dictionary sizes of the experiment. */
+	private static final int[] SIZES = { 1000, 5000, 10000, 100000, 250000, 500000 };
+
+	public static void main(String[] args) {
+		int maxProbe = args.length > 0 ? Integer.parseInt(args[0]) : RobinHoodTrie.COMPACT_MAX_PROBE;
+		long seed = args.length > 1 ? Long.parseLong(args[1]) : 42;
+
+		System.out.println("words,memory_before,memory_after,slots_before,slots_after,heap_before,heap_after,"
+				+ "max_probe_after,compact_ms");
+		for (int count : SIZES) {
+			String[] words = WorkloadGenerator.randomDictionary(seed, count, 3, 12);
+			long baseline = usedHeap();
+
+			RobinHoodTrie trie = new RobinHoodTrie();
+			for (String word : words) {
+				trie.insert(word);
+			}
+			int memoryBefore = trie.findMemorySize();
+			long slotsBefore = trie.findSlotCount();
+			long heapBefore = usedHeap() - baseline;
+
+			long start = System.nanoTime();
+			trie.compact(maxProbe);
+			long elapsed = System.nanoTime() - start;
+
+			System.out.println(count + "," + memoryBefore + "," + trie.findMemorySize() + "," + slotsBefore + ","
+					+ trie.findSlotCount() + "," + heapBefore + "," + (usedHeap() - baseline) + ","
+					+ trie.findMaxProbeLength() + "," + elapsed / 1000000);
+		}
+	}
+
+	/**
+	 * Measures the used heap after requesting garbage collection.
+	 *
+	 * @return the used heap in bytes.
+	 */
+	static long usedHeap() {
+		Runtime runtime = Runtime.getRuntime();
+		for (int i = 0; i < 3; i++) {
+			System.gc();
+		}
+		return runtime.totalMemory() - runtime.freeMemory();
+	}
+}
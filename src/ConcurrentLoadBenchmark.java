@@ -0,0 +1,226 @@
+package HW;
+
+import java.io.File;
+import java.io.FileNotFoundException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Scanner;
+import java.util.SplittableRandom;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.LockSupport;
+
+import HW.WorkloadGenerator.Lengths;
+import HW.WorkloadGenerator.Zipf;
+
+/**
+ * Closed-loop load test of the suggestion path. Many simulated clients share
+ * one {@link RobinHoodTrie}. Each client repeatedly picks a stored word by
+ * Zipfian rank, so a few hot words dominate. It runs the {@code HashingMain}
+ * query sequence through {@link RobinHoodTrie#suggest(String, int)} and then
+ * thinks for an exponentially distributed time.
+ *
+ * <p>
+ * Every client follows an intended schedule of one query per think time. A
+ * query's latency is measured from the time the schedule intended to send it,
+ * not from when a delayed client got around to sending it. Stalls are then
+ * charged to every query they held back instead of hiding as coordinated
+ * omission. The latency measured from the actual send time is reported next
+ * to it for comparison.
+ *
+ * <p>
+ * Every step of the client sweep prints one CSV row, which together give the
+ * throughput versus p99 curve. Clients run on virtual threads when the JVM has
+ * them and on platform threads otherwise.
+ *
+ * <p>
+ * Usage:
+ * {@code java -cp bin HW.ConcurrentLoadBenchmark [dictionary-file | words] [clients] [think-ms] [seconds] [k] [seed]}
+ */
+public class ConcurrentLoadBenchmark {
+
+	/** The fraction of each step that warms up before latencies are recorded. */
+	private static final double WARMUP_FRACTION = 0.2;
+
+	public static void main(String[] args) throws FileNotFoundException, InterruptedException {
+		String source = args.length > 0 ? args[0] : "10000";
+		String[] clients = (args.length > 1 ? args[1] : "1,4,16,64,256,1024,4096").split(",");
+		double thinkMillis = args.length > 2 ? Double.parseDouble(args[2]) : 100;
+		int seconds = args.length > 3 ? Integer.parseInt(args[3]) : 10;
+		int k = args.length > 4 ? Integer.parseInt(args[4]) : 5;
+		long seed = args.length > 5 ? Long.parseLong(args[5]) : 42;
+
+		// Load the trie and the words clients ask for
+		RobinHoodTrie trie = new RobinHoodTrie();
+		String[] words = source.matches("\\d+") ? generated(trie, Integer.parseInt(source), seed)
+				: loaded(trie, source);
+
+		// Give the words Zipfian importance, then warm up
+		Zipf zipf = new Zipf(words.length, WorkloadGenerator.DEFAULT_EXPONENT);
+		SplittableRandom rnd = new SplittableRandom(seed);
+		String[] corpus = new String[words.length];
+		for (int i = 0; i < corpus.length; i++) {
+			corpus[i] = words[(int) zipf.sample(rnd) - 1];
+		}
+		trie.incImpBatch(corpus);
+		for (int i = 0; i < Math.min(words.length, 200); i++) {
+			trie.suggest(words[i], k);
+		}
+
+		System.err.println("Clients run on " + (virtualThreads() ? "virtual" : "platform") + " threads");
+		System.out.println(
+				"clients,offered_per_sec,throughput_per_sec,p50_us,p99_us,p999_us,max_us,p99_uncorrected_us,max_uncorrected_us");
+		for (String count : clients) {
+			run(trie, words, Integer.parseInt(count), (long) (thinkMillis * 1000000), seconds * 1000000000L, k, seed);
+		}
+	}
+
+	/**
+	 * Runs one step of the sweep and prints its CSV row.
+	 *
+	 * @param trie       the trie queried by all clients.
+	 * @param words      the stored words, in Zipfian rank order.
+	 * @param clients    the number of concurrent clients.
+	 * @param thinkNanos the mean think time of a client.
+	 * @param durationNs the length of the step.
+	 * @param k          the number of words suggested per query.
+	 * @param seed       the seed of the clients.
+	 * @throws InterruptedException if interrupted while waiting for the clients.
+	 */
+	private static void run(RobinHoodTrie trie, String[] words, int clients, long thinkNanos, long durationNs, int k,
+			long seed) throws InterruptedException {
+		Histogram corrected = new Histogram();
+		Histogram uncorrected = new Histogram();
+		LongAdder completed = new LongAdder();
+		Zipf zipf = new Zipf(words.length, WorkloadGenerator.DEFAULT_EXPONENT);
+
+		long begin = System.nanoTime();
+		long measureFrom = begin + (long) (durationNs * WARMUP_FRACTION);
+		long deadline = begin + durationNs;
+
+		ExecutorService executor = newClientExecutor();
+		for (int c = 0; c < clients; c++) {
+			SplittableRandom rnd = new SplittableRandom(seed * 31 + c);
+			executor.execute(() -> {
+				// Stagger the first queries over one think time
+				long intended = begin + think(rnd, thinkNanos);
+				// An overloaded client falls behind its schedule and stops at the deadline
+				while (intended < deadline && System.nanoTime() < deadline) {
+					for (long wait = intended - System.nanoTime(); wait > 0; wait = intended - System.nanoTime()) {
+						LockSupport.parkNanos(wait);
+					}
+					String word = words[(int) zipf.sample(rnd) - 1];
+					long start = System.nanoTime();
+					trie.suggest(word, k);
+					long end = System.nanoTime();
+					if (intended >= measureFrom) {
+						corrected.record(end - intended);
+						uncorrected.record(end - start);
+					}
+					if (end >= measureFrom && end < deadline) {
+						completed.increment();
+					}
+					intended += think(rnd, thinkNanos);
+				}
+
+				// Queries the schedule still owed at the deadline waited at least until then
+				for (; intended < deadline; intended += think(rnd, thinkNanos)) {
+					if (intended >= measureFrom) {
+						corrected.record(deadline - intended);
+					}
+				}
+			});
+		}
+		executor.shutdown();
+		executor.awaitTermination(Long.MAX_VALUE, TimeUnit.NANOSECONDS);
+
+		double measured = (deadline - measureFrom) / 1e9;
+		System.out.printf("%d,%.1f,%.1f,%d,%d,%d,%d,%d,%d%n", clients, clients * 1e9 / thinkNanos,
+				completed.sum() / measured, corrected.getValueAtPercentile(50) / 1000,
+				corrected.getValueAtPercentile(99) / 1000, corrected.getValueAtPercentile(99.9) / 1000,
+				corrected.getMax() / 1000, uncorrected.getValueAtPercentile(99) / 1000, uncorrected.getMax() / 1000);
+	}
+
+	/**
+	 * Draws an exponentially distributed think time.
+	 *
+	 * @param rnd        the random number generator of the client.
+	 * @param thinkNanos the mean think time.
+	 * @return the think time in nanoseconds.
+	 */
+	private static long think(SplittableRandom rnd, long thinkNanos) {
+		return (long) (-Math.log(1 - rnd.nextDouble()) * thinkNanos);
+	}
+
+	/**
+	 * Creates the executor running the clients: one virtual thread per client
+	 * when the JVM supports them, found by reflection so the class still compiles
+	 * and runs on older JVMs, or one platform thread per client otherwise.
+	 *
+	 * @return the executor.
+	 */
+	static ExecutorService newClientExecutor() {
+		try {
+			return (ExecutorService) Executors.class.getMethod("newVirtualThreadPerTaskExecutor").invoke(null);
+		} catch (ReflectiveOperationException e) {
+			return Executors.newCachedThreadPool();
+		}
+	}
+
+	/**
+	 * Returns whether the JVM supports virtual threads.
+	 *
+	 * @return {@code true} if clients run on virtual threads.
+	 */
+	static boolean virtualThreads() {
+		try {
+			Executors.class.getMethod("newVirtualThreadPerTaskExecutor");
+			return true;
+		} catch (NoSuchMethodException e) {
+			return false;
+		}
+	}
+
+	/**
+	 * Fills the trie with a generated dictionary.
+	 *
+	 * @param trie  the trie to fill.
+	 * @param count the number of words.
+	 * @param seed  the seed of the dictionary.
+	 * @return the generated words.
+	 */
+	private static String[] generated(RobinHoodTrie trie, int count, long seed) {
+		Lengths lengths = Lengths.parse("3-12");
+		String[] words = new String[count];
+		for (int i = 0; i < count; i++) {
+			words[i] = WorkloadGenerator.wordAt(seed, i, lengths);
+			trie.insert(words[i]);
+		}
+		trie.finishResizes();
+		return words;
+	}
+
+	/**
+	 * Fills the trie from a dictionary file.
+	 *
+	 * @param trie the trie to fill.
+	 * @param file the dictionary file.
+	 * @return the stored words in file order.
+	 * @throws FileNotFoundException if the file cannot be found.
+	 */
+	private static String[] loaded(RobinHoodTrie trie, String file) throws FileNotFoundException {
+		trie.readDictionary(file);
+		List<String> words = new ArrayList<>();
+		Scanner scan = new Scanner(new File(file));
+		while (scan.hasNext()) {
+			String word = scan.next().toLowerCase();
+			if (trie.search(word)) {
+				words.add(word);
+			}
+		}
+		scan.close();
+		return words.toArray(new String[0]);
+	}
+}
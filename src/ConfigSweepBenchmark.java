@@ -0,0 +1,142 @@
+package HW;
+
+import java.io.FileNotFoundException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+import HW.RobinHoodConfig.HashFunction;
+
+/**
+ * Builds a {@link RobinHoodTrie} for every combination of hash function, maximum
+ * load and capacity schedule and reports memory, probe lengths and lookup speed
+ * as CSV, so the configuration can be tuned for a dictionary. A second table
+ * compares the probe-length distribution of every hash function with that of
+ * the identity hash at the default load.
+ *
+ * <p>
+ * Usage: {@code java -cp bin HW.ConfigSweepBenchmark [dictionary-file | words] [lookups] [seed]}
+ */
+public class ConfigSweepBenchmark {
+
+	/** Maximum load percentages swept for every schedule. */
+	private static final int[] LOADS = { 50, 70, 80, 90, 100 };
+
+	/** The probe length from which the distribution is reported as one bucket. */
+	private static final int PROBE_BUCKETS = 4;
+
+	public static void main(String[] args) throws FileNotFoundException {
+		String source = args.length > 0 ? args[0] : "100000";
+		int lookups = args.length > 1 ? Integer.parseInt(args[1]) : 1000000;
+		long seed = args.length > 2 ? Long.parseLong(args[2]) : 42;
+
+		// Lookups mix stored words with random words that are mostly misses
+		String[] words = source.matches("\\d+") ? WorkloadGenerator.randomDictionary(seed, Integer.parseInt(source), 3, 12)
+				: null;
+		Random rnd = new Random(seed + 1);
+		String[] queries = new String[lookups];
+		List<RobinHoodConfig> configs = configurations();
+
+		System.out.println("config,words,memory,slots,avg_probe,max_probe,build_ms,lookup_ns,hits");
+		for (RobinHoodConfig config : configs) {
+			long start = System.nanoTime();
+			RobinHoodTrie trie = build(config, words, source);
+			long build = System.nanoTime() - start;
+
+			if (queries[0] == null) {
+				String[] stored = words != null ? words : WorkloadGenerator.randomDictionary(seed, 1000, 3, 12);
+				for (int i = 0; i < lookups; i++) {
+					queries[i] = rnd.nextBoolean() ? stored[rnd.nextInt(stored.length)]
+							: WorkloadGenerator.randomWord(rnd, 3, 12);
+				}
+			}
+
+			// Warm up once, then measure
+			int found = 0;
+			for (int i = 0; i < lookups; i++) {
+				found += trie.search(queries[i]) ? 1 : 0;
+			}
+			start = System.nanoTime();
+			for (int i = 0; i < lookups; i++) {
+				found += trie.search(queries[i]) ? 1 : 0;
+			}
+			long lookup = System.nanoTime() - start;
+
+			System.out.printf("\"%s\",%d,%d,%d,%.4f,%d,%d,%.1f,%d%n", config, trie.getWordCount(),
+					trie.findMemorySize(), trie.findSlotCount(), trie.findAverageProbeLength(), trie.findMaxProbeLength(),
+					build / 1000000, (double) lookup / lookups, found / 2);
+		}
+
+		System.out.println();
+		StringBuilder header = new StringBuilder("hash");
+		for (int p = 0; p < PROBE_BUCKETS; p++) {
+			header.append(",probe_").append(p);
+		}
+		System.out.println(header + ",probe_" + PROBE_BUCKETS + "_plus,avg_probe,avg_vs_identity");
+		double identity = 0;
+		for (HashFunction hash : HashFunction.values()) {
+			int[] schedule = hash == HashFunction.MASK ? new int[] { 2, 4, 8, 16, 32 } : new int[] { 5, 11, 19, 29 };
+			RobinHoodTrie trie = build(new RobinHoodConfig(hash, 90, 25, schedule), words, source);
+			long[] histogram = new long[PROBE_BUCKETS + 1];
+			long elements = 0;
+			for (TrieStatistics.Level level : trie.getStatistics().getLevels()) {
+				for (Map.Entry<Integer, Long> entry : level.probeLengths.entrySet()) {
+					histogram[Math.min(entry.getKey(), PROBE_BUCKETS)] += entry.getValue();
+					elements += entry.getValue();
+				}
+			}
+			double average = trie.findAverageProbeLength();
+			if (hash == HashFunction.IDENTITY) {
+				identity = average;
+			}
+			StringBuilder row = new StringBuilder(hash.name());
+			for (long count : histogram) {
+				row.append(String.format(",%.4f", (double) count / Math.max(1, elements)));
+			}
+			System.out.println(row + String.format(",%.4f,%.2f", average, identity == 0 ? 0 : average / identity));
+		}
+	}
+
+	/**
+	 * Builds a trie of the generated words or of a dictionary file.
+	 *
+	 * @param config the configuration of the trie.
+	 * @param words  the generated words, or {@code null} to read the file.
+	 * @param source the dictionary file.
+	 * @return the trie.
+	 * @throws FileNotFoundException if the dictionary file does not exist.
+	 */
+	private static RobinHoodTrie build(RobinHoodConfig config, String[] words, String source)
+			throws FileNotFoundException {
+		RobinHoodTrie trie = new RobinHoodTrie(config);
+		if (words != null) {
+			for (String word : words) {
+				trie.insert(word);
+			}
+		} else {
+			trie.readDictionary(source);
+		}
+		return trie;
+	}
+
+	/**
+	 * Builds the swept configurations.
+	 *
+	 * @return the configurations.
+	 */
+	private static List<RobinHoodConfig> configurations() {
+		int[][] moduloSchedules = { { 5, 11, 19, 29 }, { 2, 3, 5, 7, 11, 13, 17, 19, 23, 29 }, { 8, 32 } };
+		int[][] maskSchedules = { { 4 }, { 8 }, { 2, 4, 8, 16, 32 } };
+
+		List<RobinHoodConfig> configs = new ArrayList<>();
+		for (HashFunction hash : HashFunction.values()) {
+			for (int[] schedule : hash == HashFunction.MASK ? maskSchedules : moduloSchedules) {
+				for (int load : LOADS) {
+					configs.add(new RobinHoodConfig(hash, load, load / 4, schedule));
+				}
+			}
+		}
+		return configs;
+	}
+}
@@ -0,0 +1,183 @@
+package HW;
+
+import java.util.HashSet;
+import java.util.Set;
+import java.util.SplittableRandom;
+
+import HW.WorkloadGenerator.Zipf;
+
+/**
+ * Measures how quickly decayed importance follows a shift in popularity. A
+ * random dictionary is stored and fed a Zipfian stream of occurrences for a
+ * number of epochs, after which the popularity of the words is shuffled and the
+ * stream continues for as many epochs. The epoch is advanced after every
+ * epoch's occurrences.
+ *
+ * <p>
+ * After every epoch following the shift, each row reports the share of the
+ * {@code k} most important words that are among the {@code k} most popular
+ * words of the new order, and the mean time per batched increment of that
+ * epoch. A half-life of 0 keeps plain occurrence counts for comparison.
+ * Before measuring, it checks that a score saturates at
+ * {@link RobinHoodTrie#MAX_DECAY_SCORE} instead of wrapping.
+ *
+ * <p>
+ * Usage:
+ * {@code java -cp bin HW.DecayBenchmark [words] [tokens-per-epoch] [half-lives] [k] [epochs] [seed]}
+ */
+public class DecayBenchmark {
+
+	public static void main(String[] args) {
+		int count = args.length > 0 ? Integer.parseInt(args[0]) : 20000;
+		int tokens = args.length > 1 ? Integer.parseInt(args[1]) : 200000;
+		String[] halfLives = (args.length > 2 ? args[2] : "0,1,2,4,16").split(",");
+		int k = args.length > 3 ? Integer.parseInt(args[3]) : 100;
+		int epochs = args.length > 4 ? Integer.parseInt(args[4]) : 10;
+		long seed = args.length > 5 ? Long.parseLong(args[5]) : 42;
+
+		checkSaturation();
+
+		String[] words = WorkloadGenerator.randomDictionary(seed, count, 3, 12);
+		String[] before = shuffle(words, seed + 1);
+		String[] after = shuffle(words, seed + 2);
+		String[][] stream = new String[2 * epochs][];
+		SplittableRandom rnd = new SplittableRandom(seed + 3);
+		Zipf zipf = new Zipf(count, WorkloadGenerator.DEFAULT_EXPONENT);
+		for (int epoch = 0; epoch < stream.length; epoch++) {
+			String[] order = epoch < epochs ? before : after;
+			stream[epoch] = new String[tokens];
+			for (int i = 0; i < tokens; i++) {
+				stream[epoch][i] = order[(int) zipf.sample(rnd) - 1];
+			}
+		}
+
+		System.out.println("half_life,epochs_after_shift,precision_at_k,ns_per_increment");
+		for (String halfLife : halfLives) {
+			RobinHoodTrie trie = new RobinHoodTrie();
+			for (String word : words) {
+				trie.insert(word);
+			}
+			int[] ids = new int[count];
+			for (int i = 0; i < count; i++) {
+				ids[i] = trie.wordId(words[i]);
+			}
+			if (Integer.parseInt(halfLife) > 0) {
+				trie.enableDecay(Integer.parseInt(halfLife));
+			}
+			for (int epoch = 0; epoch < stream.length; epoch++) {
+				long time = ingest(trie, stream[epoch]);
+				trie.advanceEpoch();
+				if (epoch >= epochs) {
+					System.out.printf("%s,%d,%.2f,%.1f%n", halfLife, epoch - epochs + 1,
+							precision(trie, ids, after, k), (double) time / tokens);
+				}
+			}
+		}
+	}
+
+	/**
+	 * Checks that decayed scores saturate at {@link RobinHoodTrie#MAX_DECAY_SCORE}:
+	 * when a word occurs more often than {@link RobinHoodTrie#MAX_DECAY_OCCURRENCES}
+	 * within an epoch, and when decay is enabled on a count above it. A saturated
+	 * score still decays and grows again afterwards.
+	 *
+	 * @throws IllegalStateException if a score wraps or exceeds the limit.
+	 */
+	private static void checkSaturation() {
+		RobinHoodTrie trie = new RobinHoodTrie();
+		trie.insert("word");
+		trie.enableDecay(1);
+		for (int i = 0; i < RobinHoodTrie.MAX_DECAY_OCCURRENCES + 10; i++) {
+			trie.incImp("word");
+			if (trie.importance("word") <= 0) {
+				throw new IllegalStateException("Decayed score wrapped after " + (i + 1) + " occurrences");
+			}
+		}
+		if (trie.importance("word") != RobinHoodTrie.MAX_DECAY_SCORE) {
+			throw new IllegalStateException("Decayed score did not saturate: " + trie.importance("word"));
+		}
+		trie.advanceEpoch();
+		int halved = trie.importance("word");
+		trie.incImp("word");
+		if (halved != Math.round(RobinHoodTrie.MAX_DECAY_SCORE / 2.0)
+				|| trie.importance("word") != halved + RobinHoodTrie.DECAY_SCALE) {
+			throw new IllegalStateException("Saturated score did not decay and grow: " + trie.importance("word"));
+		}
+
+		RobinHoodTrie counted = new RobinHoodTrie();
+		counted.insert("word");
+		for (int i = 0; i < RobinHoodTrie.MAX_DECAY_OCCURRENCES + 10; i++) {
+			counted.incImp("word");
+		}
+		counted.enableDecay(1);
+		if (counted.importance("word") != RobinHoodTrie.MAX_DECAY_SCORE) {
+			throw new IllegalStateException("Count did not saturate when decay was enabled: "
+					+ counted.importance("word"));
+		}
+	}
+
+	/**
+	 * Returns the words in a random order.
+	 *
+	 * @param words the words.
+	 * @param seed  the seed of the order.
+	 * @return a shuffled copy of the words.
+	 */
+	private static String[] shuffle(String[] words, long seed) {
+		String[] order = words.clone();
+		SplittableRandom rnd = new SplittableRandom(seed);
+		for (int i = order.length - 1; i > 0; i--) {
+			int j = rnd.nextInt(i + 1);
+			String word = order[i];
+			order[i] = order[j];
+			order[j] = word;
+		}
+		return order;
+	}
+
+	/**
+	 * Increments the importance of one epoch's occurrences in batches.
+	 *
+	 * @param trie   the trie.
+	 * @param tokens the occurring words.
+	 * @return the time taken in nanoseconds.
+	 */
+	private static long ingest(RobinHoodTrie trie, String[] tokens) {
+		long start = System.nanoTime();
+		for (int from = 0; from < tokens.length; from += RobinHoodTrie.INGESTION_BATCH) {
+			int to = Math.min(tokens.length, from + RobinHoodTrie.INGESTION_BATCH);
+			String[] batch = new String[to - from];
+			System.arraycopy(tokens, from, batch, 0, batch.length);
+			trie.incImpBatch(batch);
+		}
+		return System.nanoTime() - start;
+	}
+
+	/**
+	 * Returns the share of the most important words that are among the most
+	 * popular words.
+	 *
+	 * @param trie    the trie.
+	 * @param ids     the id of each stored word.
+	 * @param popular the words from the most to the least popular.
+	 * @param k       the number of words compared.
+	 * @return the precision of the {@code k} most important words.
+	 */
+	private static double precision(RobinHoodTrie trie, int[] ids, String[] popular, int k) {
+		Heap heap = new Heap(k);
+		for (int id : ids) {
+			trie.insertById(heap, id);
+		}
+		Set<String> top = new HashSet<>();
+		for (int i = 0; i < k; i++) {
+			top.add(popular[i]);
+		}
+		int hits = 0;
+		for (String word : heap.getTopKWords()) {
+			if (top.contains(word)) {
+				hits++;
+			}
+		}
+		return (double) hits / k;
+	}
+}
@@ -2,7 +2,8 @@ package HW;
 
 /**
  * Represents a node in the Robin Hood Hashing table. Stores the key, probe
- * length, a reference to the next node, importance value, and word length.
+ * length, a reference to the next node, word id, word length, the number
+ * of words in its subtree and the number of recorded accesses.
  * Extends {@link RobinHoodHashing}.
  */
 public class Element extends RobinHoodHashing {
@@ -22,21 +23,57 @@ public class Element extends RobinHoodHashing {
 	 */
 	RobinHoodHashing next;
 
-	/** The importance score associated with this element. */
-	int importance;
+	/**
+	 * The id of the word ending at this element in the {@link WordIds} of the
+	 * trie, valid while {@link #wl} marks the element as a word end.
+	 */
+	int id;
 
 	/** The word length associated with this element. */
 	int wl;
 
+	/**
+	 * The number of stored words ending at this element or in the tables below
+	 * it.
+	 */
+	int count;
+
+	/**
+	 * The number of recorded lookups passing through this element, used to
+	 * order the slots of its table by access frequency.
+	 */
+	int hits;
+
 	/**
 	 * Default constructor for the Element class. Initializes the fields with
-	 * default values.
+	 * default values. An element never stores slots itself, so no table is
+	 * allocated for it.
 	 */
 	public Element() {
+		super(RobinHoodConfig.DEFAULT, 0);
 		key = ' ';
 		probeLength = 0;
 		next = null;
-		importance = 0;
+		id = 0;
 		wl = 0;
+		count = 0;
+		hits = 0;
+	}
+
+	/**
+	 * Copy constructor for a new version of a table. The copy shares the child
+	 * table of the given element.
+	 *
+	 * @param other the element to copy.
+	 */
+	Element(Element other) {
+		super(RobinHoodConfig.DEFAULT, 0);
+		key = other.key;
+		probeLength = other.probeLength;
+		next = other.next;
+		id = other.id;
+		wl = other.wl;
+		count = other.count;
+		hits = other.hits;
 	}
 }
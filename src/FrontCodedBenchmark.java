@@ -0,0 +1,90 @@
+package HW;
+
+import java.util.Random;
+
+/**
+ * Compares the static {@link Trie}, the {@link RobinHoodTrie} and the
+ * {@link FrontCodedDictionary} built from it on memory per word and lookup
+ * latency. Memory is reported both by the models of the structures and as
+ * heap measured after garbage collection.
+ *
+ * <p>
+ * Usage: {@code java -cp bin HW.FrontCodedBenchmark [sizes] [lookups] [seed]}
+ */
+public class FrontCodedBenchmark {
+
+	public static void main(String[] args) {
+		String[] sizes = (args.length > 0 ? args[0] : "10000,100000,500000").split(",");
+		int lookups = args.length > 1 ? Integer.parseInt(args[1]) : 1000000;
+		long seed = args.length > 2 ? Long.parseLong(args[2]) : 42;
+
+		System.out.println("structure,words,model_bytes_per_word,heap_bytes_per_word,lookup_ns,hits");
+		for (String size : sizes) {
+			int count = Integer.parseInt(size);
+			String[] words = WorkloadGenerator.randomDictionary(seed, count, 3, 12);
+
+			// Half of the lookups are stored words, half are random words
+			Random rnd = new Random(seed + 1);
+			String[] queries = new String[lookups];
+			for (int i = 0; i < lookups; i++) {
+				queries[i] = rnd.nextBoolean() ? words[rnd.nextInt(count)] : WorkloadGenerator.randomWord(rnd, 3, 12);
+			}
+
+			long baseline = CompactBenchmark.usedHeap();
+			Trie trie = new Trie();
+			for (String word : words) {
+				trie.insert(word);
+			}
+			long heap = CompactBenchmark.usedHeap() - baseline;
+			long start = System.nanoTime();
+			int hits = 0;
+			for (String query : queries) {
+				hits += trie.search(query) ? 1 : 0;
+			}
+			print("Trie", count, trie.findMemorySize(), heap, System.nanoTime() - start, lookups, hits);
+			trie = null;
+
+			baseline = CompactBenchmark.usedHeap();
+			RobinHoodTrie robinHood = new RobinHoodTrie();
+			for (String word : words) {
+				robinHood.insert(word);
+			}
+			heap = CompactBenchmark.usedHeap() - baseline;
+			start = System.nanoTime();
+			hits = 0;
+			for (String query : queries) {
+				hits += robinHood.search(query) ? 1 : 0;
+			}
+			print("RobinHoodTrie", count, robinHood.findMemorySize(), heap, System.nanoTime() - start, lookups, hits);
+
+			baseline = CompactBenchmark.usedHeap();
+			FrontCodedDictionary dictionary = FrontCodedDictionary.fromTrie(robinHood);
+			heap = CompactBenchmark.usedHeap() - baseline;
+			start = System.nanoTime();
+			hits = 0;
+			for (String query : queries) {
+				hits += dictionary.search(query) ? 1 : 0;
+			}
+			// The Robin Hood Trie stays reachable until here so its heap is not counted as freed
+			print("FrontCodedDictionary", robinHood.getWordCount(), dictionary.findMemorySize(), heap,
+					System.nanoTime() - start, lookups, hits);
+		}
+	}
+
+	/**
+	 * Prints one CSV row.
+	 *
+	 * @param structure the name of the structure.
+	 * @param words     the number of words.
+	 * @param model     the memory reported by the structure.
+	 * @param heap      the measured heap.
+	 * @param elapsed   the time of all lookups in nanoseconds.
+	 * @param lookups   the number of lookups.
+	 * @param hits      the number of lookups that found their word.
+	 */
+	private static void print(String structure, int words, long model, long heap, long elapsed, int lookups,
+			int hits) {
+		System.out.printf("%s,%d,%.1f,%.1f,%.1f,%d%n", structure, words, (double) model / words, (double) heap / words,
+				(double) elapsed / lookups, hits);
+	}
+}
@@ -0,0 +1,527 @@
+package HW;
+
+import java.io.File;
+import java.io.FileNotFoundException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Scanner;
+
+/**
+ * A read-mostly dictionary stored as a sorted, front-coded word list. The
+ * words are split into buckets of a fixed number of words. The first word of a
+ * bucket is stored in full, and every other word as the length of the prefix
+ * it shares with the previous word followed by the rest of its characters.
+ * A header array holds the offset of every bucket. A lookup binary searches
+ * the first words of the buckets and then decodes a single bucket.
+ *
+ * <p>
+ * The importance of the words sits in a parallel bit-packed array, indexed by
+ * the rank of the word, whose width grows when an importance no longer fits.
+ * Words can not be added after building; build a new dictionary instead.
+ *
+ * <p>
+ * Characters are stored as single bytes, so words may only use characters
+ * from 1 to 255, which includes the lowercase letters of all dictionaries.
+ */
+public class FrontCodedDictionary {
+
+	/** The number of words per bucket unless another is given. */
+	public static final int DEFAULT_BUCKET_SIZE = 16;
+
+	/** The front-coded buckets. */
+	private final byte[] data;
+
+	/** The offset of every bucket in {@link #data}. */
+	private final int[] buckets;
+
+	/** The number of words per bucket. */
+	private final int bucketSize;
+
+	/** The number of words. */
+	private final int words;
+
+	/** The length of the longest word. */
+	private final int maxLength;
+
+	/** The importance of every word, packed with {@link #bits} bits each. */
+	private long[] importance;
+
+	/** The number of bits per importance value. */
+	private int bits;
+
+	/**
+	 * Constructor building the dictionary from sorted words.
+	 *
+	 * @param sorted     the distinct words in ascending order.
+	 * @param importance the importance of every word, or {@code null} for 0.
+	 * @param bucketSize the number of words per bucket.
+	 * @throws IllegalArgumentException if the words are not sorted and distinct,
+	 *                                  or use characters outside 1 to 255.
+	 */
+	public FrontCodedDictionary(String[] sorted, int[] importance, int bucketSize) {
+		if (bucketSize < 1) {
+			throw new IllegalArgumentException("Bucket size must be positive: " + bucketSize);
+		}
+		this.bucketSize = bucketSize;
+		words = sorted.length;
+		buckets = new int[(words + bucketSize - 1) / bucketSize];
+
+		// Encode the buckets, growing the byte array as needed
+		byte[] out = new byte[Math.max(16, words * 4)];
+		int length = 0;
+		int longest = 0;
+		for (int i = 0; i < words; i++) {
+			String word = sorted[i];
+			if (i > 0 && word.compareTo(sorted[i - 1]) <= 0) {
+				throw new IllegalArgumentException("Words must be sorted and distinct: " + word);
+			}
+			longest = Math.max(longest, word.length());
+			if (out.length - length < word.length() + 10) {
+				out = Arrays.copyOf(out, Math.max(out.length * 2, length + word.length() + 10));
+			}
+
+			int shared = 0;
+			if (i % bucketSize == 0) {
+				buckets[i / bucketSize] = length;
+			} else {
+				String prev = sorted[i - 1];
+				int max = Math.min(prev.length(), word.length());
+				while (shared < max && prev.charAt(shared) == word.charAt(shared)) {
+					shared++;
+				}
+				length = writeVarInt(out, length, shared);
+			}
+			length = writeVarInt(out, length, word.length() - shared);
+			for (int c = shared; c < word.length(); c++) {
+				char ch = word.charAt(c);
+				if (ch == 0 || ch > 255) {
+					throw new IllegalArgumentException("Unsupported character in " + word);
+				}
+				out[length++] = (byte) ch;
+			}
+		}
+		data = Arrays.copyOf(out, length);
+		maxLength = longest;
+
+		// Pack the importance with the width of the largest value
+		int max = 0;
+		if (importance != null) {
+			for (int value : importance) {
+				max = Math.max(max, value);
+			}
+		}
+		bits = Math.max(1, 32 - Integer.numberOfLeadingZeros(max));
+		this.importance = new long[(int) (((long) words * bits + 63) / 64)];
+		if (importance != null) {
+			for (int i = 0; i < words; i++) {
+				setImportance(i, importance[i]);
+			}
+		}
+	}
+
+	/**
+	 * Builds a dictionary holding the words of a Trie and their importance.
+	 *
+	 * @param trie the Trie.
+	 * @return the dictionary.
+	 */
+	public static FrontCodedDictionary fromTrie(RobinHoodTrie trie) {
+		List<WordNode> nodes = trie.collectWords();
+		nodes.sort((a, b) -> a.word.compareTo(b.word));
+		String[] sorted = new String[nodes.size()];
+		int[] importance = new int[nodes.size()];
+		for (int i = 0; i < sorted.length; i++) {
+			sorted[i] = nodes.get(i).word;
+			importance[i] = nodes.get(i).importance;
+		}
+		return new FrontCodedDictionary(sorted, importance, DEFAULT_BUCKET_SIZE);
+	}
+
+	/**
+	 * Builds a dictionary from the valid words of a dictionary file, in any
+	 * order, with importance 0.
+	 *
+	 * @param inFile the file path of the dictionary.
+	 * @return the dictionary.
+	 * @throws FileNotFoundException if the file cannot be found.
+	 */
+	public static FrontCodedDictionary fromDictionary(String inFile) throws FileNotFoundException {
+		List<String> list = new ArrayList<>();
+		Scanner scan = new Scanner(new File(inFile));
+		while (scan.hasNext()) {
+			String word = RobinHoodTrie.filterWord(scan.next());
+			if (word != null) {
+				list.add(word);
+			}
+		}
+		scan.close();
+
+		// Sort and drop duplicates
+		String[] sorted = list.toArray(new String[0]);
+		Arrays.sort(sorted);
+		int distinct = 0;
+		for (int i = 0; i < sorted.length; i++) {
+			if (distinct == 0 || !sorted[i].equals(sorted[distinct - 1])) {
+				sorted[distinct++] = sorted[i];
+			}
+		}
+		return new FrontCodedDictionary(Arrays.copyOf(sorted, distinct), null, DEFAULT_BUCKET_SIZE);
+	}
+
+	/**
+	 * Returns the number of words.
+	 *
+	 * @return the number of words.
+	 */
+	public int getWordCount() {
+		return words;
+	}
+
+	/**
+	 * Searches for a word.
+	 *
+	 * @param word the word to search for.
+	 * @return {@code true} if the word is found, {@code false} otherwise.
+	 */
+	public boolean search(String word) {
+		return word != null && indexOf(word.toLowerCase()) >= 0;
+	}
+
+	/**
+	 * Retrieves the importance score of a word.
+	 *
+	 * @param word the word whose importance is to be retrieved.
+	 * @return the importance score of the word, or 0 if the word is not found.
+	 */
+	public int importance(String word) {
+		int index = word == null ? -1 : indexOf(word.toLowerCase());
+		return index < 0 ? 0 : getImportance(index);
+	}
+
+	/**
+	 * Increments the importance score of a word.
+	 *
+	 * @param word the word whose importance is to be incremented.
+	 */
+	public void incImp(String word) {
+		int index = word == null ? -1 : indexOf(word.toLowerCase());
+		if (index >= 0) {
+			setImportance(index, getImportance(index) + 1);
+		}
+	}
+
+	/**
+	 * Reads a text file and increments the importance of all valid words in the
+	 * dictionary.
+	 *
+	 * @param textFile the file path of the text.
+	 * @throws FileNotFoundException if the file cannot be found.
+	 */
+	public void insertText(String textFile) throws FileNotFoundException {
+		Scanner scan = new Scanner(new File(textFile));
+		while (scan.hasNext()) {
+			String word = RobinHoodTrie.filterWord(scan.next());
+			if (word != null) {
+				incImp(word);
+			}
+		}
+		scan.close();
+	}
+
+	/**
+	 * Returns the words starting with a prefix in ascending order.
+	 *
+	 * @param prefix the prefix.
+	 * @param limit  the maximum number of words to return.
+	 * @return the words.
+	 */
+	public String[] prefixRange(String prefix, int limit) {
+		prefix = prefix.toLowerCase();
+		List<String> result = new ArrayList<>();
+		byte[] target = encode(prefix);
+		if (target == null) {
+			return new String[0];
+		}
+
+		// Start in the last bucket whose first word sorts before the prefix
+		int bucket = Math.max(0, findBucket(target));
+		byte[] buffer = new byte[maxLength];
+		int position = words == 0 ? 0 : buckets[bucket];
+		for (int i = bucket * bucketSize; i < words && result.size() < limit; i++) {
+			int shared = 0;
+			if (i % bucketSize != 0) {
+				shared = readVarInt(position);
+				position = skipVarInt(position);
+			}
+			int rest = readVarInt(position);
+			position = skipVarInt(position);
+			System.arraycopy(data, position, buffer, shared, rest);
+			position += rest;
+
+			int cmp = comparePrefix(buffer, shared + rest, target);
+			if (cmp > 0) {
+				break;
+			}
+			if (cmp == 0) {
+				result.add(new String(buffer, 0, shared + rest, StandardCharsets.ISO_8859_1));
+			}
+		}
+		return result.toArray(new String[0]);
+	}
+
+	/**
+	 * Returns the rank of a word in the sorted dictionary.
+	 *
+	 * @param word the lowercase word.
+	 * @return the rank, or -1 if the word is not stored.
+	 */
+	public int indexOf(String word) {
+		byte[] target = encode(word);
+		if (target == null || buckets.length == 0) {
+			return -1;
+		}
+		int bucket = findBucket(target);
+		if (bucket < 0) {
+			return -1;
+		}
+
+		// Decode the bucket until the word is found or passed
+		byte[] buffer = new byte[Math.max(maxLength, 1)];
+		int position = buckets[bucket];
+		int end = Math.min(words, (bucket + 1) * bucketSize);
+		for (int i = bucket * bucketSize; i < end; i++) {
+			int shared = 0;
+			if (i % bucketSize != 0) {
+				shared = readVarInt(position);
+				position = skipVarInt(position);
+			}
+			int rest = readVarInt(position);
+			position = skipVarInt(position);
+			System.arraycopy(data, position, buffer, shared, rest);
+			position += rest;
+
+			int cmp = compare(buffer, shared + rest, target);
+			if (cmp == 0) {
+				return i;
+			}
+			if (cmp > 0) {
+				return -1;
+			}
+		}
+		return -1;
+	}
+
+	/**
+	 * Calculates the memory used by the dictionary: the front-coded bytes, the
+	 * bucket headers and the packed importance, each with its array header.
+	 *
+	 * @return the memory size in bytes.
+	 */
+	public long findMemorySize() {
+		return 16 + (16 + data.length) + (16 + 4L * buckets.length) + (16 + 8L * importance.length);
+	}
+
+	/**
+	 * Finds the last bucket whose first word is not greater than the target.
+	 *
+	 * @param target the encoded word.
+	 * @return the index of the bucket, or -1 if the target sorts before every
+	 *         word.
+	 */
+	private int findBucket(byte[] target) {
+		int low = 0;
+		int high = buckets.length - 1;
+		int found = -1;
+		while (low <= high) {
+			int mid = (low + high) >>> 1;
+			int position = buckets[mid];
+			int length = readVarInt(position);
+			position = skipVarInt(position);
+			if (compare(data, position, length, target) <= 0) {
+				found = mid;
+				low = mid + 1;
+			} else {
+				high = mid - 1;
+			}
+		}
+		return found;
+	}
+
+	/**
+	 * Encodes a word as single-byte characters.
+	 *
+	 * @param word the word.
+	 * @return the bytes, or {@code null} if the word has characters that cannot be
+	 *         stored, so it cannot be in the dictionary.
+	 */
+	private static byte[] encode(String word) {
+		byte[] bytes = new byte[word.length()];
+		for (int i = 0; i < bytes.length; i++) {
+			char ch = word.charAt(i);
+			if (ch == 0 || ch > 255) {
+				return null;
+			}
+			bytes[i] = (byte) ch;
+		}
+		return bytes;
+	}
+
+	/**
+	 * Compares a decoded word with a target in unsigned byte order.
+	 *
+	 * @param word   the buffer holding the word.
+	 * @param length the length of the word.
+	 * @param target the target.
+	 * @return a negative, zero or positive value as the word sorts before, equal
+	 *         to or after the target.
+	 */
+	private static int compare(byte[] word, int length, byte[] target) {
+		return compare(word, 0, length, target);
+	}
+
+	/**
+	 * Compares a word stored in an array with a target in unsigned byte order.
+	 *
+	 * @param bytes  the array holding the word.
+	 * @param from   the offset of the word.
+	 * @param length the length of the word.
+	 * @param target the target.
+	 * @return a negative, zero or positive value as the word sorts before, equal
+	 *         to or after the target.
+	 */
+	private static int compare(byte[] bytes, int from, int length, byte[] target) {
+		int max = Math.min(length, target.length);
+		for (int i = 0; i < max; i++) {
+			int diff = (bytes[from + i] & 0xFF) - (target[i] & 0xFF);
+			if (diff != 0) {
+				return diff;
+			}
+		}
+		return length - target.length;
+	}
+
+	/**
+	 * Compares a decoded word with a prefix.
+	 *
+	 * @param word   the buffer holding the word.
+	 * @param length the length of the word.
+	 * @param prefix the prefix.
+	 * @return 0 if the word starts with the prefix, otherwise a negative or
+	 *         positive value as the word sorts before or after all such words.
+	 */
+	private static int comparePrefix(byte[] word, int length, byte[] prefix) {
+		int max = Math.min(length, prefix.length);
+		for (int i = 0; i < max; i++) {
+			int diff = (word[i] & 0xFF) - (prefix[i] & 0xFF);
+			if (diff != 0) {
+				return diff;
+			}
+		}
+		return length < prefix.length ? -1 : 0;
+	}
+
+	/**
+	 * Returns the importance of the word with a rank.
+	 *
+	 * @param index the rank.
+	 * @return the importance.
+	 */
+	private int getImportance(int index) {
+		long bit = (long) index * bits;
+		int word = (int) (bit >>> 6);
+		int shift = (int) (bit & 63);
+		long value = importance[word] >>> shift;
+		if (shift + bits > 64) {
+			value |= importance[word + 1] << (64 - shift);
+		}
+		return (int) (value & ((1L << bits) - 1));
+	}
+
+	/**
+	 * Sets the importance of the word with a rank, widening the packed array if
+	 * the value does not fit.
+	 *
+	 * @param index the rank.
+	 * @param value the importance, not negative.
+	 */
+	private void setImportance(int index, int value) {
+		if (value >>> bits != 0) {
+			repack(32 - Integer.numberOfLeadingZeros(value));
+		}
+		long bit = (long) index * bits;
+		int word = (int) (bit >>> 6);
+		int shift = (int) (bit & 63);
+		long mask = (1L << bits) - 1;
+		importance[word] = (importance[word] & ~(mask << shift)) | ((long) value << shift);
+		if (shift + bits > 64) {
+			int high = 64 - shift;
+			importance[word + 1] = (importance[word + 1] & ~(mask >>> high)) | ((long) value >>> high);
+		}
+	}
+
+	/**
+	 * Rebuilds the packed importance array with a wider width.
+	 *
+	 * @param newBits the new number of bits per value.
+	 */
+	private void repack(int newBits) {
+		int[] values = new int[words];
+		for (int i = 0; i < words; i++) {
+			values[i] = getImportance(i);
+		}
+		bits = newBits;
+		importance = new long[(int) (((long) words * bits + 63) / 64)];
+		for (int i = 0; i < words; i++) {
+			setImportance(i, values[i]);
+		}
+	}
+
+	/**
+	 * Writes a variable-length integer, seven bits per byte.
+	 *
+	 * @param out      the output array.
+	 * @param position the position to write at.
+	 * @param value    the value, not negative.
+	 * @return the position after the value.
+	 */
+	private static int writeVarInt(byte[] out, int position, int value) {
+		while (value >= 0x80) {
+			out[position++] = (byte) (value | 0x80);
+			value >>>= 7;
+		}
+		out[position++] = (byte) value;
+		return position;
+	}
+
+	/**
+	 * Reads a variable-length integer from the front-coded data.
+	 *
+	 * @param position the position of the value.
+	 * @return the value.
+	 */
+	private int readVarInt(int position) {
+		int value = 0;
+		for (int shift = 0;; shift += 7) {
+			byte b = data[position++];
+			value |= (b & 0x7F) << shift;
+			if (b >= 0) {
+				return value;
+			}
+		}
+	}
+
+	/**
+	 * Skips a variable-length integer in the front-coded data.
+	 *
+	 * @param position the position of the value.
+	 * @return the position after the value.
+	 */
+	private int skipVarInt(int position) {
+		while (data[position] < 0) {
+			position++;
+		}
+		return position + 1;
+	}
+}
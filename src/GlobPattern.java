@@ -0,0 +1,354 @@
+package HW;
+
+import java.util.Arrays;
+
+/**
+ * A compiled glob pattern over dictionary words. The syntax is small:
+ * <ul>
+ * <li>{@code ?} matches any single character,</li>
+ * <li>{@code *} matches any sequence of characters, including none,</li>
+ * <li>{@code [abc]}, {@code [a-z]} match one character of a class, and
+ * {@code [!abc]} or {@code [^abc]} one character outside it,</li>
+ * <li>{@code \} makes the next character literal, every other character
+ * matches itself.</li>
+ * </ul>
+ * Patterns are matched case-insensitively, like the words of the trie. As the
+ * trie stores only the letters a-z, a character outside them, literal or in a
+ * class, matches no word of a trie.
+ *
+ * <p>
+ * The pattern is run as a nondeterministic automaton whose states are the
+ * positions between its tokens, kept as the bits of a {@code long}. Walking a
+ * trie carries the set of states reached by the characters of the current
+ * prefix, so a branch is left as soon as no state survives, and branches whose
+ * next character is fixed by the pattern are looked up instead of scanned.
+ */
+public final class GlobPattern {
+
+	/** The largest number of tokens of a pattern. */
+	public static final int MAX_TOKENS = 63;
+
+	/** The largest number of characters looked up one by one instead of scanned. */
+	static final int MAX_CANDIDATES = 8;
+
+	/** A token matching one given character. */
+	private static final byte LITERAL = 0;
+
+	/** A token matching any character. */
+	private static final byte ANY = 1;
+
+	/** A token matching any sequence of characters. */
+	private static final byte STAR = 2;
+
+	/** A token matching one character of a class. */
+	private static final byte CLASS = 3;
+
+	/** The source of the pattern. */
+	private final String source;
+
+	/** The type of each token. */
+	private final byte[] types;
+
+	/** The character of each literal token. */
+	private final char[] literals;
+
+	/** The inclusive bounds of the ranges of each class token, in pairs. */
+	private final char[][] ranges;
+
+	/** Whether each class token matches the characters outside its ranges. */
+	private final boolean[] negated;
+
+	/** The bit of the state after the last token, in which a word is matched. */
+	private final long accept;
+
+	/** The states before the first character. */
+	private final long start;
+
+	/**
+	 * Constructor for a compiled pattern.
+	 *
+	 * @param source   the source of the pattern.
+	 * @param length   the number of tokens.
+	 * @param types    the type of each token.
+	 * @param literals the character of each literal token.
+	 * @param ranges   the ranges of each class token.
+	 * @param negated  whether each class token is negated.
+	 */
+	private GlobPattern(String source, int length, byte[] types, char[] literals, char[][] ranges,
+			boolean[] negated) {
+		this.source = source;
+		this.types = types;
+		this.literals = literals;
+		this.ranges = ranges;
+		this.negated = negated;
+		this.accept = 1L << length;
+		this.start = closure(1L);
+	}
+
+	/**
+	 * Compiles a pattern.
+	 *
+	 * @param pattern the pattern.
+	 * @return the compiled pattern.
+	 * @throws IllegalArgumentException if the pattern is malformed or has more
+	 *                                  than {@link #MAX_TOKENS} tokens.
+	 */
+	public static GlobPattern compile(String pattern) {
+		String lower = pattern.toLowerCase();
+		byte[] types = new byte[MAX_TOKENS];
+		char[] literals = new char[MAX_TOKENS];
+		char[][] ranges = new char[MAX_TOKENS][];
+		boolean[] negated = new boolean[MAX_TOKENS];
+		int length = 0;
+
+		int i = 0;
+		while (i < lower.length()) {
+			if (length == MAX_TOKENS) {
+				throw new IllegalArgumentException("Pattern has more than " + MAX_TOKENS + " tokens: " + pattern);
+			}
+			char c = lower.charAt(i++);
+			if (c == '*') {
+				// Consecutive stars match the same as one
+				if (length == 0 || types[length - 1] != STAR) {
+					types[length++] = STAR;
+				}
+				continue;
+			} else if (c == '?') {
+				types[length] = ANY;
+			} else if (c == '[') {
+				i = parseClass(pattern, lower, i, length, ranges, negated);
+				types[length] = CLASS;
+			} else {
+				if (c == '\\') {
+					if (i == lower.length()) {
+						throw new IllegalArgumentException("Pattern ends with an escape: " + pattern);
+					}
+					c = lower.charAt(i++);
+				}
+				types[length] = LITERAL;
+				literals[length] = c;
+			}
+			length++;
+		}
+		return new GlobPattern(pattern, length, types, literals, ranges, negated);
+	}
+
+	/**
+	 * Parses a character class.
+	 *
+	 * @param pattern the source of the pattern, for error messages.
+	 * @param lower   the lowercase pattern.
+	 * @param i       the index after the opening bracket.
+	 * @param token   the index of the class token.
+	 * @param ranges  receives the ranges of the class.
+	 * @param negated receives whether the class is negated.
+	 * @return the index after the closing bracket.
+	 */
+	private static int parseClass(String pattern, String lower, int i, int token, char[][] ranges,
+			boolean[] negated) {
+		if (i < lower.length() && (lower.charAt(i) == '!' || lower.charAt(i) == '^')) {
+			negated[token] = true;
+			i++;
+		}
+		char[] bounds = new char[2 * (lower.length() - i)];
+		int count = 0;
+		while (i < lower.length() && lower.charAt(i) != ']') {
+			char from = lower.charAt(i++);
+			char to = from;
+			if (i + 1 < lower.length() && lower.charAt(i) == '-' && lower.charAt(i + 1) != ']') {
+				to = lower.charAt(i + 1);
+				i += 2;
+				if (to < from) {
+					throw new IllegalArgumentException("Reversed range " + from + "-" + to + " in " + pattern);
+				}
+			}
+			bounds[count++] = from;
+			bounds[count++] = to;
+		}
+		if (i == lower.length()) {
+			throw new IllegalArgumentException("Unterminated character class: " + pattern);
+		} else if (count == 0) {
+			throw new IllegalArgumentException("Empty character class: " + pattern);
+		}
+		ranges[token] = Arrays.copyOf(bounds, count);
+		return i + 1;
+	}
+
+	/**
+	 * Returns the states before the first character of a word.
+	 *
+	 * @return the start states.
+	 */
+	long start() {
+		return start;
+	}
+
+	/**
+	 * Returns the states reached from the given states by one character.
+	 *
+	 * @param states the current states.
+	 * @param c      the character.
+	 * @return the next states, 0 if no state survives.
+	 */
+	long step(long states, char c) {
+		long next = 0;
+		for (long rest = states & ~accept; rest != 0; rest &= rest - 1) {
+			int i = Long.numberOfTrailingZeros(rest);
+			switch (types[i]) {
+			case LITERAL:
+				if (literals[i] == c) {
+					next |= 1L << (i + 1);
+				}
+				break;
+			case ANY:
+				next |= 1L << (i + 1);
+				break;
+			case STAR:
+				next |= 1L << i;
+				break;
+			default:
+				if (inClass(i, c)) {
+					next |= 1L << (i + 1);
+				}
+			}
+		}
+		return closure(next);
+	}
+
+	/**
+	 * Tests whether the given states match a complete word.
+	 *
+	 * @param states the states after the last character.
+	 * @return {@code true} if the word is matched.
+	 */
+	boolean accepts(long states) {
+		return (states & accept) != 0;
+	}
+
+	/**
+	 * Tests whether more characters can still lead to a match.
+	 *
+	 * @param states the current states.
+	 * @return {@code true} if a state before the end survives.
+	 */
+	boolean canContinue(long states) {
+		return (states & ~accept) != 0;
+	}
+
+	/**
+	 * Returns the only characters that can continue from the given states, so
+	 * they can be looked up instead of scanning a whole table. Characters outside
+	 * a-z are left out, as no table holds them.
+	 *
+	 * @param states the current states.
+	 * @return the distinct characters, or {@code null} if the states accept too
+	 *         many characters to look them up one by one.
+	 */
+	char[] candidates(long states) {
+		char[] candidates = new char[MAX_CANDIDATES];
+		int count = 0;
+		for (long rest = states & ~accept; rest != 0; rest &= rest - 1) {
+			int i = Long.numberOfTrailingZeros(rest);
+			if (types[i] == LITERAL) {
+				count = addCandidate(candidates, count, literals[i], literals[i]);
+			} else if (types[i] == CLASS && !negated[i]) {
+				for (int r = 0; r < ranges[i].length && count >= 0; r += 2) {
+					count = addCandidate(candidates, count, ranges[i][r], ranges[i][r + 1]);
+				}
+			} else {
+				return null;
+			}
+			if (count < 0) {
+				return null;
+			}
+		}
+		return Arrays.copyOf(candidates, count);
+	}
+
+	/**
+	 * Adds the letters a-z of a range of characters to the candidates, skipping
+	 * those already present.
+	 *
+	 * @param candidates the candidates.
+	 * @param count      the number of candidates.
+	 * @param from       the first character of the range.
+	 * @param to         the last character of the range.
+	 * @return the new number of candidates, or -1 if there are too many.
+	 */
+	private static int addCandidate(char[] candidates, int count, char from, char to) {
+		from = (char) Math.max(from, 'a');
+		to = (char) Math.min(to, 'z');
+		if (from > to) {
+			return count;
+		} else if (to - from >= MAX_CANDIDATES) {
+			return -1;
+		}
+		for (char c = from; c <= to; c++) {
+			boolean present = false;
+			for (int j = 0; j < count && !present; j++) {
+				present = candidates[j] == c;
+			}
+			if (!present) {
+				if (count == MAX_CANDIDATES) {
+					return -1;
+				}
+				candidates[count++] = c;
+			}
+		}
+		return count;
+	}
+
+	/**
+	 * Tests a whole word against the pattern.
+	 *
+	 * @param word the word.
+	 * @return {@code true} if the pattern matches the word.
+	 */
+	public boolean matches(String word) {
+		word = word.toLowerCase();
+		long states = start;
+		for (int i = 0; i < word.length() && states != 0; i++) {
+			states = step(states, word.charAt(i));
+		}
+		return accepts(states);
+	}
+
+	/**
+	 * Adds the states reachable without a character: a star may match nothing,
+	 * so the state after it is reached as well.
+	 *
+	 * @param states the states.
+	 * @return the closed states.
+	 */
+	private long closure(long states) {
+		for (long rest = states & ~accept; rest != 0; rest &= rest - 1) {
+			int i = Long.numberOfTrailingZeros(rest);
+			if (types[i] == STAR) {
+				states |= 1L << (i + 1);
+				rest |= 1L << (i + 1) & ~accept;
+			}
+		}
+		return states;
+	}
+
+	/**
+	 * Tests whether a character belongs to a class token.
+	 *
+	 * @param token the index of the class token.
+	 * @param c     the character.
+	 * @return {@code true} if the token matches the character.
+	 */
+	private boolean inClass(int token, char c) {
+		char[] bounds = ranges[token];
+		boolean in = false;
+		for (int r = 0; r < bounds.length && !in; r += 2) {
+			in = c >= bounds[r] && c <= bounds[r + 1];
+		}
+		return in != negated[token];
+	}
+
+	@Override
+	public String toString() {
+		return source;
+	}
+}
@@ -7,18 +7,64 @@ import java.util.Scanner;
  * Main class for testing the functionality of Robin Hood Trie and a standard
  * Trie. It reads a dictionary file to populate both data structures, optionally
  * allows user interaction for word suggestions, and compares memory usage
- * between the two structures.
+ * between the two structures. With {@code --serve [port]} the suggestions are
+ * served over TCP by a {@link SuggestServer} instead. With
+ * {@code --shard <index> <count> [range | hash]} only the words of one shard of
+ * a {@link ShardedTrie} are loaded.
  */
 public class HashingMain {
 
 	public static void main(String[] args) throws IOException {
 
-		// Create instances of Robin Hood Trie
-		RobinHoodTrie trie = new RobinHoodTrie();
+		// Optionally collect query metrics, serve suggestions over TCP or keep one shard
+		boolean metrics = false;
+		int port = -1;
+		ShardRouter router = null;
+		int shard = 0;
+		for (int i = 2; i < args.length; i++) {
+			if (args[i].equals("--metrics")) {
+				metrics = true;
+			} else if (args[i].equals("--serve")) {
+				port = i + 1 < args.length && args[i + 1].matches("\\d+") ? Integer.parseInt(args[++i])
+						: SuggestServer.DEFAULT_PORT;
+			} else if (args[i].equals("--shard")) {
+				shard = Integer.parseInt(args[++i]);
+				int shards = Integer.parseInt(args[++i]);
+				String policy = i + 1 < args.length && !args[i + 1].startsWith("--") ? args[++i] : "range";
+				router = ShardRouter.parse(policy, shards);
+			}
+		}
 
 		// Read the dictionary file and insert the text to get importance
-		trie.readDictionary(args[0]);
-		trie.insertText(args[1]);
+		RobinHoodTrie trie;
+		if (router != null) {
+			trie = ShardedTrie.loadShard(router, shard, args[0], args[1]);
+		} else {
+			trie = new RobinHoodTrie();
+			trie.readDictionary(args[0]);
+			trie.insertText(args[1]);
+		}
+		if (metrics) {
+			trie.enableMetrics();
+		}
+
+		if (port >= 0) {
+			int threads = Runtime.getRuntime().availableProcessors();
+			SuggestServer server = new SuggestServer(trie, port, threads, threads * SuggestServer.MAX_PIPELINE);
+			System.out.println("Serving suggestions on port " + server.getPort());
+			if (router == null) {
+				server.run();
+				return;
+			}
+
+			// A shard serves until its standard input closes, so it ends with its launcher
+			server.start();
+			while (System.in.read() >= 0) {
+				// Wait for the end of the input
+			}
+			server.close();
+			return;
+		}
 
 		Scanner scanner = new Scanner(System.in);
 		while (true) {
@@ -34,16 +80,13 @@ public class HashingMain {
 				break;
 			}
 
-			// Initialize a min-heap to store suggestions
-			Heap minHeap = new Heap(k);
-
-			// Get word suggestions from the Robin Hood Trie
-			trie.getPrefixWords(minHeap, word, k);
-			trie.getSameLengthWords(minHeap, word, k);
-			trie.getDiffLengthWords(minHeap, word, k);
+			if (!trie.search(word.toLowerCase())) {
+				System.out.println("Word " + word.toLowerCase() + " not found!");
+				continue;
+			}
 
-			// Retrieve and print the top k word suggestions
-			String words[] = minHeap.getTopKWords();
+			// Get the top k word suggestions from the Robin Hood Trie
+			String words[] = trie.suggest(word, k);
 			for (int i = 0; i < words.length; i++) {
 				System.out.print(words[i] + " ");
 			}
@@ -55,6 +98,10 @@ public class HashingMain {
 		// Compare memory usage between Robin Hood Trie
 		System.out.println("Memory of RobinHood: " + trie.findMemorySize());
 
+		if (trie.getMetrics() != null) {
+			System.out.println("Query metrics: " + trie.getMetrics().snapshot().toJson());
+		}
+
 		return;
 
 	}
@@ -4,25 +4,24 @@ package HW;
  * Implements a min-heap to store word suggestions along with their importance.
  * The heap is used to efficiently retrieve the top k words with the lowest
  * importance scores.
+ *
+ * <p>
+ * The entries are plain ints rather than objects. A word of a
+ * {@link RobinHoodTrie} is inserted by its id in the trie's {@link WordIds}
+ * and resolved to its string only when it is retrieved, so the candidates that
+ * are pushed out of the heap again never need their string. Words that have no
+ * id, such as the answers of a remote shard or prefixes that are not stored
+ * words, are kept in a side table of at most {@code n + 1} strings and referred
+ * to by the complement of their slot.
  */
-class WordNode {
-	String word;
-	int importance;
-
-	/**
-	 * Constructor for a WordNode object.
-	 *
-	 * @param word       the word to store.
-	 * @param importance the importance score of the word.
-	 */
-	public WordNode(String word, int importance) {
-		this.word = word;
-		this.importance = importance;
-	}
-}
-
 public class Heap {
-	private WordNode[] contents; // Array representing the heap
+	private int[] entries; // Array representing the heap, ids or complemented slots
+	private int[] scores; // Importance of each entry
+	private String[] words; // Words inserted as strings, by slot
+	private int[] freeSlots; // Slots of words that left the heap
+	private int freeCount; // Number of free slots
+	private int usedSlots; // Number of slots handed out so far
+	private WordIds ids; // Ids the entries refer to, bound by the first id
 	private int size; // Current number of elements in the heap
 	private int maxsize; // Maximum capacity of the heap
 
@@ -32,7 +31,8 @@ public class Heap {
 	 * @param n the maximum number of elements the heap can hold.
 	 */
 	public Heap(int n) {
-		this.contents = new WordNode[n + 1]; // Index 0 is unused
+		this.entries = new int[n + 1]; // Index 0 is unused
+		this.scores = new int[n + 1];
 		this.size = 0;
 		this.maxsize = n;
 	}
@@ -63,24 +63,88 @@ public class Heap {
 	 * @param importance the importance score of the word.
 	 */
 	public void insert(String word, int importance) {
+		if (this.size < this.maxsize || importance > this.scores[1]) {
+			if (this.words == null) {
+				this.words = new String[this.maxsize + 1];
+				this.freeSlots = new int[this.maxsize + 1];
+			}
+			int slot = this.freeCount > 0 ? this.freeSlots[--this.freeCount] : this.usedSlots++;
+			this.words[slot] = word;
+			add(~slot, importance);
+		}
+	}
+
+	/**
+	 * Inserts a word by its id. The id is resolved through {@code ids} only if the
+	 * word is retrieved from the heap, so the ids must not be handed to other
+	 * words until then. All ids of a heap refer to the first ids inserted, a word
+	 * of other ids is inserted as a string.
+	 *
+	 * @param ids        the ids of the word.
+	 * @param id         the id of the word.
+	 * @param importance the importance score of the word.
+	 */
+	void insert(WordIds ids, int id, int importance) {
+		if (this.ids == null) {
+			this.ids = ids;
+		}
+		if (this.ids != ids) {
+			insert(ids.word(id), importance);
+		} else if (this.size < this.maxsize || importance > this.scores[1]) {
+			add(id, importance);
+		}
+	}
+
+	/**
+	 * Adds an entry that belongs in the heap, replacing the root if the heap is
+	 * full.
+	 *
+	 * @param entry      the id or the complemented slot of the word.
+	 * @param importance the importance score of the word.
+	 */
+	private void add(int entry, int importance) {
 		if (this.size < this.maxsize) {
-			// Insert the new word if there is space in the heap
-			WordNode newNode = new WordNode(word, importance);
 			int index = ++this.size;
 
 			// Percolate up to maintain heap property
-			while (index > 1 && this.contents[index / 2].importance > importance) {
-				this.contents[index] = this.contents[index / 2];
+			while (index > 1 && this.scores[index / 2] > importance) {
+				this.entries[index] = this.entries[index / 2];
+				this.scores[index] = this.scores[index / 2];
 				index = index / 2;
 			}
-			this.contents[index] = newNode;
-		} else if (importance > this.contents[1].importance) {
-			// Replace the root if the new word's importance is higher
-			this.contents[1] = new WordNode(word, importance);
+			this.entries[index] = entry;
+			this.scores[index] = importance;
+		} else {
+			// Replace the root, the new word's importance is higher
+			release(this.entries[1]);
+			this.entries[1] = entry;
+			this.scores[1] = importance;
 			percolateDown(1); // Restore heap property
 		}
 	}
 
+	/**
+	 * Frees the slot of an entry that left the heap.
+	 *
+	 * @param entry the id or the complemented slot of the word.
+	 */
+	private void release(int entry) {
+		if (entry < 0) {
+			this.words[~entry] = null;
+			this.freeSlots[this.freeCount++] = ~entry;
+		}
+	}
+
+	/**
+	 * Resolves an entry to its word.
+	 *
+	 * @param entry the id or the complemented slot of the word.
+	 * @return the word.
+	 */
+	private String word(int entry) {
+		return entry < 0 ? this.words[~entry] : this.ids.word(entry);
+	}
+
 	/**
 	 * Deletes and returns the word with the minimum importance (root of the heap).
 	 *
@@ -92,33 +156,17 @@ public class Heap {
 			return null;
 		}
 
-		WordNode minNode = contents[1]; // Root of the heap
-		WordNode lastNode = contents[size]; // Last element in the heap
-		size--;
-
-		int index = 1, child;
-
-		// Percolate down to maintain heap property
-		while ((index * 2) <= size) {
-			child = index * 2;
-
-			// Select the smaller child
-			if (child != size && contents[child + 1].importance < contents[child].importance) {
-				child++;
-			}
-
-			// Stop if the last node's importance is greater than the smaller child
-			if (lastNode.importance <= contents[child].importance) {
-				break;
-			}
+		int minEntry = entries[1]; // Root of the heap
+		String word = word(minEntry);
+		release(minEntry);
 
-			contents[index] = contents[child];
-			index = child;
-		}
-
-		contents[index] = lastNode;
+		// Move the last element to the root and percolate it down
+		entries[1] = entries[size];
+		scores[1] = scores[size];
+		size--;
+		percolateDown(1);
 
-		return minNode.word;
+		return word;
 	}
 
 	/**
@@ -129,27 +177,48 @@ public class Heap {
 	 */
 	private void percolateDown(int index) {
 		int child;
-		WordNode tmp = contents[index];
+		int entry = entries[index];
+		int score = scores[index];
 
 		// Continue until the element is in the correct position
 		while ((index * 2) <= size) {
 			child = index * 2;
 
 			// Select the smaller child
-			if (child != size && contents[child + 1].importance < contents[child].importance) {
+			if (child != size && scores[child + 1] < scores[child]) {
 				child++;
 			}
 
 			// Stop if the element's importance is less than or equal to the smaller child
-			if (tmp.importance <= contents[child].importance) {
+			if (score <= scores[child]) {
 				break;
 			}
 
-			contents[index] = contents[child];
+			entries[index] = entries[child];
+			scores[index] = scores[child];
 			index = child;
 		}
 
-		contents[index] = tmp;
+		entries[index] = entry;
+		scores[index] = score;
+	}
+
+	/**
+	 * Inserts all words of another heap into this one, keeping the words with the
+	 * highest importance when this heap is full. Words held by their ids stay ids
+	 * when both heaps refer to the same ids.
+	 *
+	 * @param other the heap whose words are inserted.
+	 */
+	public void merge(Heap other) {
+		for (int i = 1; i <= other.size; i++) {
+			int entry = other.entries[i];
+			if (entry < 0) {
+				insert(other.words[~entry], other.scores[i]);
+			} else {
+				insert(other.ids, entry, other.scores[i]);
+			}
+		}
 	}
 
 	/**
@@ -161,8 +230,20 @@ public class Heap {
 	public String[] getTopKWords() {
 		String[] topWords = new String[size];
 		for (int i = 0; i < size; i++) {
-			topWords[i] = contents[i + 1].word; // Skip index 0
+			topWords[i] = word(entries[i + 1]); // Skip index 0
 		}
 		return topWords;
 	}
+
+	/**
+	 * Retrieves the importance of the words returned by {@link #getTopKWords()},
+	 * in the same order.
+	 *
+	 * @return an array of the importance scores of the words in the heap.
+	 */
+	public int[] getTopKImportance() {
+		int[] importance = new int[size];
+		System.arraycopy(scores, 1, importance, 0, size);
+		return importance;
+	}
 }
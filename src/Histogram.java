@@ -0,0 +1,173 @@
+package HW;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * A fixed-size histogram of non-negative values, such as latencies in
+ * nanoseconds. Values are recorded into log-linear buckets in the style of an
+ * HDR histogram: each power of two is split into 16 sub-buckets, so recorded
+ * values are kept with a relative error of about 6%. Recording takes constant
+ * time, allocates nothing and may happen from several threads.
+ */
+public class Histogram {
+
+	/** The number of bits of a value kept exactly within a bucket. */
+	private static final int SUB_BUCKET_BITS = 5;
+
+	/** The number of values below which every value has its own bucket. */
+	private static final int SUB_BUCKETS = 1 << SUB_BUCKET_BITS;
+
+	/** The number of sub-buckets per power of two above {@link #SUB_BUCKETS}. */
+	private static final int HALF_SUB_BUCKETS = SUB_BUCKETS / 2;
+
+	/** The count of values recorded into each bucket. */
+	private final AtomicLongArray counts = new AtomicLongArray(SUB_BUCKETS + (64 - SUB_BUCKET_BITS) * HALF_SUB_BUCKETS);
+
+	/** The number of recorded values. */
+	private final LongAdder count = new LongAdder();
+
+	/** The sum of the recorded values. */
+	private final LongAdder sum = new LongAdder();
+
+	/** The largest recorded value. */
+	private final AtomicLong max = new AtomicLong();
+
+	/**
+	 * Records a value. Negative values are recorded as 0.
+	 *
+	 * @param value the value to record.
+	 */
+	public void record(long value) {
+		if (value < 0) {
+			value = 0;
+		}
+		counts.incrementAndGet(index(value));
+		count.increment();
+		sum.add(value);
+		if (value > max.get()) {
+			max.accumulateAndGet(value, Math::max);
+		}
+	}
+
+	/**
+	 * Adds all values of another histogram to this one.
+	 *
+	 * @param other the histogram to add.
+	 */
+	public void add(Histogram other) {
+		for (int i = 0; i < counts.length(); i++) {
+			long c = other.counts.get(i);
+			if (c != 0) {
+				counts.addAndGet(i, c);
+			}
+		}
+		count.add(other.count.sum());
+		sum.add(other.sum.sum());
+		max.accumulateAndGet(other.max.get(), Math::max);
+	}
+
+	/** Removes all recorded values. */
+	public void reset() {
+		for (int i = 0; i < counts.length(); i++) {
+			counts.set(i, 0);
+		}
+		count.reset();
+		sum.reset();
+		max.set(0);
+	}
+
+	/**
+	 * Returns the number of recorded values.
+	 *
+	 * @return the number of values.
+	 */
+	public long getCount() {
+		return count.sum();
+	}
+
+	/**
+	 * Returns the mean of the recorded values.
+	 *
+	 * @return the mean, or 0 if nothing was recorded.
+	 */
+	public double getMean() {
+		long n = count.sum();
+		return n == 0 ? 0 : (double) sum.sum() / n;
+	}
+
+	/**
+	 * Returns the largest recorded value.
+	 *
+	 * @return the maximum, or 0 if nothing was recorded.
+	 */
+	public long getMax() {
+		return max.get();
+	}
+
+	/**
+	 * Returns the value below or at which the given percentage of the recorded
+	 * values lie. The result is the highest value of the bucket holding that
+	 * value, capped by the maximum.
+	 *
+	 * @param percentile the percentile between 0 and 100.
+	 * @return the value at the percentile, or 0 if nothing was recorded.
+	 */
+	public long getValueAtPercentile(double percentile) {
+		long n = count.sum();
+		if (n == 0) {
+			return 0;
+		}
+		long target = Math.max(1, (long) Math.ceil(percentile / 100.0 * n));
+		long seen = 0;
+		for (int i = 0; i < counts.length(); i++) {
+			seen += counts.get(i);
+			if (seen >= target) {
+				return Math.min(highestValue(i), max.get());
+			}
+		}
+		return max.get();
+	}
+
+	/**
+	 * Creates an independent copy of the histogram.
+	 *
+	 * @return the copy.
+	 */
+	public Histogram copy() {
+		Histogram copy = new Histogram();
+		copy.add(this);
+		return copy;
+	}
+
+	/**
+	 * Computes the bucket of a value.
+	 *
+	 * @param value the non-negative value.
+	 * @return the index of the bucket.
+	 */
+	private static int index(long value) {
+		if (value < SUB_BUCKETS) {
+			return (int) value;
+		}
+		int shift = 64 - Long.numberOfLeadingZeros(value) - SUB_BUCKET_BITS;
+		int mantissa = (int) (value >>> shift);
+		return SUB_BUCKETS + (shift - 1) * HALF_SUB_BUCKETS + (mantissa - HALF_SUB_BUCKETS);
+	}
+
+	/**
+	 * Computes the highest value that falls into a bucket.
+	 *
+	 * @param index the index of the bucket.
+	 * @return the highest value of the bucket.
+	 */
+	private static long highestValue(int index) {
+		if (index < SUB_BUCKETS) {
+			return index;
+		}
+		int shift = (index - SUB_BUCKETS) / HALF_SUB_BUCKETS + 1;
+		long mantissa = (index - SUB_BUCKETS) % HALF_SUB_BUCKETS + HALF_SUB_BUCKETS;
+		return ((mantissa + 1) << shift) - 1;
+	}
+}
@@ -0,0 +1,555 @@
+package HW;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.Closeable;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.zip.CRC32C;
+import java.util.zip.CheckedInputStream;
+import java.util.zip.CheckedOutputStream;
+
+/**
+ * A write-ahead log of the importance updates of a {@link RobinHoodTrie}, so
+ * that importance survives a restart without reading the text again. Updates
+ * are buffered and written in groups. The deltas of a word within a group are
+ * merged, and every group is written with one write and one {@code fsync}.
+ * Updates not yet committed in a group are lost by a crash.
+ *
+ * <p>
+ * The log lives in a directory as numbered segment files next to one
+ * checkpoint, a snapshot of the importance of every word. Writing a checkpoint
+ * starts a new segment and deletes the older ones, so recovery loads the
+ * checkpoint and replays only the segments written since. Groups carry a
+ * checksum, and a group torn by a crash at the end of the last segment is cut
+ * off.
+ *
+ * <p>
+ * Records name words instead of word ids, so the log stays valid however the
+ * ids are assigned when the dictionary is read again. Only importance is
+ * logged. The words themselves come from the dictionary, and a deletion is
+ * logged as a reset of the importance of the word.
+ */
+public final class ImportanceLog implements Closeable {
+
+	/** The number of distinct words after which a group is committed. */
+	public static final int DEFAULT_GROUP = 4096;
+
+	/** The number of committed records after which a checkpoint is written. */
+	public static final long DEFAULT_CHECKPOINT_INTERVAL = 1L << 20;
+
+	/** The first int of a checkpoint file. */
+	private static final int MAGIC = 0x494D5031;
+
+	/** The delta recorded when the importance of a word is reset. */
+	private static final int RESET = Integer.MIN_VALUE;
+
+	/** The name of the checkpoint file. */
+	private static final String CHECKPOINT = "checkpoint";
+
+	/** The name prefix of the segment files, followed by their number. */
+	private static final String SEGMENT = "importance-";
+
+	/** The name suffix of the segment files. */
+	private static final String SUFFIX = ".log";
+
+	/** The bytes of a group header: the payload length and its checksum. */
+	private static final int HEADER = 8;
+
+	/** What recovery found in the log directory. */
+	public static final class Recovery {
+
+		/** The number of words whose importance was loaded from the checkpoint. */
+		public final int checkpointWords;
+
+		/** The number of groups replayed from the segments. */
+		public final long groups;
+
+		/** The number of records replayed from the segments. */
+		public final long records;
+
+		/** The number of checkpoint entries and records naming unknown words. */
+		public final long unknownWords;
+
+		/** The number of bytes cut off a torn group at the end of the log. */
+		public final long truncatedBytes;
+
+		/** The time recovery took in nanoseconds. */
+		public final long nanos;
+
+		/**
+		 * Constructor for the result of a recovery.
+		 *
+		 * @param checkpointWords the words loaded from the checkpoint.
+		 * @param groups          the replayed groups.
+		 * @param records         the replayed records.
+		 * @param unknownWords    the entries naming unknown words.
+		 * @param truncatedBytes  the bytes cut off the log.
+		 * @param nanos           the time of the recovery.
+		 */
+		Recovery(int checkpointWords, long groups, long records, long unknownWords, long truncatedBytes,
+				long nanos) {
+			this.checkpointWords = checkpointWords;
+			this.groups = groups;
+			this.records = records;
+			this.unknownWords = unknownWords;
+			this.truncatedBytes = truncatedBytes;
+			this.nanos = nanos;
+		}
+	}
+
+	/** The directory of the log. */
+	private final File directory;
+
+	/** The number of distinct words after which a group is committed. */
+	private final int groupSize;
+
+	/** The number of committed records after which a checkpoint is written. */
+	private final long checkpointInterval;
+
+	/** The deltas of the current group by word: a reset flag and the delta. */
+	private final Map<String, int[]> pending = new LinkedHashMap<>();
+
+	/** The number of the segment being appended to. */
+	private long segment;
+
+	/** The channel of the segment being appended to. */
+	private FileChannel channel;
+
+	/** The number of records committed since the last checkpoint. */
+	private long sinceCheckpoint;
+
+	/** The number of committed groups, each synced once. */
+	private long groups;
+
+	/** The number of committed records. */
+	private long records;
+
+	/** The number of bytes written to segments. */
+	private long bytes;
+
+	/** The number of checkpoints written. */
+	private long checkpoints;
+
+	/** What recovery found when the log was opened. */
+	private Recovery recovery;
+
+	/**
+	 * Constructor for a log appending to a segment.
+	 *
+	 * @param directory          the directory of the log.
+	 * @param groupSize          the distinct words per group.
+	 * @param checkpointInterval the records between checkpoints.
+	 * @param segment            the number of the segment.
+	 * @param channel            the channel of the segment, positioned at its end.
+	 */
+	private ImportanceLog(File directory, int groupSize, long checkpointInterval, long segment,
+			FileChannel channel) {
+		this.directory = directory;
+		this.groupSize = groupSize;
+		this.checkpointInterval = checkpointInterval;
+		this.segment = segment;
+		this.channel = channel;
+	}
+
+	/**
+	 * Restores the importance of the words of a trie from a log directory and
+	 * opens the log for appending. The trie must hold the words of the
+	 * dictionary, with the importance to be recovered not yet applied. A
+	 * missing or empty directory recovers nothing.
+	 *
+	 * @param directory          the directory of the log, created if missing.
+	 * @param trie               the trie whose importance is restored.
+	 * @param groupSize          the distinct words after which a group is
+	 *                           committed.
+	 * @param checkpointInterval the committed records after which a checkpoint
+	 *                           is written.
+	 * @return the opened log.
+	 * @throws IOException if the log cannot be read or written, or is corrupt
+	 *                     before its last group.
+	 */
+	static ImportanceLog open(File directory, RobinHoodTrie trie, int groupSize, long checkpointInterval)
+			throws IOException {
+		if (groupSize < 1) {
+			throw new IllegalArgumentException("Group size must be positive: " + groupSize);
+		}
+		if (checkpointInterval < 1) {
+			throw new IllegalArgumentException("Checkpoint interval must be positive: " + checkpointInterval);
+		}
+		long start = System.nanoTime();
+		Files.createDirectories(directory.toPath());
+
+		// Load the checkpoint, which names the first segment to replay
+		long[] counts = new long[3];
+		long first = 0;
+		int checkpointWords = 0;
+		File checkpoint = new File(directory, CHECKPOINT);
+		if (checkpoint.exists()) {
+			CheckedInputStream checked = new CheckedInputStream(
+					new BufferedInputStream(new FileInputStream(checkpoint)), new CRC32C());
+			DataInputStream in = new DataInputStream(checked);
+			try {
+				if (in.readInt() != MAGIC) {
+					throw new IOException("Not an importance checkpoint: " + checkpoint);
+				}
+				first = in.readLong();
+				checkpointWords = in.readInt();
+				for (int i = 0; i < checkpointWords; i++) {
+					String word = in.readUTF();
+					int importance = in.readInt();
+					int id = trie.wordId(word);
+					if (id >= 0) {
+						trie.setImportance(id, importance);
+					} else {
+						counts[2]++;
+					}
+				}
+				int crc = (int) checked.getChecksum().getValue();
+				if (in.readInt() != crc) {
+					throw new IOException("Corrupt importance checkpoint: " + checkpoint);
+				}
+			} catch (EOFException e) {
+				throw new IOException("Truncated importance checkpoint: " + checkpoint, e);
+			} finally {
+				in.close();
+			}
+		}
+
+		// Replay the segments written since, older ones were left by a crash
+		List<Long> segments = segments(directory);
+		long truncated = 0;
+		long last = first;
+		for (int i = 0; i < segments.size(); i++) {
+			long number = segments.get(i);
+			File file = segmentFile(directory, number);
+			if (number < first) {
+				Files.delete(file.toPath());
+				continue;
+			}
+			long end = replay(file, trie, counts);
+			if (end < file.length()) {
+				if (i < segments.size() - 1) {
+					throw new IOException("Corrupt importance log segment: " + file);
+				}
+				truncated = file.length() - end;
+			}
+			last = number;
+		}
+
+		FileChannel channel = FileChannel.open(segmentFile(directory, last).toPath(), StandardOpenOption.CREATE,
+				StandardOpenOption.WRITE);
+		channel.truncate(channel.size() - truncated);
+		channel.position(channel.size());
+		ImportanceLog log = new ImportanceLog(directory, groupSize, checkpointInterval, last, channel);
+		log.recovery = new Recovery(checkpointWords, counts[0], counts[1], counts[2], truncated,
+				System.nanoTime() - start);
+		return log;
+	}
+
+	/**
+	 * Replays the intact groups of a segment.
+	 *
+	 * @param file   the segment.
+	 * @param trie   the trie whose importance is restored.
+	 * @param counts the replayed groups, records and unknown words, updated.
+	 * @return the end of the last intact group.
+	 * @throws IOException if the segment cannot be read.
+	 */
+	private static long replay(File file, RobinHoodTrie trie, long[] counts) throws IOException {
+		byte[] log = Files.readAllBytes(file.toPath());
+		ByteBuffer buffer = ByteBuffer.wrap(log);
+		CRC32C crc = new CRC32C();
+		while (buffer.remaining() >= HEADER) {
+			int start = buffer.position();
+			int length = buffer.getInt();
+			int checksum = buffer.getInt();
+			if (length < 0 || length > buffer.remaining()) {
+				return start;
+			}
+			crc.reset();
+			crc.update(log, start + HEADER, length);
+			if ((int) crc.getValue() != checksum) {
+				return start;
+			}
+
+			DataInputStream in = new DataInputStream(new ByteArrayInputStream(log, start + HEADER, length));
+			while (in.available() > 0) {
+				String word = in.readUTF();
+				int delta = in.readInt();
+				int id = trie.wordId(word);
+				if (id < 0) {
+					counts[2]++;
+				} else {
+					trie.setImportance(id, delta == RESET ? 0 : trie.importance(id) + delta);
+				}
+				counts[1]++;
+			}
+			counts[0]++;
+			buffer.position(start + HEADER + length);
+		}
+		return buffer.position();
+	}
+
+	/**
+	 * Adds an importance delta of a word to the current group, committing the
+	 * group once it holds {@link #groupSize} words.
+	 *
+	 * @param word  the word.
+	 * @param delta the change of its importance.
+	 * @param trie  the trie, read if a checkpoint becomes due.
+	 * @throws UncheckedIOException if the log cannot be written.
+	 */
+	synchronized void append(String word, int delta, RobinHoodTrie trie) {
+		int[] entry = pending.get(word);
+		if (entry == null) {
+			entry = new int[2];
+			pending.put(word, entry);
+		}
+		entry[1] += delta;
+		if (pending.size() >= groupSize) {
+			commit(trie);
+		}
+	}
+
+	/**
+	 * Records that the importance of a word was reset, because the word was
+	 * deleted. Deltas of the word earlier in the group are dropped.
+	 *
+	 * @param word the word.
+	 * @param trie the trie, read if a checkpoint becomes due.
+	 * @throws UncheckedIOException if the log cannot be written.
+	 */
+	synchronized void reset(String word, RobinHoodTrie trie) {
+		pending.put(word, new int[] { 1, 0 });
+		if (pending.size() >= groupSize) {
+			commit(trie);
+		}
+	}
+
+	/**
+	 * Writes the current group to the log and syncs it, then writes a checkpoint
+	 * if one is due.
+	 *
+	 * @param trie the trie, read if a checkpoint becomes due.
+	 * @throws UncheckedIOException if the log cannot be written.
+	 */
+	synchronized void commit(RobinHoodTrie trie) {
+		write();
+		if (sinceCheckpoint >= checkpointInterval) {
+			checkpoint(trie);
+		}
+	}
+
+	/**
+	 * Writes the current group to the log and syncs it.
+	 *
+	 * @throws UncheckedIOException if the log cannot be written.
+	 */
+	private void write() {
+		if (pending.isEmpty()) {
+			return;
+		}
+		try {
+			ByteArrayOutputStream group = new ByteArrayOutputStream(HEADER + 16 * pending.size());
+			DataOutputStream out = new DataOutputStream(group);
+			out.writeLong(0);
+			int count = 0;
+			for (Map.Entry<String, int[]> entry : pending.entrySet()) {
+				int[] change = entry.getValue();
+				if (change[0] != 0) {
+					out.writeUTF(entry.getKey());
+					out.writeInt(RESET);
+					count++;
+				}
+				if (change[1] != 0) {
+					out.writeUTF(entry.getKey());
+					out.writeInt(change[1]);
+					count++;
+				}
+			}
+			pending.clear();
+
+			// Fill in the header and write the group at once
+			ByteBuffer buffer = ByteBuffer.wrap(group.toByteArray());
+			CRC32C crc = new CRC32C();
+			crc.update(buffer.array(), HEADER, buffer.limit() - HEADER);
+			buffer.putInt(0, buffer.limit() - HEADER);
+			buffer.putInt(4, (int) crc.getValue());
+			while (buffer.hasRemaining()) {
+				channel.write(buffer);
+			}
+			channel.force(false);
+			groups++;
+			records += count;
+			bytes += buffer.limit();
+			sinceCheckpoint += count;
+		} catch (IOException e) {
+			throw new UncheckedIOException(e);
+		}
+	}
+
+	/**
+	 * Commits the current group, writes a checkpoint of the importance of every
+	 * word of a trie, and starts a new segment. The segments before it are
+	 * deleted once the checkpoint is in place.
+	 *
+	 * @param trie the trie whose importance is saved.
+	 * @throws UncheckedIOException if the checkpoint cannot be written.
+	 */
+	synchronized void checkpoint(RobinHoodTrie trie) {
+		write();
+		sinceCheckpoint = 0;
+		try {
+			// Write the snapshot beside the current checkpoint and swap it in
+			File temporary = new File(directory, CHECKPOINT + ".tmp");
+			FileOutputStream file = new FileOutputStream(temporary);
+			CheckedOutputStream checked = new CheckedOutputStream(new BufferedOutputStream(file), new CRC32C());
+			DataOutputStream out = new DataOutputStream(checked);
+			int count = 0;
+			for (int id = 0; id < trie.getWordIdLimit(); id++) {
+				if (trie.wordAt(id) != null && trie.importance(id) != 0) {
+					count++;
+				}
+			}
+			out.writeInt(MAGIC);
+			out.writeLong(segment + 1);
+			out.writeInt(count);
+			for (int id = 0; id < trie.getWordIdLimit(); id++) {
+				String word = trie.wordAt(id);
+				if (word != null && trie.importance(id) != 0) {
+					out.writeUTF(word);
+					out.writeInt(trie.importance(id));
+				}
+			}
+			out.writeInt((int) checked.getChecksum().getValue());
+			out.flush();
+			file.getFD().sync();
+			out.close();
+			Files.move(temporary.toPath(), new File(directory, CHECKPOINT).toPath(),
+					StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+
+			// Continue in a new segment, the old ones are covered by the checkpoint
+			channel.close();
+			segment++;
+			channel = FileChannel.open(segmentFile(directory, segment).toPath(), StandardOpenOption.CREATE,
+					StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING);
+			for (long number : segments(directory)) {
+				if (number < segment) {
+					Files.delete(segmentFile(directory, number).toPath());
+				}
+			}
+			checkpoints++;
+		} catch (IOException e) {
+			throw new UncheckedIOException(e);
+		}
+	}
+
+	/**
+	 * Returns what recovery found when the log was opened.
+	 *
+	 * @return the recovery.
+	 */
+	public Recovery getRecovery() {
+		return recovery;
+	}
+
+	/**
+	 * Returns the number of committed groups, each written with one sync.
+	 *
+	 * @return the number of groups.
+	 */
+	public synchronized long getGroupCount() {
+		return groups;
+	}
+
+	/**
+	 * Returns the number of committed records, one per word and group.
+	 *
+	 * @return the number of records.
+	 */
+	public synchronized long getRecordCount() {
+		return records;
+	}
+
+	/**
+	 * Returns the number of bytes written to log segments.
+	 *
+	 * @return the number of bytes.
+	 */
+	public synchronized long getLogBytes() {
+		return bytes;
+	}
+
+	/**
+	 * Returns the number of checkpoints written.
+	 *
+	 * @return the number of checkpoints.
+	 */
+	public synchronized long getCheckpointCount() {
+		return checkpoints;
+	}
+
+	/**
+	 * Closes the segment without committing the current group.
+	 *
+	 * @throws IOException if the segment cannot be closed.
+	 */
+	@Override
+	public synchronized void close() throws IOException {
+		pending.clear();
+		channel.close();
+	}
+
+	/**
+	 * Lists the numbers of the segments in a directory in increasing order.
+	 *
+	 * @param directory the directory of the log.
+	 * @return the segment numbers.
+	 */
+	private static List<Long> segments(File directory) {
+		List<Long> numbers = new ArrayList<>();
+		String[] names = directory.list();
+		if (names != null) {
+			for (String name : names) {
+				if (name.startsWith(SEGMENT) && name.endsWith(SUFFIX)) {
+					try {
+						numbers.add(Long.parseLong(name.substring(SEGMENT.length(), name.length() - SUFFIX.length())));
+					} catch (NumberFormatException e) {
+						// Not a segment of this log
+					}
+				}
+			}
+		}
+		Collections.sort(numbers);
+		return numbers;
+	}
+
+	/**
+	 * Returns the file of a segment.
+	 *
+	 * @param directory the directory of the log.
+	 * @param number    the number of the segment.
+	 * @return the file.
+	 */
+	private static File segmentFile(File directory, long number) {
+		return new File(directory, SEGMENT + String.format("%010d", number) + SUFFIX);
+	}
+}
@@ -0,0 +1,120 @@
+package HW;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.util.List;
+
+import HW.WorkloadGenerator.Lengths;
+
+/**
+ * Compares recovering importance from an {@link ImportanceLog} with replaying
+ * the whole text through {@link RobinHoodTrie#insertText(String)}. A generated
+ * dictionary and Zipfian corpus are written to temporary files. For every
+ * checkpoint interval the corpus is ingested with logging, the process is
+ * treated as crashed after the last committed group, and a new trie reads the
+ * dictionary and recovers from the log.
+ *
+ * <p>
+ * Every row reports the ingestion time without and with the log, the groups
+ * and bytes written, the checkpoints taken, the recovery time and replayed
+ * records, and whether the recovered importance equals that of the replayed
+ * text.
+ *
+ * <p>
+ * Usage:
+ * {@code java -cp bin HW.ImportanceLogBenchmark [words] [tokens] [checkpoint-intervals] [group-size] [seed]}
+ */
+public class ImportanceLogBenchmark {
+
+	public static void main(String[] args) throws IOException {
+		int count = args.length > 0 ? Integer.parseInt(args[0]) : 100000;
+		long tokens = args.length > 1 ? Long.parseLong(args[1]) : 5000000;
+		String[] intervals = (args.length > 2 ? args[2] : "100000,1000000,100000000").split(",");
+		int group = args.length > 3 ? Integer.parseInt(args[3]) : ImportanceLog.DEFAULT_GROUP;
+		long seed = args.length > 4 ? Long.parseLong(args[4]) : 42;
+
+		Lengths lengths = Lengths.parse("3-12");
+		File dictionary = File.createTempFile("log-dictionary", ".txt");
+		File text = File.createTempFile("log-text", ".txt");
+		dictionary.deleteOnExit();
+		text.deleteOnExit();
+		WorkloadGenerator.writeDictionary(dictionary.getPath(), seed, count, lengths);
+		WorkloadGenerator.writeCorpus(text.getPath(), seed, count, lengths, tokens,
+				WorkloadGenerator.DEFAULT_EXPONENT);
+
+		// Rebuilding importance without a log means reading the text again
+		RobinHoodTrie replayed = new RobinHoodTrie();
+		long start = System.nanoTime();
+		replayed.readDictionary(dictionary.getPath());
+		long dictionaryTime = System.nanoTime() - start;
+		start = System.nanoTime();
+		replayed.insertText(text.getPath());
+		long textTime = System.nanoTime() - start;
+
+		System.out.println("checkpoint_interval,dictionary_ms,text_ms,logged_text_ms,groups,log_bytes,checkpoints,"
+				+ "recovery_ms,replayed_records,same");
+		for (String interval : intervals) {
+			File directory = Files.createTempDirectory("importance-log").toFile();
+
+			RobinHoodTrie logged = new RobinHoodTrie();
+			logged.readDictionary(dictionary.getPath());
+			logged.enableImportanceLog(directory.getPath(), group, Long.parseLong(interval));
+			start = System.nanoTime();
+			logged.insertText(text.getPath());
+			long loggedTime = System.nanoTime() - start;
+			ImportanceLog log = logged.getImportanceLog();
+
+			// Crash: everything committed so far is on disk, nothing else is
+			log.close();
+
+			RobinHoodTrie recovered = new RobinHoodTrie();
+			recovered.readDictionary(dictionary.getPath());
+			ImportanceLog.Recovery recovery = recovered.enableImportanceLog(directory.getPath());
+			recovered.disableImportanceLog();
+
+			System.out.printf("%s,%d,%d,%d,%d,%d,%d,%.1f,%d,%s%n", interval, dictionaryTime / 1000000,
+					textTime / 1000000, loggedTime / 1000000, log.getGroupCount(), log.getLogBytes(),
+					log.getCheckpointCount(), recovery.nanos / 1e6, recovery.records,
+					same(replayed, recovered) ? "same" : "differ");
+			delete(directory);
+		}
+	}
+
+	/**
+	 * Tests whether two tries store the same words with the same importance.
+	 *
+	 * @param a the first trie.
+	 * @param b the second trie.
+	 * @return {@code true} if the importance of every word agrees.
+	 */
+	private static boolean same(RobinHoodTrie a, RobinHoodTrie b) {
+		List<WordNode> words = a.collectWords();
+		if (words.size() != b.getWordCount()) {
+			return false;
+		}
+		for (WordNode node : words) {
+			int id = b.wordId(node.word);
+			if (id < 0 || b.importance(id) != node.importance) {
+				return false;
+			}
+		}
+		return true;
+	}
+
+	/**
+	 * Deletes a log directory and its files.
+	 *
+	 * @param directory the directory.
+	 * @throws IOException if a file cannot be deleted.
+	 */
+	private static void delete(File directory) throws IOException {
+		File[] files = directory.listFiles();
+		if (files != null) {
+			for (File file : files) {
+				Files.delete(file.toPath());
+			}
+		}
+		Files.delete(directory.toPath());
+	}
+}
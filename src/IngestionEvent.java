@@ -0,0 +1,43 @@
+package HW;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+
+/**
+ * Flight Recorder event emitted for each batch of words read by
+ * {@link RobinHoodTrie#readDictionary(String)} or
+ * {@link RobinHoodTrie#insertText(String)}. The event duration covers the
+ * batch.
+ */
+@Name("HW.Ingestion")
+@Label("Ingestion Batch")
+@Category({ "Robin Hood Trie", "Ingestion" })
+@Description("A batch of words was read from a dictionary or text file")
+class IngestionEvent extends Event {
+
+	@Label("File")
+	String file;
+
+	@Label("Phase")
+	@Description("Either dictionary or text")
+	String phase;
+
+	@Label("Batch")
+	@Description("Index of the batch within the file, starting at 0")
+	int batch;
+
+	@Label("Words Read")
+	@Description("Number of tokens read in this batch")
+	int wordsRead;
+
+	@Label("Words Accepted")
+	@Description("Number of tokens of this batch that passed the word filter")
+	int wordsAccepted;
+
+	@Label("Total Words")
+	@Description("Number of tokens read from the file so far")
+	long totalWords;
+}
@@ -0,0 +1,73 @@
+package HW;
+
+import java.util.Random;
+
+import HW.RobinHoodConfig.HashFunction;
+
+/**
+ * Compares lookups with and without key lanes on high-fanout tables. The
+ * dictionary holds every two-letter word and random three-letter words, so
+ * the root and depth-1 tables hold all 26 letters at capacity 29. Lookups of
+ * single letters in the root table measure the probe itself, and searches of
+ * random two- and three-letter words mix hits and misses down to depth 2.
+ *
+ * <p>
+ * Usage: {@code java -cp bin HW.KeyLaneBenchmark [three-letter-words] [lookups] [seed]}
+ */
+public class KeyLaneBenchmark {
+
+	/** The lane capacities compared: no lanes, high-fanout tables and every table. */
+	private static final int[] LANE_CAPACITIES = { 0, 19, 1 };
+
+	public static void main(String[] args) {
+		int count = args.length > 0 ? Integer.parseInt(args[0]) : 5000;
+		int lookups = args.length > 1 ? Integer.parseInt(args[1]) : 5000000;
+		long seed = args.length > 2 ? Long.parseLong(args[2]) : 42;
+
+		Random rnd = new Random(seed);
+		String[] words = WorkloadGenerator.randomDictionary(seed, count, 3, 3);
+		String[] queries = new String[lookups];
+		char[] letters = new char[lookups];
+		for (int i = 0; i < lookups; i++) {
+			queries[i] = WorkloadGenerator.randomWord(rnd, 2, 3);
+			letters[i] = (char) ('a' + rnd.nextInt(26));
+		}
+
+		System.out.println("hash,lane_capacity,root_max_probe,memory,root_lookup_ns,search_ns,hits");
+		for (int round = 0; round < 3; round++) {
+			for (HashFunction hash : new HashFunction[] { HashFunction.IDENTITY, HashFunction.MULTIPLICATIVE }) {
+				for (int lanes : LANE_CAPACITIES) {
+					RobinHoodTrie trie = new RobinHoodTrie(
+							new RobinHoodConfig(hash, 90, 25, new int[] { 5, 11, 19, 29 }, 0, lanes));
+					for (char a = 'a'; a <= 'z'; a++) {
+						for (char b = 'a'; b <= 'z'; b++) {
+							trie.insert("" + a + b);
+						}
+					}
+					for (String word : words) {
+						trie.insert(word);
+					}
+
+					int hits = 0;
+					long start = System.nanoTime();
+					for (char letter : letters) {
+						hits += trie.root.lookup(letter) != null ? 1 : 0;
+					}
+					long root = System.nanoTime() - start;
+
+					hits = 0;
+					start = System.nanoTime();
+					for (String query : queries) {
+						hits += trie.search(query) ? 1 : 0;
+					}
+					long search = System.nanoTime() - start;
+
+					if (round > 0) {
+						System.out.printf("%s,%d,%d,%d,%.1f,%.1f,%d%n", hash, lanes, trie.root.maxProbeLenght,
+								trie.findMemorySize(), (double) root / lookups, (double) search / lookups, hits);
+					}
+				}
+			}
+		}
+	}
+}
@@ -0,0 +1,115 @@
+package HW;
+
+import java.util.Locale;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * A registry of named histograms and counters. Components look up their
+ * metrics once and record into them directly; readers pull a consistent copy
+ * with {@link #snapshot()} and export it as JSON or CSV.
+ */
+public class Metrics {
+
+	/** The registered histograms by name. */
+	private final Map<String, Histogram> histograms = new TreeMap<>();
+
+	/** The registered counters by name. */
+	private final Map<String, LongAdder> counters = new TreeMap<>();
+
+	/**
+	 * Returns the histogram with the given name, registering it if necessary.
+	 *
+	 * @param name the name of the histogram.
+	 * @return the histogram.
+	 */
+	public synchronized Histogram histogram(String name) {
+		return histograms.computeIfAbsent(name, n -> new Histogram());
+	}
+
+	/**
+	 * Returns the counter with the given name, registering it if necessary.
+	 *
+	 * @param name the name of the counter.
+	 * @return the counter.
+	 */
+	public synchronized LongAdder counter(String name) {
+		return counters.computeIfAbsent(name, n -> new LongAdder());
+	}
+
+	/**
+	 * Copies the current values of all metrics. The copy is not affected by later
+	 * recordings.
+	 *
+	 * @return the snapshot.
+	 */
+	public synchronized Metrics snapshot() {
+		Metrics snapshot = new Metrics();
+		for (Map.Entry<String, Histogram> entry : histograms.entrySet()) {
+			snapshot.histograms.put(entry.getKey(), entry.getValue().copy());
+		}
+		for (Map.Entry<String, LongAdder> entry : counters.entrySet()) {
+			snapshot.counter(entry.getKey()).add(entry.getValue().sum());
+		}
+		return snapshot;
+	}
+
+	/** Resets all registered metrics to zero. */
+	public synchronized void reset() {
+		for (Histogram histogram : histograms.values()) {
+			histogram.reset();
+		}
+		for (LongAdder counter : counters.values()) {
+			counter.reset();
+		}
+	}
+
+	/**
+	 * Exports the metrics as a JSON document. Histograms are summarised by their
+	 * count, mean, maximum and main percentiles.
+	 *
+	 * @return the JSON document.
+	 */
+	public synchronized String toJson() {
+		StringBuilder json = new StringBuilder("{\"counters\":{");
+		boolean first = true;
+		for (Map.Entry<String, LongAdder> entry : counters.entrySet()) {
+			json.append(first ? "" : ",").append('"').append(entry.getKey()).append("\":").append(entry.getValue().sum());
+			first = false;
+		}
+		json.append("},\"histograms\":{");
+		first = true;
+		for (Map.Entry<String, Histogram> entry : histograms.entrySet()) {
+			Histogram h = entry.getValue();
+			json.append(first ? "" : ",").append('"').append(entry.getKey()).append("\":{\"count\":").append(h.getCount())
+					.append(",\"mean\":").append(String.format(Locale.ROOT, "%.1f", h.getMean())).append(",\"p50\":")
+					.append(h.getValueAtPercentile(50)).append(",\"p90\":").append(h.getValueAtPercentile(90))
+					.append(",\"p99\":").append(h.getValueAtPercentile(99)).append(",\"p999\":")
+					.append(h.getValueAtPercentile(99.9)).append(",\"max\":").append(h.getMax()).append('}');
+			first = false;
+		}
+		return json.append("}}").toString();
+	}
+
+	/**
+	 * Exports the metrics as CSV with one row per metric. Counters only fill the
+	 * count column.
+	 *
+	 * @return the CSV document including a header row.
+	 */
+	public synchronized String toCsv() {
+		StringBuilder csv = new StringBuilder("metric,count,mean,p50,p90,p99,p999,max\n");
+		for (Map.Entry<String, LongAdder> entry : counters.entrySet()) {
+			csv.append(entry.getKey()).append(',').append(entry.getValue().sum()).append(",,,,,,\n");
+		}
+		for (Map.Entry<String, Histogram> entry : histograms.entrySet()) {
+			Histogram h = entry.getValue();
+			csv.append(entry.getKey()).append(',').append(h.getCount()).append(',')
+					.append(String.format(Locale.ROOT, "%.1f", h.getMean())).append(',').append(h.getValueAtPercentile(50))
+					.append(',').append(h.getValueAtPercentile(90)).append(',').append(h.getValueAtPercentile(99))
+					.append(',').append(h.getValueAtPercentile(99.9)).append(',').append(h.getMax()).append('\n');
+		}
+		return csv.toString();
+	}
+}
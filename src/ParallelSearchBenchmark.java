@@ -0,0 +1,79 @@
+package HW;
+
+import java.util.Random;
+import java.util.concurrent.ForkJoinPool;
+
+/**
+ * Compares the latency of suggestion queries with sequential fuzzy scans and
+ * with parallel scans on fork/join pools of increasing size, to show how a
+ * single query scales with the number of cores.
+ *
+ * <p>
+ * Usage: {@code java -cp bin HW.ParallelSearchBenchmark [words] [queries] [seed]}
+ */
+public class ParallelSearchBenchmark {
+
+	public static void main(String[] args) {
+		int count = args.length > 0 ? Integer.parseInt(args[0]) : 200000;
+		int queries = args.length > 1 ? Integer.parseInt(args[1]) : 50;
+		long seed = args.length > 2 ? Long.parseLong(args[2]) : 42;
+
+		String[] words = WorkloadGenerator.randomDictionary(seed, count, 3, 12);
+		RobinHoodTrie trie = new RobinHoodTrie();
+		for (String word : words) {
+			trie.insert(word);
+		}
+		trie.finishResizes();
+		Random rnd = new Random(seed);
+		for (int i = 0; i < count; i++) {
+			trie.incImp(words[rnd.nextInt(count)]);
+		}
+		String[] queried = new String[queries];
+		for (int i = 0; i < queries; i++) {
+			queried[i] = words[rnd.nextInt(count)];
+		}
+
+		System.out.println("mode,threads,mean_ms,p50_ms,p99_ms,speedup");
+		double sequential = run(trie, queried, "sequential", 1, 0);
+		int cores = Runtime.getRuntime().availableProcessors();
+		for (int threads = 1; threads <= cores; threads *= 2) {
+			ForkJoinPool pool = new ForkJoinPool(threads);
+			trie.enableParallelSearch(pool, 0);
+			run(trie, queried, "parallel", threads, sequential);
+			pool.shutdown();
+		}
+		if (Integer.bitCount(cores) != 1) {
+			ForkJoinPool pool = new ForkJoinPool(cores);
+			trie.enableParallelSearch(pool, 0);
+			run(trie, queried, "parallel", cores, sequential);
+			pool.shutdown();
+		}
+	}
+
+	/**
+	 * Times the suggestion queries after one warm-up pass and prints a CSV row.
+	 *
+	 * @param trie       the trie to query.
+	 * @param queried    the words to suggest for.
+	 * @param mode       the name of the mode.
+	 * @param threads    the number of threads of the mode.
+	 * @param sequential the mean sequential latency in milliseconds, or 0 if this
+	 *                   is the sequential run.
+	 * @return the mean latency in milliseconds.
+	 */
+	private static double run(RobinHoodTrie trie, String[] queried, String mode, int threads, double sequential) {
+		for (String word : queried) {
+			trie.suggest(word, 10);
+		}
+		Histogram latency = new Histogram();
+		for (String word : queried) {
+			long start = System.nanoTime();
+			trie.suggest(word, 10);
+			latency.record(System.nanoTime() - start);
+		}
+		double mean = latency.getMean() / 1e6;
+		System.out.printf("%s,%d,%.2f,%.2f,%.2f,%.2f%n", mode, threads, mean, latency.getValueAtPercentile(50) / 1e6,
+				latency.getValueAtPercentile(99) / 1e6, sequential > 0 ? sequential / mean : 1.0);
+		return mean;
+	}
+}
@@ -0,0 +1,143 @@
+package HW;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * Compares glob pattern queries of a {@link RobinHoodTrie}, which walk only the
+ * branches that can still match, with a brute-force scan testing every stored
+ * word. Patterns of several shapes are derived from random stored words, and
+ * the tables visited per query are taken from the query metrics. The scan
+ * visits every table, so it only runs the first {@link #SCAN_QUERIES} patterns
+ * of each shape. Before measuring, it checks patterns with characters outside
+ * a-z against the brute-force scan.
+ *
+ * <p>
+ * Usage:
+ * {@code java -cp bin HW.PatternQueryBenchmark [words] [queries] [k] [seed]}
+ */
+public class PatternQueryBenchmark {
+
+	/** The shapes of the generated patterns. */
+	private static final String[] SHAPES = { "wildcard", "prefix*", "*suffix", "class" };
+
+	/** The number of patterns of each shape answered by the brute-force scan. */
+	private static final int SCAN_QUERIES = 10;
+
+	public static void main(String[] args) {
+		int count = args.length > 0 ? Integer.parseInt(args[0]) : 200000;
+		int queries = args.length > 1 ? Integer.parseInt(args[1]) : 1000;
+		int k = args.length > 2 ? Integer.parseInt(args[2]) : 10;
+		long seed = args.length > 3 ? Long.parseLong(args[3]) : 42;
+
+		checkNonLetters();
+
+		RobinHoodTrie trie = new RobinHoodTrie();
+		String[] words = WorkloadGenerator.randomDictionary(seed, count, 3, 10);
+		for (String word : words) {
+			trie.insert(word);
+		}
+		long tables = 0;
+		for (TrieStatistics.Level level : trie.getStatistics().getLevels()) {
+			tables += level.tables;
+		}
+		trie.enableMetrics();
+
+		System.out.println("shape,words,queries,walk_nodes_per_query,walk_us,scan_nodes_per_query,scan_us,matches");
+		for (String shape : SHAPES) {
+			Random rnd = new Random(seed + shape.hashCode());
+			GlobPattern[] patterns = new GlobPattern[queries];
+			for (int i = 0; i < queries; i++) {
+				patterns[i] = GlobPattern.compile(pattern(shape, words[rnd.nextInt(words.length)], rnd));
+			}
+
+			for (int round = 0; round < 2; round++) {
+				long visited = trie.getMetrics().counter("query.nodesVisited").sum();
+				int[] found = new int[queries];
+				long start = System.nanoTime();
+				for (int i = 0; i < queries; i++) {
+					Heap heap = new Heap(k);
+					trie.getPatternWords(heap, patterns[i], k);
+					found[i] = heap.getTopKWords().length;
+				}
+				long walk = System.nanoTime() - start;
+				visited = trie.getMetrics().counter("query.nodesVisited").sum() - visited;
+
+				int scanned = Math.min(queries, SCAN_QUERIES);
+				boolean same = true;
+				start = System.nanoTime();
+				for (int i = 0; i < scanned; i++) {
+					Heap heap = new Heap(k);
+					List<WordNode> all = trie.collectWords();
+					for (WordNode node : all) {
+						if (patterns[i].matches(node.word)) {
+							heap.insert(node.word, node.importance);
+						}
+					}
+					same &= heap.getTopKWords().length == found[i];
+				}
+				long scan = System.nanoTime() - start;
+
+				if (round > 0) {
+					System.out.printf("%s,%d,%d,%.1f,%.1f,%d,%.1f,%s%n", shape, trie.getWordCount(), queries,
+							(double) visited / queries, walk / 1000.0 / queries, tables, scan / 1000.0 / scanned,
+							same ? "same" : "differ");
+				}
+			}
+		}
+	}
+
+	/**
+	 * Checks that patterns with digits, punctuation and escaped characters match
+	 * the same words through the trie as by testing every word, so characters
+	 * outside a-z match nothing.
+	 *
+	 * @throws IllegalStateException if a query differs from the scan.
+	 */
+	private static void checkNonLetters() {
+		String[] words = { "bat", "ca", "cab", "cat", "cot" };
+		RobinHoodTrie trie = new RobinHoodTrie();
+		for (String word : words) {
+			trie.insert(word);
+		}
+		for (String pattern : new String[] { "1*", "[0-3]at", "ca-", "c\\.t", "[!a-z]*", "[0-c]at", "c\\at",
+				"[.-b]*", "?a?" }) {
+			List<String> expected = new ArrayList<>();
+			for (String word : words) {
+				if (GlobPattern.compile(pattern).matches(word)) {
+					expected.add(word);
+				}
+			}
+			String[] found = trie.match(pattern, words.length);
+			Arrays.sort(found);
+			if (!Arrays.equals(found, expected.toArray(new String[0]))) {
+				throw new IllegalStateException("Pattern " + pattern + " matched " + Arrays.toString(found));
+			}
+		}
+	}
+
+	/**
+	 * Derives a pattern of the given shape from a stored word.
+	 *
+	 * @param shape the shape of the pattern.
+	 * @param word  the word, at least three characters long.
+	 * @param rnd   the random source.
+	 * @return the pattern.
+	 */
+	private static String pattern(String shape, String word, Random rnd) {
+		switch (shape) {
+		case "wildcard":
+			int at = rnd.nextInt(word.length());
+			return word.substring(0, at) + "?" + word.substring(at + 1);
+		case "prefix*":
+			return word.substring(0, 2) + "*";
+		case "*suffix":
+			return "*" + word.substring(word.length() - 3);
+		default:
+			return "[" + word.charAt(0) + (char) ('a' + rnd.nextInt(26)) + "]" + word.substring(1, word.length() - 1)
+					+ "[a-m]";
+		}
+	}
+}
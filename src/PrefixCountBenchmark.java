@@ -0,0 +1,126 @@
+package HW;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * Compares counting and paging the completions of a prefix through the subtree
+ * counts of a {@link RobinHoodTrie} with enumerating the subtree of the prefix
+ * through {@link RobinHoodTrie#getPrefixWords(Heap, String, int)}. The
+ * prefixes are short stored words, whose subtrees hold many completions.
+ * Before measuring, it checks both queries on prefixes with characters outside
+ * a-z against a sorted list of the words.
+ *
+ * <p>
+ * Usage:
+ * {@code java -cp bin HW.PrefixCountBenchmark [words] [queries] [page-size] [seed]}
+ */
+public class PrefixCountBenchmark {
+
+	public static void main(String[] args) {
+		int count = args.length > 0 ? Integer.parseInt(args[0]) : 200000;
+		int queries = args.length > 1 ? Integer.parseInt(args[1]) : 2000;
+		int pageSize = args.length > 2 ? Integer.parseInt(args[2]) : 10;
+		long seed = args.length > 3 ? Long.parseLong(args[3]) : 42;
+
+		checkNonLetters();
+
+		RobinHoodTrie trie = new RobinHoodTrie();
+		for (String word : WorkloadGenerator.randomDictionary(seed, count, 2, 10)) {
+			trie.insert(word);
+		}
+		List<String> prefixes = new ArrayList<>();
+		for (WordNode node : trie.collectWords()) {
+			if (node.word.length() <= 3) {
+				prefixes.add(node.word);
+			}
+		}
+		Random rnd = new Random(seed + 1);
+		String[] trace = new String[queries];
+		for (int i = 0; i < queries; i++) {
+			trace[i] = prefixes.get(rnd.nextInt(prefixes.size()));
+		}
+
+		System.out.println("operation,words,queries,ns_per_query,checksum");
+		for (int round = 0; round < 3; round++) {
+			long checksum = 0;
+			long start = System.nanoTime();
+			for (String prefix : trace) {
+				checksum += trie.countPrefix(prefix);
+			}
+			report(round, "countPrefix", trie.getWordCount(), queries, start, checksum);
+
+			// Select the second page of completions of every prefix
+			checksum = 0;
+			start = System.nanoTime();
+			for (String prefix : trace) {
+				int first = trie.rank(prefix) + pageSize;
+				int end = Math.min(first + pageSize, trie.rank(prefix) + trie.countPrefix(prefix));
+				for (int i = first; i < end; i++) {
+					checksum += trie.select(i).length();
+				}
+			}
+			report(round, "rank+select page", trie.getWordCount(), queries, start, checksum);
+
+			checksum = 0;
+			start = System.nanoTime();
+			for (String prefix : trace) {
+				Heap heap = new Heap(pageSize);
+				trie.getPrefixWords(heap, prefix, pageSize);
+				checksum += heap.getTopKWords().length;
+			}
+			report(round, "getPrefixWords", trie.getWordCount(), queries, start, checksum);
+		}
+	}
+
+	/**
+	 * Checks that prefixes with characters outside a-z have no completions and
+	 * that their rank is the number of smaller words in {@link String} order,
+	 * next to a few prefixes of letters only.
+	 *
+	 * @throws IllegalStateException if a count or rank is wrong.
+	 */
+	private static void checkNonLetters() {
+		String[] words = { "a", "ab", "c", "ca", "cat", "cz", "d" };
+		RobinHoodTrie trie = new RobinHoodTrie();
+		for (String word : words) {
+			trie.insert(word);
+		}
+		for (String query : new String[] { "1a", "c-t", "ca1", "c{", "c\u00e9", "ca-", "-", "zz", "ca", "C" }) {
+			int smaller = 0;
+			int completions = 0;
+			for (String word : words) {
+				if (word.compareTo(query.toLowerCase()) < 0) {
+					smaller++;
+				}
+				if (word.startsWith(query.toLowerCase())) {
+					completions++;
+				}
+			}
+			if (trie.rank(query) != smaller) {
+				throw new IllegalStateException("Rank of " + query + " is " + trie.rank(query) + ", not " + smaller);
+			}
+			if (trie.countPrefix(query) != completions) {
+				throw new IllegalStateException("Prefix " + query + " counts " + trie.countPrefix(query) + " words");
+			}
+		}
+	}
+
+	/**
+	 * Prints one CSV row after the warm-up round.
+	 *
+	 * @param round     the round, rows of round 0 are skipped.
+	 * @param operation the name of the operation.
+	 * @param words     the number of words.
+	 * @param queries   the number of queries.
+	 * @param start     the start time in nanoseconds.
+	 * @param checksum  the checksum keeping the results alive.
+	 */
+	private static void report(int round, String operation, int words, int queries, long start, long checksum) {
+		if (round > 0) {
+			System.out.println(operation + "," + words + "," + queries + "," + (System.nanoTime() - start) / queries
+					+ "," + checksum);
+		}
+	}
+}
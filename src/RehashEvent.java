@@ -0,0 +1,37 @@
+package HW;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+
+/**
+ * Flight Recorder event emitted when a table of a {@link RobinHoodTrie} grows.
+ * The event duration covers the rebuild of the table, or only the allocation of
+ * the new table for incremental resizes.
+ */
+@Name("HW.Rehash")
+@Label("Table Rehash")
+@Category({ "Robin Hood Trie", "Structure" })
+@Description("A Robin Hood hash table of the trie grew to a larger capacity")
+class RehashEvent extends Event {
+
+	@Label("Depth")
+	@Description("Depth of the table in the trie, the root table has depth 0")
+	int depth;
+
+	@Label("Old Capacity")
+	int oldCapacity;
+
+	@Label("New Capacity")
+	int newCapacity;
+
+	@Label("Elements Moved")
+	@Description("Number of elements moved into the new table")
+	int elementsMoved;
+
+	@Label("Incremental")
+	@Description("Whether the elements are migrated by later insertions")
+	boolean incremental;
+}
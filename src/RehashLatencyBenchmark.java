@@ -0,0 +1,83 @@
+package HW;
+
+import java.util.Arrays;
+
+import HW.RobinHoodConfig.HashFunction;
+
+/**
+ * Measures the latency of single insertions into a {@link RobinHoodTrie} with
+ * tables that resize in one go and with tables that migrate incrementally, and
+ * reports the latency percentiles of both.
+ *
+ * <p>
+ * Usage: {@code java -cp bin HW.RehashLatencyBenchmark [words] [migration-step] [seed]}
+ */
+public class RehashLatencyBenchmark {
+
+	public static void main(String[] args) {
+		int count = args.length > 0 ? Integer.parseInt(args[0]) : 500000;
+		int step = args.length > 1 ? Integer.parseInt(args[1]) : 4;
+		long seed = args.length > 2 ? Long.parseLong(args[2]) : 42;
+
+		String[] words = WorkloadGenerator.randomDictionary(seed, count, 3, 12);
+		int[] schedule = { 5, 11, 19, 29 };
+		RobinHoodConfig stopTheWorld = new RobinHoodConfig(HashFunction.IDENTITY, 90, 25, schedule, 0);
+		RobinHoodConfig incremental = new RobinHoodConfig(HashFunction.IDENTITY, 90, 25, schedule, step);
+
+		// Warm up both modes before measuring
+		measure(stopTheWorld, words);
+		measure(incremental, words);
+
+		System.out.println("mode,p50_ns,p90_ns,p99_ns,p999_ns,max_ns,total_ms");
+		report("stop-the-world", measure(stopTheWorld, words));
+		report("incremental-" + step, measure(incremental, words));
+	}
+
+	/**
+	 * Inserts all words into a new trie and records the latency of each insertion.
+	 *
+	 * @param config the configuration of the trie.
+	 * @param words  the words to insert.
+	 * @return the latencies in nanoseconds, in insertion order.
+	 */
+	private static long[] measure(RobinHoodConfig config, String[] words) {
+		RobinHoodTrie trie = new RobinHoodTrie(config);
+		long[] latencies = new long[words.length];
+		for (int i = 0; i < words.length; i++) {
+			long start = System.nanoTime();
+			trie.insert(words[i]);
+			latencies[i] = System.nanoTime() - start;
+		}
+		return latencies;
+	}
+
+	/**
+	 * Prints the latency percentiles of one mode as a CSV row.
+	 *
+	 * @param mode      the name of the mode.
+	 * @param latencies the recorded latencies in nanoseconds.
+	 */
+	private static void report(String mode, long[] latencies) {
+		long total = 0;
+		for (long latency : latencies) {
+			total += latency;
+		}
+		long[] sorted = latencies.clone();
+		Arrays.sort(sorted);
+		System.out.println(mode + "," + percentile(sorted, 50) + "," + percentile(sorted, 90) + ","
+				+ percentile(sorted, 99) + "," + percentile(sorted, 99.9) + "," + sorted[sorted.length - 1] + ","
+				+ total / 1000000);
+	}
+
+	/**
+	 * Returns the value at the given percentile of sorted latencies.
+	 *
+	 * @param sorted  the latencies in ascending order.
+	 * @param percent the percentile.
+	 * @return the latency at the percentile.
+	 */
+	private static long percentile(long[] sorted, double percent) {
+		int index = (int) Math.ceil(percent / 100.0 * sorted.length) - 1;
+		return sorted[Math.max(0, Math.min(sorted.length - 1, index))];
+	}
+}
@@ -0,0 +1,247 @@
+package HW;
+
+/**
+ * Holds the tuning parameters of the Robin Hood hash tables of one
+ * {@link RobinHoodTrie}: the hash function mapping characters to slots, the load
+ * percentages at which tables grow and shrink, and the capacity schedule.
+ * Every table of a trie shares the same configuration.
+ */
+public class RobinHoodConfig {
+
+	/** The hash functions available for mapping a character to its home slot. */
+	public enum HashFunction {
+		/** The alphabet position of the character modulo the capacity. */
+		IDENTITY,
+		/**
+		 * A multiplicative (Fibonacci) hash of the character whose high bits are
+		 * scaled to the capacity.
+		 */
+		MULTIPLICATIVE,
+		/** The alphabet position of the character masked by a power-of-two capacity. */
+		MASK
+	}
+
+	/** The configuration used by tables that are created without one. */
+	static final RobinHoodConfig DEFAULT = new RobinHoodConfig();
+
+	/** The hash function used to find the home slot of a character. */
+	final HashFunction hash;
+
+	/** The load percentage at which a table grows. */
+	final int maxLoad;
+
+	/** The load percentage below which a table shrinks after a deletion. */
+	final int minLoad;
+
+	/**
+	 * The capacity schedule. The first capacity is used for new tables, after the
+	 * last one the capacity is doubled.
+	 */
+	final int[] capacities;
+
+	/**
+	 * The number of old slots migrated per insertion during an incremental resize,
+	 * or 0 to rebuild a table in one go.
+	 */
+	final int migrationStep;
+
+	/**
+	 * The capacity from which tables keep a key lane unless another is given, 0
+	 * since the short probe windows of letter keys gain little from lanes.
+	 */
+	public static final int DEFAULT_LANE_CAPACITY = 0;
+
+	/**
+	 * The capacity from which a table keeps its keys in a packed lane next to its
+	 * slots, or 0 to keep no lanes.
+	 */
+	final int laneCapacity;
+
+	/**
+	 * Default constructor using the identity hash, growing at 90% load, shrinking
+	 * below 25% load, the capacities 5, 11, 19 and 29, resizing in one go and
+	 * without key lanes.
+	 */
+	public RobinHoodConfig() {
+		this(HashFunction.IDENTITY, 90, 25, new int[] { 5, 11, 19, 29 }, 0);
+	}
+
+	/**
+	 * Constructor for a custom configuration.
+	 *
+	 * @param hash       the hash function.
+	 * @param maxLoad    the load percentage at which a table grows.
+	 * @param minLoad    the load percentage below which a table shrinks.
+	 * @param capacities the increasing capacity schedule, doubled after the last
+	 *                   entry.
+	 * @throws IllegalArgumentException if the parameters do not describe a usable
+	 *                                  configuration.
+	 */
+	public RobinHoodConfig(HashFunction hash, int maxLoad, int minLoad, int[] capacities) {
+		this(hash, maxLoad, minLoad, capacities, 0);
+	}
+
+	/**
+	 * Constructor for a custom configuration with incremental resizing.
+	 *
+	 * @param hash          the hash function.
+	 * @param maxLoad       the load percentage at which a table grows.
+	 * @param minLoad       the load percentage below which a table shrinks.
+	 * @param capacities    the increasing capacity schedule, doubled after the last
+	 *                      entry.
+	 * @param migrationStep the number of old slots migrated per insertion, or 0 to
+	 *                      rebuild a table in one go.
+	 * @throws IllegalArgumentException if the parameters do not describe a usable
+	 *                                  configuration.
+	 */
+	public RobinHoodConfig(HashFunction hash, int maxLoad, int minLoad, int[] capacities, int migrationStep) {
+		this(hash, maxLoad, minLoad, capacities, migrationStep, DEFAULT_LANE_CAPACITY);
+	}
+
+	/**
+	 * Constructor for a custom configuration with incremental resizing and key
+	 * lanes.
+	 *
+	 * @param hash          the hash function.
+	 * @param maxLoad       the load percentage at which a table grows.
+	 * @param minLoad       the load percentage below which a table shrinks.
+	 * @param capacities    the increasing capacity schedule, doubled after the last
+	 *                      entry.
+	 * @param migrationStep the number of old slots migrated per insertion, or 0 to
+	 *                      rebuild a table in one go.
+	 * @param laneCapacity  the capacity from which tables keep a packed key lane
+	 *                      for lookups, or 0 to keep no lanes.
+	 * @throws IllegalArgumentException if the parameters do not describe a usable
+	 *                                  configuration.
+	 */
+	public RobinHoodConfig(HashFunction hash, int maxLoad, int minLoad, int[] capacities, int migrationStep,
+			int laneCapacity) {
+		if (maxLoad <= 0 || maxLoad > 100) {
+			throw new IllegalArgumentException("Maximum load must be in (0, 100]: " + maxLoad);
+		}
+		if (minLoad < 0 || minLoad * 2 >= maxLoad) {
+			throw new IllegalArgumentException("Minimum load must be below half the maximum load: " + minLoad);
+		}
+		if (migrationStep < 0) {
+			throw new IllegalArgumentException("Migration step must not be negative: " + migrationStep);
+		}
+		if (laneCapacity < 0) {
+			throw new IllegalArgumentException("Lane capacity must not be negative: " + laneCapacity);
+		}
+		if (capacities.length == 0) {
+			throw new IllegalArgumentException("Capacity schedule is empty");
+		}
+		for (int i = 0; i < capacities.length; i++) {
+			if (capacities[i] < 1 || (i > 0 && capacities[i] <= capacities[i - 1])) {
+				throw new IllegalArgumentException("Capacity schedule must be positive and increasing");
+			}
+			if (hash == HashFunction.MASK && Integer.bitCount(capacities[i]) != 1) {
+				throw new IllegalArgumentException("Masking requires power-of-two capacities: " + capacities[i]);
+			}
+		}
+		this.hash = hash;
+		this.maxLoad = maxLoad;
+		this.minLoad = minLoad;
+		this.capacities = capacities.clone();
+		this.migrationStep = migrationStep;
+		this.laneCapacity = laneCapacity;
+	}
+
+	/**
+	 * Computes the slot of a character after the given number of probes. Every
+	 * hash function probes the slots after the home slot one by one, wrapping
+	 * around at the capacity, which key lanes rely on.
+	 *
+	 * @param key      the character.
+	 * @param probe    the probe length.
+	 * @param capacity the capacity of the table.
+	 * @return the index of the slot.
+	 */
+	int slot(char key, int probe, int capacity) {
+		switch (hash) {
+		case MULTIPLICATIVE:
+			// The high bits of the product are the well-mixed ones, so the home slot
+			// is the product read as a fraction of 2^32 times the capacity
+			int home = (int) (((key * 0x9E3779B9) & 0xFFFFFFFFL) * capacity >>> 32);
+			return (home + probe) % capacity;
+		case MASK:
+			return ((key - 'a') + probe) & (capacity - 1);
+		default:
+			return ((key - 'a') + probe) % capacity;
+		}
+	}
+
+	/**
+	 * Computes the number of elements at which a table of the given capacity
+	 * reaches the maximum load.
+	 *
+	 * @param capacity the capacity of the table.
+	 * @return the size that triggers growing the table.
+	 */
+	int threshold(int capacity) {
+		return (capacity * maxLoad + 99) / 100;
+	}
+
+	/**
+	 * Checks whether a table should shrink after a deletion.
+	 *
+	 * @param size     the number of elements in the table.
+	 * @param capacity the capacity of the table.
+	 * @return {@code true} if the load is below the minimum load.
+	 */
+	boolean shouldShrink(int size, int capacity) {
+		return capacity > capacities[0] && size * 100 < capacity * minLoad;
+	}
+
+	/**
+	 * Determines the next capacity of the schedule. If the current capacity is
+	 * smaller than one of the scheduled capacities the next one is selected,
+	 * otherwise the capacity is doubled.
+	 *
+	 * @param currentCapacity the current capacity of the hash table.
+	 * @return the next capacity for the hash table.
+	 */
+	int nextCapacity(int currentCapacity) {
+		for (int capacity : capacities) {
+			if (capacity > currentCapacity) {
+				return capacity;
+			}
+		}
+		return currentCapacity * 2;
+	}
+
+	/**
+	 * Determines the previous capacity of the schedule. Doubled capacities are
+	 * halved and smaller ones fall back to the largest scheduled capacity below
+	 * them.
+	 *
+	 * @param currentCapacity the current capacity of the hash table.
+	 * @return the smaller capacity for the hash table.
+	 */
+	int prevCapacity(int currentCapacity) {
+		int last = capacities[capacities.length - 1];
+		if (currentCapacity > last) {
+			return Math.max(last, currentCapacity / 2);
+		}
+
+		int prev = capacities[0];
+		for (int capacity : capacities) {
+			if (capacity >= currentCapacity) {
+				break;
+			}
+			prev = capacity;
+		}
+		return prev;
+	}
+
+	@Override
+	public String toString() {
+		StringBuilder schedule = new StringBuilder();
+		for (int i = 0; i < capacities.length; i++) {
+			schedule.append(i == 0 ? "" : "/").append(capacities[i]);
+		}
+		return hash + " load " + minLoad + "-" + maxLoad + "% capacities " + schedule
+				+ (migrationStep > 0 ? " migrating " + migrationStep + " slots" : "")
+				+ (laneCapacity > 0 ? " lanes from " + laneCapacity : "");
+	}
+}
@@ -1,5 +1,11 @@
 package HW;
 
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+
 /**
  * Implements a custom hash table using the Robin Hood hashing technique. This
  * structure supports insertion, searching, updating importance, rehashing, and
@@ -19,14 +25,54 @@ class RobinHoodHashing {
 	/** The maximum probe length encountered during insertion. */
 	int maxProbeLenght;
 
+	/** The hashing and growth policy shared by all tables of the trie. */
+	RobinHoodConfig config;
+
+	/** The number of elements at which the table grows. */
+	int threshold;
+
+	/** The number of times this table grew through {@link #rehash()}. */
+	int rehashes;
+
+	/** The old table of an incremental resize, or {@code null} if none is pending. */
+	Migration migration;
+
+	/**
+	 * The keys of the slots packed four to a long, 16 bits each with 0 for an
+	 * empty slot, or {@code null} if the table is too small to keep a lane.
+	 */
+	long[] keys;
+
+	/** A 1 in the lowest bit of every 16-bit lane of a long. */
+	private static final long LANE_LOW_BITS = 0x0001000100010001L;
+
+	/** A 1 in the highest bit of every 16-bit lane of a long. */
+	private static final long LANE_HIGH_BITS = 0x8000800080008000L;
+
+	/** Index of the number of visited tables in the counters of a query. */
+	static final int VISITED = 0;
+
+	/** Index of the number of similarity tests in the counters of a query. */
+	static final int TESTED = 1;
+
+	/** The shared slot array of objects that never store elements themselves. */
+	private static final Element[] NO_SLOTS = new Element[0];
+
 	/**
 	 * Default constructor initializing the hash table with a default capacity of 5.
 	 */
 	public RobinHoodHashing() {
-		table = new Element[5];
-		capacity = 5;
-		size = 0;
-		maxProbeLenght = 0;
+		this(RobinHoodConfig.DEFAULT);
+	}
+
+	/**
+	 * Constructor initializing the hash table with the first capacity of the
+	 * given configuration.
+	 *
+	 * @param config the hashing and growth policy of the trie.
+	 */
+	public RobinHoodHashing(RobinHoodConfig config) {
+		this(config, config.capacities[0]);
 	}
 
 	/**
@@ -35,10 +81,24 @@ class RobinHoodHashing {
 	 * @param num the initial capacity of the hash table.
 	 */
 	public RobinHoodHashing(int num) {
-		table = new Element[num];
+		this(RobinHoodConfig.DEFAULT, num);
+	}
+
+	/**
+	 * Constructor initializing the hash table with a specified capacity and
+	 * configuration.
+	 *
+	 * @param config the hashing and growth policy of the trie.
+	 * @param num    the initial capacity of the hash table.
+	 */
+	public RobinHoodHashing(RobinHoodConfig config, int num) {
+		this.config = config;
+		table = num == 0 ? NO_SLOTS : new Element[num];
+		keys = newLane(num);
 		capacity = num;
 		size = 0;
 		maxProbeLenght = 0;
+		threshold = config.threshold(num);
 	}
 
 	/**
@@ -46,66 +106,322 @@ class RobinHoodHashing {
 	 *
 	 * @param word the word to insert.
 	 * @param i    the index of the character being processed.
+	 * @param ids  the word ids of the trie, a new word is given an id.
+	 * @return {@code true} if the word was not already stored, {@code false}
+	 *         otherwise.
 	 */
-	public void insertWord(String word, int i) {
+	public boolean insertWord(String word, int i, WordIds ids) {
 		if (i == word.length()) {
-			return;
+			return false;
 		}
 
-		Element tmp = new Element();
-		tmp.key = word.charAt(i);
-		tmp.probeLength = 0;
+		int before = size;
+		Element target = insertKey(word.charAt(i), i);
+		boolean added = size != before;
 
-		boolean swap = false;
+		if (i + 1 < word.length()) {
+			// Continue in the subtree of the character, creating its table on demand
+			if (target.next == null) {
+				target.next = new RobinHoodHashing(config);
+			}
+			if (target.next.insertWord(word, i + 1, ids)) {
+				added = true;
+			}
+		} else {
+			if (target.wl != word.length()) {
+				target.wl = word.length();
+				target.id = ids.add(word);
+				added = true;
+			}
+		}
+		if (added) {
+			target.count++;
+		}
+		return added;
+	}
 
-		// Handle collisions and apply Robin Hood swapping if necessary
-		while (table[((tmp.key - 'a') + tmp.probeLength) % capacity] != null
-				&& table[((tmp.key - 'a') + tmp.probeLength) % capacity].key != tmp.key) {
+	/**
+	 * Returns the element holding the given character, inserting a new element
+	 * without a child table if the character is not stored yet. The table grows
+	 * once the new element brings it to its maximum load.
+	 *
+	 * @param key   the character.
+	 * @param depth the depth of the table in the trie, used for reporting.
+	 * @return the element holding the character.
+	 */
+	Element insertKey(char key, int depth) {
+		// Move part of a pending resize before touching the table
+		if (migration != null) {
+			migrate(config.migrationStep);
+		}
+
+		Element e = lookupForUpdate(key);
+		if (e == null) {
+			// Insert a new element for the character, displacing richer elements
+			e = new Element();
+			e.key = key;
+			place(e);
+			size++;
 
-			if (table[((tmp.key - 'a') + tmp.probeLength) % capacity].probeLength < tmp.probeLength) {
-				swap = true;
+			if (size >= threshold) {
+				rehash(depth);
+			}
+		}
+		return e;
+	}
 
-				Element s = tmp;
-				tmp = table[((s.key - 'a') + s.probeLength) % capacity];
-				table[((s.key - 'a') + s.probeLength) % capacity] = s;
+	/**
+	 * Places an element into the table using Robin Hood hashing. Elements that
+	 * are closer to their home slot than the placed one are displaced further
+	 * along the probe sequence. Of two elements equally far from their home
+	 * slot, the one with more recorded accesses keeps the earlier slot.
+	 *
+	 * @param e the element to place, its probe length is recalculated.
+	 */
+	private void place(Element e) {
+		e.probeLength = 0;
+		while (true) {
+			int index = slot(e.key, e.probeLength);
 
-				if (maxProbeLenght < s.probeLength) {
-					maxProbeLenght = s.probeLength;
+			if (table[index] == null) {
+				setSlot(index, e);
+				if (maxProbeLenght < e.probeLength) {
+					maxProbeLenght = e.probeLength;
 				}
+				return;
+			} else if (table[index].probeLength < e.probeLength
+					|| (table[index].probeLength == e.probeLength && table[index].hits < e.hits)) {
+				// Handle Robin Hood swapping
+				Element change = table[index];
+				setSlot(index, e);
+				if (maxProbeLenght < e.probeLength) {
+					maxProbeLenght = e.probeLength;
+				}
+				e = change;
+			}
+			e.probeLength++;
+		}
+	}
 
-				if (s.next == null) {
-					s.next = new RobinHoodHashing();
-					s.next.insertWord(word, i + 1);
-					if (i + 1 == word.length()) {
-						s.wl = word.length();
-					}
+	/**
+	 * Deletes a word from the hash table. Emptied elements are removed with Robin
+	 * Hood backward-shift deletion, child tables that no longer hold any word are
+	 * pruned and the table shrinks once its load drops below the minimum load of
+	 * the configuration.
+	 *
+	 * @param word the word to delete.
+	 * @param i    the index of the character being processed.
+	 * @param ids  the word ids of the trie, the id of the word is freed.
+	 * @return {@code true} if the word was found and deleted, {@code false}
+	 *         otherwise.
+	 */
+	public boolean deleteWord(String word, int i, WordIds ids) {
+		if (i >= word.length()) {
+			return false;
+		}
+
+		finishMigration();
+		int slot = findSlot(word.charAt(i));
+		if (slot < 0) {
+			return false;
+		}
+
+		Element e = table[slot];
+		if (i + 1 == word.length()) {
+			if (e.wl != word.length()) {
+				return false;
+			}
+			e.wl = 0;
+			ids.remove(e.id);
+		} else if (e.next == null || !e.next.deleteWord(word, i + 1, ids)) {
+			return false;
+		}
+		e.count--;
+
+		// Prune the child table once its subtree holds no words
+		if (e.next != null && e.next.size == 0) {
+			e.next = null;
+		}
+
+		if (e.wl == 0 && e.next == null) {
+			removeSlot(slot);
+
+			if (config.shouldShrink(size, capacity)) {
+				resize(config.prevCapacity(capacity));
+			}
+		}
+		return true;
+	}
+
+	/**
+	 * Finds the slot holding the given character. Tables with a key lane compare
+	 * probe windows of more than one slot four keys at a time, others follow the
+	 * probe sequence one element at a time.
+	 *
+	 * @param key the character to look for.
+	 * @return the index of the slot, or -1 if the character is not stored.
+	 */
+	private int findSlot(char key) {
+		if (keys != null && maxProbeLenght > 0 && key != 0) {
+			return findInLane(key);
+		}
+		for (int tries = 0; tries <= maxProbeLenght; tries++) {
+			int index = slot(key, tries);
+			if (table[index] != null && table[index].key == key) {
+				return index;
+			}
+		}
+		return -1;
+	}
+
+	/**
+	 * Finds the slot holding the given character in the key lane. The probe
+	 * window of at most {@code maxProbeLenght + 1} slots after the home slot is
+	 * split into at most two runs at the wrap-around, and every long of a run
+	 * tests four keys at once with the zero-lane test of {@code key ^ lane}.
+	 *
+	 * @param key the character to look for, not 0.
+	 * @return the index of the slot, or -1 if the character is not stored.
+	 */
+	private int findInLane(char key) {
+		int home = slot(key, 0);
+		int end = home + Math.min(maxProbeLenght + 1, capacity);
+		long pattern = key * LANE_LOW_BITS;
+
+		int index = findInLane(pattern, key, home, Math.min(end, capacity));
+		if (index < 0 && end > capacity) {
+			index = findInLane(pattern, key, 0, end - capacity);
+		}
+		return index;
+	}
+
+	/**
+	 * Finds a key in a run of slots of the key lane.
+	 *
+	 * @param pattern the key repeated in all four lanes of a long.
+	 * @param key     the key.
+	 * @param from    the first slot of the run.
+	 * @param to      the slot after the run.
+	 * @return the index of the slot, or -1 if the key is not in the run.
+	 */
+	private int findInLane(long pattern, char key, int from, int to) {
+		for (int w = from >>> 2; w <= (to - 1) >>> 2; w++) {
+			long x = keys[w] ^ pattern;
+			long zero = (x - LANE_LOW_BITS) & ~x & LANE_HIGH_BITS;
+
+			// A borrow may flag lanes above a match, so every flagged lane is checked
+			while (zero != 0) {
+				int lane = Long.numberOfTrailingZeros(zero) >>> 4;
+				int index = (w << 2) + lane;
+				if (index >= from && index < to && (char) (keys[w] >>> (lane << 4)) == key) {
+					return index;
 				}
+				zero &= zero - 1;
+			}
+		}
+		return -1;
+	}
 
-				tmp.probeLength++;
-			} else {
-				tmp.probeLength++;
+	/**
+	 * Stores an element in a slot, keeping the key lane in step.
+	 *
+	 * @param index the index of the slot.
+	 * @param e     the element, or {@code null} to empty the slot.
+	 */
+	private void setSlot(int index, Element e) {
+		table[index] = e;
+		if (keys != null) {
+			int shift = (index & 3) << 4;
+			long key = e == null ? 0 : e.key;
+			keys[index >>> 2] = (keys[index >>> 2] & ~(0xFFFFL << shift)) | (key << shift);
+		}
+	}
+
+	/**
+	 * Allocates an empty key lane for a table of the given capacity, if the
+	 * configuration keeps lanes at that capacity.
+	 *
+	 * @param capacity the capacity of the table.
+	 * @return the lane, or {@code null} if the table keeps none.
+	 */
+	private long[] newLane(int capacity) {
+		if (config.laneCapacity == 0 || capacity < config.laneCapacity) {
+			return null;
+		}
+		return new long[(capacity + 3) >>> 2];
+	}
+
+	/**
+	 * Finds the element holding the given character. While the table is being
+	 * resized both the new and the old table are checked.
+	 *
+	 * @param key the character to look for.
+	 * @return the element, or {@code null} if the character is not stored.
+	 */
+	Element lookup(char key) {
+		int index = findSlot(key);
+		if (index >= 0) {
+			return table[index];
+		}
+		if (migration != null) {
+			index = migration.findSlot(key);
+			if (index >= 0) {
+				return migration.table[index];
 			}
 		}
+		return null;
+	}
 
-		// Insert the element into the table
-		if (swap && table[((tmp.key - 'a') + tmp.probeLength) % capacity] == null) {
-			table[((tmp.key - 'a') + tmp.probeLength) % capacity] = tmp;
-			size++;
-		} else if (table[((tmp.key - 'a') + tmp.probeLength) % capacity] == null) {
-			table[((tmp.key - 'a') + tmp.probeLength) % capacity] = tmp;
-			size++;
-			table[((tmp.key - 'a') + tmp.probeLength) % capacity].next = new RobinHoodHashing();
-			table[((tmp.key - 'a') + tmp.probeLength) % capacity].next.insertWord(word, i + 1);
-		} else {
-			table[((tmp.key - 'a') + tmp.probeLength) % capacity].next.insertWord(word, i + 1);
+	/**
+	 * Finds the element holding the given character before it is modified. An
+	 * element still waiting in the old table of a resize is moved to the new
+	 * table first.
+	 *
+	 * @param key the character to look for.
+	 * @return the element, or {@code null} if the character is not stored.
+	 */
+	private Element lookupForUpdate(char key) {
+		int index = findSlot(key);
+		if (index >= 0) {
+			return table[index];
+		}
+		if (migration != null) {
+			index = migration.findSlot(key);
+			if (index >= 0) {
+				Element e = migration.table[index];
+				migration.table[index] = null;
+				place(e);
+				return e;
+			}
 		}
+		return null;
+	}
 
-		if (i + 1 == word.length()) {
-			table[((tmp.key - 'a') + tmp.probeLength) % capacity].wl = word.length();
+	/**
+	 * Removes the element at the given slot and shifts the following elements of
+	 * its cluster one position back, so no tombstones are left behind.
+	 *
+	 * @param slot the index of the element to remove.
+	 */
+	private void removeSlot(int slot) {
+		setSlot(slot, null);
+		size--;
+
+		int next = (slot + 1) % capacity;
+		while (table[next] != null && table[next].probeLength > 0) {
+			setSlot(slot, table[next]);
+			table[slot].probeLength--;
+			setSlot(next, null);
+			slot = next;
+			next = (next + 1) % capacity;
 		}
 
-		if ((((double) size / (double) capacity) * 100.0) >= 90.0) {
-			rehash();
+		// Recompute the maximum probe length so lookups stay as short as possible
+		maxProbeLenght = 0;
+		for (int index = 0; index < capacity; index++) {
+			if (table[index] != null && maxProbeLenght < table[index].probeLength) {
+				maxProbeLenght = table[index].probeLength;
+			}
 		}
 	}
 
@@ -117,107 +433,242 @@ class RobinHoodHashing {
 	 * @return {@code true} if the word is found, {@code false} otherwise.
 	 */
 	public boolean searchWord(String word, int i) {
-		if (i + 1 == word.length()) {
-			int tries = 0;
-			while (tries <= maxProbeLenght) {
-				if (table[((word.charAt(i) - 'a') + tries) % capacity] == null) {
-					tries++;
-				} else if (table[((word.charAt(i) - 'a') + tries) % capacity].key == word.charAt(i)
-						&& table[((word.charAt(i) - 'a') + tries) % capacity].wl == word.length()) {
-					return true;
-				} else {
-					tries++;
-				}
-			}
-		} else if (i >= word.length()) {
+		if (i >= word.length()) {
 			return false;
 		}
 
-		int tries = 0;
-		while (tries < capacity) {
-			if (table[((word.charAt(i) - 'a') + tries) % capacity] == null) {
-				return false;
-			} else if (table[((word.charAt(i) - 'a') + tries) % capacity].key == word.charAt(i)) {
-				return table[((word.charAt(i) - 'a') + tries) % capacity].next.searchWord(word, i + 1);
-			} else {
-				tries++;
-			}
+		Element e = lookup(word.charAt(i));
+		if (e == null) {
+			return false;
+		} else if (i + 1 == word.length()) {
+			return e.wl == word.length();
+		} else if (e.next == null) {
+			return false;
 		}
-		return false;
+		return e.next.searchWord(word, i + 1);
 	}
 
 	/**
-	 * Retrieves the importance score of a given word.
+	 * Records a lookup of a word by counting an access of every element on its
+	 * path, as far as the path is stored.
 	 *
-	 * @param word the word whose importance is to be retrieved.
+	 * @param word the word that was looked up.
 	 * @param i    the index of the character being processed.
-	 * @return the importance score of the word.
 	 */
-	public int importance(String word, int i) {
-		if (i + 1 == word.length()) {
-			int tries = 0;
-			while (tries <= maxProbeLenght) {
-				if (table[((word.charAt(i) - 'a') + tries) % capacity] == null) {
-					tries++;
-				} else if (table[((word.charAt(i) - 'a') + tries) % capacity].key == word.charAt(i)
-						&& table[((word.charAt(i) - 'a') + tries) % capacity].wl == word.length()) {
-					return table[((word.charAt(i) - 'a') + tries) % capacity].importance;
-				} else {
-					tries++;
-				}
-			}
-		} else if (i == word.length()) {
+	void recordAccess(String word, int i) {
+		if (i >= word.length()) {
+			return;
+		}
+
+		Element e = lookup(word.charAt(i));
+		if (e == null) {
+			return;
+		}
+		if (e.hits < Integer.MAX_VALUE) {
+			e.hits++;
+		}
+		if (e.next != null) {
+			e.next.recordAccess(word, i + 1);
+		}
+	}
+
+	/**
+	 * Retrieves the id of a given word.
+	 *
+	 * @param word the word whose id is to be retrieved.
+	 * @param i    the index of the character being processed.
+	 * @return the id of the word, or -1 if the word is not stored.
+	 */
+	public int wordId(String word, int i) {
+		if (i >= word.length()) {
+			return -1;
+		}
+
+		Element e = lookup(word.charAt(i));
+		if (e == null) {
+			return -1;
+		} else if (i + 1 == word.length()) {
+			return e.wl == word.length() ? e.id : -1;
+		} else if (e.next == null) {
+			return -1;
+		}
+		return e.next.wordId(word, i + 1);
+	}
+
+	/**
+	 * Checks whether a character can be the key of an element. Only the letters
+	 * a-z are stored, the slots of other characters cannot be computed.
+	 *
+	 * @param c the character.
+	 * @return {@code true} if the character is a letter a-z.
+	 */
+	static boolean isKey(char c) {
+		return c >= 'a' && c <= 'z';
+	}
+
+	/**
+	 * Counts the stored words starting with a prefix.
+	 *
+	 * @param prefix the prefix.
+	 * @param i      the index of the character being processed.
+	 * @return the number of words with the prefix.
+	 */
+	public int countPrefix(String prefix, int i) {
+		char key = prefix.charAt(i);
+		Element e = isKey(key) ? lookup(key) : null;
+		if (e == null) {
+			return 0;
+		} else if (i + 1 == prefix.length()) {
+			return e.count;
+		} else if (e.next == null) {
 			return 0;
 		}
+		return e.next.countPrefix(prefix, i + 1);
+	}
 
-		int tries = 0;
-		while (tries <= maxProbeLenght) {
-			if (table[((word.charAt(i) - 'a') + tries) % capacity] == null) {
-				return 0;
-			} else if (table[((word.charAt(i) - 'a') + tries) % capacity].key == word.charAt(i)) {
-				return table[((word.charAt(i) - 'a') + tries) % capacity].next.importance(word, i + 1);
-			} else {
-				tries++;
+	/**
+	 * Counts the stored words that sort before a word. At every character the
+	 * counts of the smaller keys of the table are added, as well as a stored word
+	 * ending at the character if the given word continues past it. A character
+	 * outside a-z ends the walk, as no stored word continues with it.
+	 *
+	 * @param word the word, which need not be stored.
+	 * @param i    the index of the character being processed.
+	 * @return the number of smaller words.
+	 */
+	public int rank(String word, int i) {
+		finishMigration();
+		char key = word.charAt(i);
+		int rank = 0;
+		for (int index = 0; index < capacity; index++) {
+			if (table[index] != null && table[index].key < key) {
+				rank += table[index].count;
 			}
 		}
-		return 0;
+
+		Element e = isKey(key) ? lookup(key) : null;
+		if (e == null || i + 1 == word.length()) {
+			return rank;
+		}
+		if (e.wl == i + 1) {
+			rank++;
+		}
+		if (e.next != null) {
+			rank += e.next.rank(word, i + 1);
+		}
+		return rank;
 	}
 
 	/**
-	 * Increments the importance score of a word.
+	 * Finds the stored word at a position in sorted order. The elements of every
+	 * table are visited in key order, skipping whole subtrees by their counts,
+	 * until the subtree holding the position is found.
 	 *
-	 * @param word the word whose importance is to be incremented.
-	 * @param i    the index of the character being processed.
+	 * @param index  the position among the words of this table and its subtrees.
+	 * @param buffer the characters leading to this table.
+	 * @return the word, or {@code null} if there are not enough words.
 	 */
-	public void incImportance(String word, int i) {
-		if (i + 1 == word.length()) {
-			int tries = 0;
-			while (tries <= maxProbeLenght) {
-				if (table[((word.charAt(i) - 'a') + tries) % capacity] == null) {
-					tries++;
-				} else if (table[((word.charAt(i) - 'a') + tries) % capacity].key == word.charAt(i)
-						&& table[((word.charAt(i) - 'a') + tries) % capacity].wl == word.length()) {
-					table[((word.charAt(i) - 'a') + tries) % capacity].importance++;
-					return;
-				} else {
-					tries++;
+	public String select(int index, String buffer) {
+		finishMigration();
+		for (Element e : sortedElements()) {
+			if (index >= e.count) {
+				index -= e.count;
+				continue;
+			}
+
+			// A word ending at the element sorts before the longer words below it
+			String word = buffer + e.key;
+			if (e.wl == word.length()) {
+				if (index == 0) {
+					return word;
 				}
+				index--;
 			}
-		} else if (i == word.length()) {
-			return;
+			return e.next == null ? null : e.next.select(index, word);
 		}
-		int tries = 0;
-		while (tries <= maxProbeLenght) {
-			if (table[((word.charAt(i) - 'a') + tries) % capacity] == null) {
-				return;
-			} else if (table[((word.charAt(i) - 'a') + tries) % capacity].key == word.charAt(i)) {
-				table[((word.charAt(i) - 'a') + tries) % capacity].next.incImportance(word, i + 1);
-				return;
-			} else {
-				tries++;
+		return null;
+	}
+
+	/**
+	 * Returns the elements of the table sorted by key.
+	 *
+	 * @return the elements.
+	 */
+	private Element[] sortedElements() {
+		Element[] sorted = new Element[size];
+		int count = 0;
+		for (int index = 0; index < capacity; index++) {
+			Element e = table[index];
+			if (e != null) {
+				// Insertion sort, tables hold at most one element per character
+				int j = count++;
+				while (j > 0 && sorted[j - 1].key > e.key) {
+					sorted[j] = sorted[j - 1];
+					j--;
+				}
+				sorted[j] = e;
 			}
 		}
-		return;
+		return sorted;
+	}
+
+	/**
+	 * Inserts the candidate ending at an element into a heap. A stored word is
+	 * inserted by its id, so its string is only built if it ends up among the
+	 * suggestions, any other candidate as a string of importance 0.
+	 *
+	 * @param minHeap the heap receiving the candidate.
+	 * @param buffer  the characters leading to the table of the element.
+	 * @param e       the element.
+	 * @param ids     the word ids of the trie.
+	 */
+	private static void insertCandidate(Heap minHeap, String buffer, Element e, WordIds ids) {
+		if (e.wl == buffer.length() + 1) {
+			minHeap.insert(ids, e.id, ids.importance(e.id));
+		} else {
+			minHeap.insert(buffer + e.key, 0);
+		}
+	}
+
+	/**
+	 * Looks up a sorted range of words that share their first {@code i}
+	 * characters. Each distinct character at position {@code i} is probed once and
+	 * the words continuing with it are resolved together in the next table.
+	 *
+	 * @param words the sorted words.
+	 * @param from  the first index of the range.
+	 * @param to    the index after the last word of the range.
+	 * @param i     the index of the character being processed.
+	 * @param found receives the id of each stored word, the entries of other
+	 *              words are left unchanged.
+	 */
+	void lookupBatch(String[] words, int from, int to, int i, int[] found) {
+		int start = from;
+		while (start < to) {
+			// Find the run of words continuing with the same character
+			char key = words[start].charAt(i);
+			int end = start + 1;
+			while (end < to && words[end].charAt(i) == key) {
+				end++;
+			}
+
+			Element e = lookup(key);
+			if (e != null) {
+				// Words ending here sort before the longer ones of the run
+				int longer = start;
+				while (longer < end && words[longer].length() == i + 1) {
+					if (e.wl == i + 1) {
+						found[longer] = e.id;
+					}
+					longer++;
+				}
+
+				if (longer < end && e.next != null) {
+					e.next.lookupBatch(words, longer, end, i + 1, found);
+				}
+			}
+			start = end;
+		}
 	}
 
 	/**
@@ -225,27 +676,34 @@ class RobinHoodHashing {
 	 * The matching words are added to the provided min-heap, ordered by their
 	 * importance.
 	 *
-	 * @param minHeap the heap used to store matching words along with their
-	 *                importance scores.
-	 * @param word    the prefix to match words against.
-	 * @param k       the maximum number of words to retrieve.
+	 * @param minHeap  the heap used to store matching words along with their
+	 *                 importance scores.
+	 * @param word     the prefix to match words against.
+	 * @param k        the maximum number of words to retrieve.
+	 * @param counters the counters of the query, or {@code null} if they are not
+	 *                 collected.
+	 * @param ids      the word ids of the trie.
 	 */
-	public void getPrefixWords(Heap minHeap, String word, int k) {
+	public void getPrefixWords(Heap minHeap, String word, int k, long[] counters, WordIds ids) {
+		finishMigration();
+		if (counters != null) {
+			counters[VISITED]++;
+		}
 		for (int index = 0; index < capacity; index++) {
 			// Check if the current table index contains a matching word
 			if (table[index] != null && table[index].wl == word.length() + 1
 					&& (searchWord(word + table[index].key, word.length()))) {
 				// Insert the matching word into the heap
-				minHeap.insert(word + table[index].key, importance(word + table[index].key, word.length()));
+				insertCandidate(minHeap, word, table[index], ids);
 
 				// Recursively search for more matching words in the next hash table level
 				if (table[index].next != null) {
-					table[index].next.getPrefixWords(minHeap, (word + table[index].key), k);
+					table[index].next.getPrefixWords(minHeap, (word + table[index].key), k, counters, ids);
 				}
 			} else if (table[index] != null && table[index].wl == 0) {
 				// Traverse deeper into the chain for words matching the prefix
 				if (table[index].next != null) {
-					table[index].next.getPrefixWords(minHeap, (word + table[index].key), k);
+					table[index].next.getPrefixWords(minHeap, (word + table[index].key), k, counters, ids);
 				}
 			}
 		}
@@ -256,49 +714,32 @@ class RobinHoodHashing {
 	 * starting from that prefix. Once the prefix is found, it calls
 	 * {@code getPrefixWords} to retrieve matching words.
 	 *
-	 * @param minHeap the heap used to store words that match the prefix along with
-	 *                their importance scores.
-	 * @param word    the prefix to match words against.
-	 * @param k       the maximum number of words to retrieve.
-	 * @param i       the current character index being processed in the prefix.
+	 * @param minHeap  the heap used to store words that match the prefix along with
+	 *                 their importance scores.
+	 * @param word     the prefix to match words against.
+	 * @param k        the maximum number of words to retrieve.
+	 * @param i        the current character index being processed in the prefix.
+	 * @param counters the counters of the query, or {@code null} if they are not
+	 *                 collected.
+	 * @param ids      the word ids of the trie.
 	 */
-	public void reachWordPrefix(Heap minHeap, String word, int k, int i) {
+	public void reachWordPrefix(Heap minHeap, String word, int k, int i, long[] counters, WordIds ids) {
+		if (counters != null) {
+			counters[VISITED]++;
+		}
+		Element e = lookup(word.charAt(i));
 
-		// If the entire prefix has been processed
-		if (i + 1 == word.length()) {
-			int tries = 0;
-
-			// Search for the prefix in the hash table
-			while (tries <= maxProbeLenght) {
-				if (table[((word.charAt(i) - 'a') + tries) % capacity] == null) {
-					tries++; // Move to the next probe length
-				} else if (table[((word.charAt(i) - 'a') + tries) % capacity].key == word.charAt(i)) {
-					// If the prefix exists and has a next chain, retrieve words starting with this
-					// prefix
-					if (table[((word.charAt(i) - 'a') + tries) % capacity].next != null) {
-						table[((word.charAt(i) - 'a') + tries) % capacity].next.getPrefixWords(minHeap, word, k);
-						return;
-					}
-					return; // Prefix found, but no further chains exist
-				} else {
-					tries++; // Continue searching with a different probe length
-				}
-			}
+		// Stop if the prefix does not exist or no further chains exist
+		if (e == null || e.next == null) {
 			return;
 		}
 
-		// Continue searching for the next character of the prefix in the hash table
-		int tries = 0;
-		while (tries <= maxProbeLenght) {
-			if (table[((word.charAt(i) - 'a') + tries) % capacity] == null) {
-				tries++; // Move to the next probe length
-			} else if (table[((word.charAt(i) - 'a') + tries) % capacity].key == word.charAt(i)) {
-				// Recur to the next level to process the remaining prefix
-				table[((word.charAt(i) - 'a') + tries) % capacity].next.reachWordPrefix(minHeap, word, k, i + 1);
-				return;
-			} else {
-				tries++; // Continue searching with a different probe length
-			}
+		// If the entire prefix has been processed retrieve words starting with it,
+		// otherwise recur to the next level to process the remaining prefix
+		if (i + 1 == word.length()) {
+			e.next.getPrefixWords(minHeap, word, k, counters, ids);
+		} else {
+			e.next.reachWordPrefix(minHeap, word, k, i + 1, counters, ids);
 		}
 	}
 
@@ -307,21 +748,53 @@ class RobinHoodHashing {
 	 * word. These words are added to a min-heap if they are similar to the given
 	 * word.
 	 *
-	 * @param minHeap the heap used to store matching words along with their
-	 *                importance scores.
-	 * @param word    the word to compare lengths and similarity against.
-	 * @param k       the maximum number of words to retrieve.
-	 * @param index   the current index in the hash table being processed.
-	 * @param buffer  the constructed word during traversal.
+	 * @param minHeap  the heap used to store matching words along with their
+	 *                 importance scores.
+	 * @param word     the word to compare lengths and similarity against.
+	 * @param k        the maximum number of words to retrieve.
+	 * @param index    the current index in the hash table being processed.
+	 * @param buffer   the constructed word during traversal.
+	 * @param counters the counters of the query, or {@code null} if they are not
+	 *                 collected.
+	 * @param ids      the word ids of the trie.
 	 */
-	public void getSameLengthWords(Heap minHeap, String word, int k, int index, String buffer) {
+	public void getSameLengthWords(Heap minHeap, String word, int k, int index, String buffer, long[] counters,
+			WordIds ids) {
+		finishMigration();
+		if (counters != null) {
+			counters[VISITED]++;
+		}
+		getSameLengthWords(minHeap, word, k, index, buffer, counters, ids, 0, capacity);
+	}
+
+	/**
+	 * Retrieves the words of the same length as the given word from the elements
+	 * in a range of slots of this table and their subtrees.
+	 *
+	 * @param minHeap  the heap used to store matching words along with their
+	 *                 importance scores.
+	 * @param word     the word to compare lengths and similarity against.
+	 * @param k        the maximum number of words to retrieve.
+	 * @param index    the current index in the hash table being processed.
+	 * @param buffer   the constructed word during traversal.
+	 * @param counters the counters of the query, or {@code null} if they are not
+	 *                 collected.
+	 * @param ids      the word ids of the trie.
+	 * @param from     the first slot of the range.
+	 * @param to       the slot after the range.
+	 */
+	private void getSameLengthWords(Heap minHeap, String word, int k, int index, String buffer, long[] counters,
+			WordIds ids, int from, int to) {
 		// Base case: If the constructed buffer matches the length of the word
 		if (buffer.length() + 1 == word.length()) {
 			// Check if the buffer is similar to the target word
-			for (int i = 0; i < capacity; i++) {
+			for (int i = from; i < to; i++) {
 				if (table[i] != null) {
+					if (counters != null) {
+						counters[TESTED]++;
+					}
 					if (isSimilar(buffer + table[i].key, word)) {
-						minHeap.insert(buffer + table[i].key, importance(buffer + table[i].key, index));
+						insertCandidate(minHeap, buffer, table[i], ids);
 					}
 				}
 			}
@@ -332,29 +805,168 @@ class RobinHoodHashing {
 			return;
 		}
 
-		// Traverse through the hash table
-		for (int i = 0; i < capacity; i++) {
+		// Traverse through the hash table, elements without a child table end here
+		for (int i = from; i < to; i++) {
 			if (table[i] != null && table[i].next != null) {
 				// Recur into the next level of the hash table with the current key appended to
 				// the buffer
-				table[i].next.getSameLengthWords(minHeap, word, k, index + 1, buffer + table[i].key);
-			} else if (table[i] != null) {
-				// Append the current key to the buffer
-				buffer = buffer + table[i].key;
-
-				// Check if the buffer matches the target word's length
-				if (buffer.length() + 1 == word.length()) {
-					// Check if the buffer is similar to the target word
-					for (int j = 0; j < capacity; j++) {
-						if (table[j] != null) {
-							if (isSimilar(buffer + table[j].key, word)) {
-								minHeap.insert(buffer + table[i].key, importance(buffer + table[i].key, index));
-							}
+				table[i].next.getSameLengthWords(minHeap, word, k, index + 1, buffer + table[i].key, counters, ids);
+			}
+		}
+	}
+
+	/**
+	 * Retrieves the words matching a glob pattern from this table and its
+	 * subtrees. Only the elements whose key keeps a state of the pattern alive are
+	 * followed: keys fixed by the pattern are looked up, other tables are
+	 * scanned.
+	 *
+	 * @param minHeap  the heap used to store matching words along with their
+	 *                 importance scores.
+	 * @param pattern  the pattern.
+	 * @param states   the states of the pattern reached by the buffer.
+	 * @param buffer   the characters leading to this table.
+	 * @param counters the counters of the query, or {@code null} if they are not
+	 *                 collected.
+	 * @param ids      the word ids of the trie.
+	 */
+	void getPatternWords(Heap minHeap, GlobPattern pattern, long states, String buffer, long[] counters,
+			WordIds ids) {
+		finishMigration();
+		if (counters != null) {
+			counters[VISITED]++;
+		}
+		char[] candidates = pattern.candidates(states);
+		if (candidates != null) {
+			for (char key : candidates) {
+				Element e = lookup(key);
+				if (e != null) {
+					matchPattern(e, minHeap, pattern, states, buffer, counters, ids);
+				}
+			}
+		} else {
+			for (int i = 0; i < capacity; i++) {
+				if (table[i] != null) {
+					matchPattern(table[i], minHeap, pattern, states, buffer, counters, ids);
+				}
+			}
+		}
+	}
+
+	/**
+	 * Advances a glob pattern by the key of an element, stores the word ending
+	 * at the element if it matches and continues below the element while the
+	 * pattern can still match longer words.
+	 *
+	 * @param e        the element.
+	 * @param minHeap  the heap used to store matching words along with their
+	 *                 importance scores.
+	 * @param pattern  the pattern.
+	 * @param states   the states of the pattern reached by the buffer.
+	 * @param buffer   the characters leading to the table of the element.
+	 * @param counters the counters of the query, or {@code null} if they are not
+	 *                 collected.
+	 * @param ids      the word ids of the trie.
+	 */
+	private static void matchPattern(Element e, Heap minHeap, GlobPattern pattern, long states, String buffer,
+			long[] counters, WordIds ids) {
+		if (counters != null) {
+			counters[TESTED]++;
+		}
+		long next = pattern.step(states, e.key);
+		if (next == 0) {
+			return;
+		}
+		String word = buffer + e.key;
+		if (pattern.accepts(next) && e.wl == word.length()) {
+			minHeap.insert(ids, e.id, ids.importance(e.id));
+		}
+		if (e.next != null && pattern.canContinue(next)) {
+			e.next.getPatternWords(minHeap, pattern, next, word, counters, ids);
+		}
+	}
+
+	/**
+	 * Collects every word stored in this table and the tables below it together
+	 * with its importance.
+	 *
+	 * @param buffer the characters leading to this table.
+	 * @param words  the list receiving the words.
+	 * @param ids    the word ids of the trie.
+	 */
+	void collectWords(String buffer, List<WordNode> words, WordIds ids) {
+		finishMigration();
+		for (int i = 0; i < capacity; i++) {
+			if (table[i] != null) {
+				String word = buffer + table[i].key;
+				if (table[i].wl == word.length()) {
+					words.add(new WordNode(word, ids.importance(table[i].id)));
+				}
+				if (table[i].next != null) {
+					table[i].next.collectWords(word, words, ids);
+				}
+			}
+		}
+	}
+
+	/**
+	 * Runs the same-length or different-length scan of this table on a fork/join
+	 * pool. Every stored element of this table and its subtree is scanned by its
+	 * own task into a local heap, and the local heaps are merged into the given
+	 * heap. The scanned tables must not be modified while the tasks run.
+	 *
+	 * @param pool       the pool running the tasks.
+	 * @param minHeap    the heap receiving the merged results.
+	 * @param word       the word to compare against.
+	 * @param k          the maximum number of words to retrieve.
+	 * @param sameLength {@code true} for the same-length scan, {@code false} for
+	 *                   the different-length scan.
+	 * @param counters   the counters of the query, or {@code null} if they are not
+	 *                   collected.
+	 * @param ids        the word ids of the trie.
+	 */
+	void parallelScan(ForkJoinPool pool, Heap minHeap, String word, int k, boolean sameLength, long[] counters,
+			WordIds ids) {
+		finishMigration();
+		if (counters != null) {
+			counters[VISITED]++;
+		}
+
+		List<RecursiveAction> tasks = new ArrayList<>();
+		Heap[] heaps = new Heap[capacity];
+		long[][] taskCounters = new long[capacity][];
+		for (int i = 0; i < capacity; i++) {
+			if (table[i] != null) {
+				int slot = i;
+				heaps[slot] = new Heap(k);
+				taskCounters[slot] = counters != null ? new long[counters.length] : null;
+				tasks.add(new RecursiveAction() {
+					@Override
+					protected void compute() {
+						if (sameLength) {
+							getSameLengthWords(heaps[slot], word, k, 0, "", taskCounters[slot], ids, slot, slot + 1);
+						} else {
+							getDiffLengthWords(heaps[slot], word, k, 0, "", taskCounters[slot], ids, slot, slot + 1);
 						}
 					}
-					return;
-				}
+				});
+			}
+		}
+		pool.invoke(new RecursiveAction() {
+			@Override
+			protected void compute() {
+				invokeAll(tasks);
+			}
+		});
 
+		// Merge the local results in slot order
+		for (int i = 0; i < capacity; i++) {
+			if (heaps[i] != null) {
+				minHeap.merge(heaps[i]);
+				if (counters != null) {
+					counters[VISITED] += taskCounters[i][VISITED];
+					counters[TESTED] += taskCounters[i][TESTED];
+				}
 			}
 		}
 	}
@@ -408,38 +1020,76 @@ class RobinHoodHashing {
 	 * considered, and they are added to a min-heap if they are similar to the given
 	 * word based on specific criteria.
 	 *
-	 * @param minHeap the heap used to store matching words along with their
-	 *                importance scores.
-	 * @param word    the target word to compare lengths and similarity against.
-	 * @param k       the maximum number of words to retrieve.
-	 * @param index   the current index in the hash table being processed.
-	 * @param buffer  the constructed word during traversal.
+	 * @param minHeap  the heap used to store matching words along with their
+	 *                 importance scores.
+	 * @param word     the target word to compare lengths and similarity against.
+	 * @param k        the maximum number of words to retrieve.
+	 * @param index    the current index in the hash table being processed.
+	 * @param buffer   the constructed word during traversal.
+	 * @param counters the counters of the query, or {@code null} if they are not
+	 *                 collected.
+	 * @param ids      the word ids of the trie.
 	 */
-	public void getDiffLengthWords(Heap minHeap, String word, int k, int index, String buffer) {
+	public void getDiffLengthWords(Heap minHeap, String word, int k, int index, String buffer, long[] counters,
+			WordIds ids) {
+		finishMigration();
+		if (counters != null) {
+			counters[VISITED]++;
+		}
+		getDiffLengthWords(minHeap, word, k, index, buffer, counters, ids, 0, capacity);
+	}
+
+	/**
+	 * Retrieves the words slightly longer or shorter than the given word from the
+	 * elements in a range of slots of this table and their subtrees.
+	 *
+	 * @param minHeap  the heap used to store matching words along with their
+	 *                 importance scores.
+	 * @param word     the target word to compare lengths and similarity against.
+	 * @param k        the maximum number of words to retrieve.
+	 * @param index    the current index in the hash table being processed.
+	 * @param buffer   the constructed word during traversal.
+	 * @param counters the counters of the query, or {@code null} if they are not
+	 *                 collected.
+	 * @param ids      the word ids of the trie.
+	 * @param from     the first slot of the range.
+	 * @param to       the slot after the range.
+	 */
+	private void getDiffLengthWords(Heap minHeap, String word, int k, int index, String buffer, long[] counters,
+			WordIds ids, int from, int to) {
 		// Check if the buffer is slightly longer than the word (+1 or +2)
 		if (buffer.length() == word.length()) {
-			for (int i = 0; i < capacity; i++) {
+			for (int i = from; i < to; i++) {
 				if (table[i] != null) {
+					if (counters != null) {
+						counters[TESTED]++;
+					}
 					if (isSimilar(buffer + table[i].key, word)) {
-						minHeap.insert(buffer + table[i].key, importance(buffer + table[i].key, index));
+						insertCandidate(minHeap, buffer, table[i], ids);
 					}
 				}
 			}
 		} else if (buffer.length() == word.length() + 1) {
-			for (int i = 0; i < capacity; i++) {
+			for (int i = from; i < to; i++) {
 				if (table[i] != null) {
+					if (counters != null) {
+						counters[TESTED]++;
+					}
 					if (isSimilar(buffer + table[i].key, word)) {
-						minHeap.insert(buffer + table[i].key, importance(buffer + table[i].key, index));
+						insertCandidate(minHeap, buffer, table[i], ids);
 					}
 				}
 			}
 		}
 		// Check if the buffer is shorter than the word (-1 in length)
 		else if (buffer.length() == word.length() - 2) {
-			for (int i = 0; i < capacity; i++) {
+			for (int i = from; i < to; i++) {
 				if (table[i] != null) {
+					if (counters != null) {
+						counters[TESTED]++;
+					}
 					if (isLess1(buffer + table[i].key, word)) {
-						minHeap.insert(buffer + table[i].key, importance(buffer + table[i].key, index));
+						insertCandidate(minHeap, buffer, table[i], ids);
 					}
 				}
 			}
@@ -448,44 +1098,12 @@ class RobinHoodHashing {
 		else if (buffer.length() > word.length() + 2) {
 		}
 
-		// Traverse through the hash table
-		for (int j = 0; j < capacity; j++) {
+		// Traverse through the hash table, elements without a child table end here
+		for (int j = from; j < to; j++) {
 			if (table[j] != null && table[j].next != null) {
 				// Recur into the next level of the hash table with the current key appended to
 				// the buffer
-				table[j].next.getDiffLengthWords(minHeap, word, k, index + 1, buffer + table[j].key);
-			} else if (table[j] != null) {
-				// Append the current key to the buffer
-				buffer = buffer + table[j].key;
-
-				// Check again for length conditions after adding the current key
-				if (buffer.length() == word.length()) {
-					for (int i = 0; i < capacity; i++) {
-						if (table[i] != null) {
-							if (isSimilar(buffer + table[i].key, word)) {
-								minHeap.insert(buffer + table[i].key, importance(buffer + table[i].key, index));
-							}
-						}
-					}
-				} else if (buffer.length() == word.length() + 1) {
-					for (int i = 0; i < capacity; i++) {
-						if (table[i] != null) {
-							if (isSimilar(buffer + table[i].key, word)) {
-								minHeap.insert(buffer + table[i].key, importance(buffer + table[i].key, index));
-							}
-						}
-					}
-				}
-				// Check if the buffer is shorter than the word (-1 in length)
-				else if (buffer.length() == word.length() - 2) {
-					for (int i = 0; i < capacity; i++) {
-						if (table[i] != null) {
-							if (isLess1(buffer + table[i].key, word)) {
-								minHeap.insert(buffer + table[i].key, importance(buffer + table[i].key, index));
-							}
-						}
-					}
-				}
+				table[j].next.getDiffLengthWords(minHeap, word, k, index + 1, buffer + table[j].key, counters, ids);
 			}
 		}
 	}
@@ -538,81 +1156,334 @@ class RobinHoodHashing {
 
 	/**
 	 * Rebuilds the hash table with a larger capacity to handle increased load and
-	 * maintain efficiency. This involves transferring all existing elements into a
-	 * new table while recalculating their positions based on the new capacity and
-	 * resetting probe lengths.
+	 * maintain efficiency. If the configuration enables incremental resizing only
+	 * a new table is allocated here and the elements are migrated by the following
+	 * insertions.
 	 */
 	public void rehash() {
-		int prevCapacity = capacity; // Store the current capacity
-		int newCapacity = getNextCapacity(capacity); // Determine the new capacity
-		Element[] tmp = new Element[size]; // Temporary array to store existing elements
-		int count = 0; // Counter for the number of elements copied
+		rehash(-1);
+	}
 
-		// Transfer all non-null elements from the current table to the temporary array
-		for (int i = 0; i < prevCapacity; i++) {
-			if (table[i] != null) {
-				tmp[count] = new Element();
-				tmp[count] = table[i];
-				tmp[count].probeLength = 0; // Reset probe length for rehashing
-				count++;
+	/**
+	 * Rebuilds the hash table with a larger capacity and reports the rehash to
+	 * Flight Recorder.
+	 *
+	 * @param depth the depth of the table in the trie, or -1 if it is unknown.
+	 */
+	void rehash(int depth) {
+		RehashEvent event = new RehashEvent();
+		event.begin();
+
+		rehashes++;
+		int oldCapacity = capacity;
+		int newCapacity = config.nextCapacity(capacity);
+		boolean incremental = config.migrationStep > 0;
+		if (incremental) {
+			startMigration(newCapacity);
+		} else {
+			resize(newCapacity);
+		}
+
+		if (event.shouldCommit()) {
+			event.depth = depth;
+			event.oldCapacity = oldCapacity;
+			event.newCapacity = newCapacity;
+			event.elementsMoved = incremental ? size - (migration != null ? countPending() : 0) : size;
+			event.incremental = incremental;
+			event.commit();
+		}
+	}
+
+	/**
+	 * Counts the elements still waiting in the old table of an incremental resize.
+	 *
+	 * @return the number of elements left to migrate.
+	 */
+	private int countPending() {
+		int pending = 0;
+		for (int i = migration.next; i < migration.capacity; i++) {
+			if (migration.table[i] != null) {
+				pending++;
 			}
 		}
+		return pending;
+	}
+
+	/**
+	 * Rebuilds the hash table with the given capacity. This involves transferring
+	 * all existing elements into a new table while recalculating their positions
+	 * based on the new capacity and resetting probe lengths.
+	 *
+	 * @param newCapacity the capacity of the rebuilt table.
+	 */
+	void resize(int newCapacity) {
+		finishMigration();
+
+		Element[] prevTable = table; // Store the current table
+		int prevCapacity = capacity; // Store the current capacity
 
 		// Reinitialize the hash table with the new capacity
 		table = new Element[newCapacity];
+		keys = newLane(newCapacity);
 		capacity = newCapacity;
+		threshold = config.threshold(newCapacity);
 		maxProbeLenght = 0; // Reset the maximum probe length
-		size = 0; // Reset the size counter
-
-		// Reinsert all elements from the temporary array into the new table
-		for (int i = 0; i < count; i++) {
-			while (true) {
-				// Calculate the new index for the element
-				int index = ((tmp[i].key - 'a') + tmp[i].probeLength) % capacity;
-
-				if (table[index] == null) {
-					// Insert the element into the new table
-					table[index] = new Element();
-					table[index] = tmp[i];
-
-					// Update the maximum probe length if necessary
-					if (maxProbeLenght < table[index].probeLength) {
-						maxProbeLenght = table[index].probeLength;
-					}
-					size++;
-					break; // Exit the loop after successful insertion
-				} else if (table[index].probeLength < tmp[i].probeLength) {
-					// Handle Robin Hood swapping
-					Element change = table[index];
-					table[index] = tmp[i];
-					tmp[i] = change;
-					tmp[i].probeLength++;
+
+		// Reinsert all elements from the previous table into the new table
+		for (int i = 0; i < prevCapacity; i++) {
+			if (prevTable[i] != null) {
+				place(prevTable[i]);
+			}
+		}
+	}
+
+	/**
+	 * Starts an incremental resize. The current table becomes the old table of the
+	 * migration and new elements go to an empty table with the given capacity.
+	 *
+	 * @param newCapacity the capacity of the new table.
+	 */
+	private void startMigration(int newCapacity) {
+		finishMigration();
+
+		migration = new Migration(config, table, capacity, maxProbeLenght);
+		table = new Element[newCapacity];
+		keys = newLane(newCapacity);
+		capacity = newCapacity;
+		threshold = config.threshold(newCapacity);
+		maxProbeLenght = 0;
+
+		migrate(config.migrationStep);
+	}
+
+	/**
+	 * Moves the elements of the next slots of the old table into the new table.
+	 * The migration ends once every slot of the old table has been visited.
+	 *
+	 * @param slots the maximum number of old slots to visit.
+	 */
+	private void migrate(int slots) {
+		Migration m = migration;
+		while (slots > 0 && m.next < m.capacity) {
+			if (m.table[m.next] != null) {
+				place(m.table[m.next]);
+				m.table[m.next] = null;
+			}
+			m.next++;
+			slots--;
+		}
+
+		if (m.next == m.capacity) {
+			migration = null;
+		}
+	}
+
+	/**
+	 * Completes a pending incremental resize, so the whole table can be scanned or
+	 * modified in place.
+	 */
+	void finishMigration() {
+		if (migration != null) {
+			migrate(migration.capacity);
+		}
+	}
+
+	/**
+	 * Rebuilds this table and all tables below it at the smallest capacity that
+	 * keeps the maximum probe length within the given target without reaching the
+	 * maximum load. Child tables that no longer hold any element are dropped.
+	 *
+	 * @param maxProbe the target maximum probe length.
+	 */
+	void compact(int maxProbe) {
+		finishMigration();
+
+		// Compact the subtrees first and drop empty leaf tables
+		for (int i = 0; i < capacity; i++) {
+			if (table[i] != null && table[i].next != null) {
+				if (table[i].next.size == 0) {
+					table[i].next = null;
 				} else {
-					tmp[i].probeLength++; // Increment the probe length and retry
+					table[i].next.compact(maxProbe);
+				}
+			}
+		}
+
+		// Find the smallest capacity that reaches the target, if none does within
+		// the search range keep the one with the shortest probes
+		int limit = Math.max(capacity, 64);
+		int best = -1;
+		int bestProbe = Integer.MAX_VALUE;
+		for (int c = 1; c <= limit; c++) {
+			if (size >= config.threshold(c)
+					|| (config.hash == RobinHoodConfig.HashFunction.MASK && Integer.bitCount(c) != 1)) {
+				continue;
+			}
+			resize(c);
+			if (maxProbeLenght < bestProbe) {
+				best = c;
+				bestProbe = maxProbeLenght;
+			}
+			if (maxProbeLenght <= maxProbe) {
+				return;
+			}
+		}
+		resize(best);
+	}
+
+	/**
+	 * Reorders this table and all tables below it by their recorded accesses.
+	 * The elements of a table are placed from the most to the least accessed,
+	 * each in the first free slot of its probe sequence, so every home slot
+	 * holds the hottest element hashing there and colder elements move further
+	 * along. Tables without recorded accesses keep their slots. The counts are
+	 * halved afterwards, so a later pass weighs recent accesses more.
+	 */
+	void reorder() {
+		finishMigration();
+
+		Element[] elements = new Element[size];
+		int n = 0;
+		boolean accessed = false;
+		for (int i = 0; i < capacity; i++) {
+			if (table[i] != null) {
+				elements[n++] = table[i];
+				accessed |= table[i].hits > 0;
+				if (table[i].next != null) {
+					table[i].next.reorder();
 				}
 			}
 		}
+		if (!accessed) {
+			return;
+		}
+
+		// A stable sort keeps the current order of elements with equal counts
+		Arrays.sort(elements, 0, n, (a, b) -> Integer.compare(b.hits, a.hits));
+		Arrays.fill(table, null);
+		keys = newLane(capacity);
+		maxProbeLenght = 0;
+		for (int i = 0; i < n; i++) {
+			Element e = elements[i];
+			e.probeLength = 0;
+			while (table[slot(e.key, e.probeLength)] != null) {
+				e.probeLength++;
+			}
+			setSlot(slot(e.key, e.probeLength), e);
+			if (maxProbeLenght < e.probeLength) {
+				maxProbeLenght = e.probeLength;
+			}
+			e.hits >>>= 1;
+		}
 	}
 
 	/**
-	 * Determines the next capacity for the hash table during rehashing. If the
-	 * current capacity is smaller than one of the predefined prime numbers, the
-	 * method selects the next largest prime. Otherwise, the capacity is doubled.
+	 * Creates a copy of this table for a new version of the trie. The slots hold
+	 * copies of the elements, which still share their child tables with this
+	 * table, so placing, moving or updating elements in the copy leaves this table
+	 * untouched.
 	 *
-	 * @param currentCapacity the current capacity of the hash table.
-	 * @return the next capacity for the hash table.
+	 * @return the copy.
 	 */
-	private int getNextCapacity(int currentCapacity) {
-		int[] primes = { 11, 19, 29 }; // Predefined prime numbers for capacity scaling
+	RobinHoodHashing copyTable() {
+		RobinHoodHashing copy = new RobinHoodHashing(config, 0);
+		copy.table = copySlots(table);
+		copy.keys = keys != null ? keys.clone() : null;
+		copy.capacity = capacity;
+		copy.size = size;
+		copy.maxProbeLenght = maxProbeLenght;
+		copy.threshold = threshold;
+		copy.rehashes = rehashes;
+		if (migration != null) {
+			copy.migration = new Migration(config, copySlots(migration.table), migration.capacity,
+					migration.maxProbeLenght);
+			copy.migration.next = migration.next;
+		}
+		return copy;
+	}
 
-		// Select the next prime number greater than the current capacity
-		for (int prime : primes) {
-			if (prime > currentCapacity) {
-				return prime;
+	/**
+	 * Copies a slot array and the elements in it.
+	 *
+	 * @param slots the slots to copy.
+	 * @return the copied slots.
+	 */
+	private static Element[] copySlots(Element[] slots) {
+		if (slots.length == 0) {
+			return slots;
+		}
+		Element[] copy = new Element[slots.length];
+		for (int i = 0; i < slots.length; i++) {
+			if (slots[i] != null) {
+				copy[i] = new Element(slots[i]);
 			}
 		}
+		return copy;
+	}
+
+	/**
+	 * Computes the slot of a character after the given number of probes using the
+	 * hash function of the configuration.
+	 *
+	 * @param key   the character.
+	 * @param probe the probe length.
+	 * @return the index of the slot.
+	 */
+	int slot(char key, int probe) {
+		return config.slot(key, probe, capacity);
+	}
+
+	/**
+	 * Holds the old table of an incremental resize and the next slot to migrate.
+	 */
+	static final class Migration {
+
+		/** The hashing policy used to probe the old table. */
+		final RobinHoodConfig config;
+
+		/** The old table, migrated slots are cleared. */
+		final Element[] table;
+
+		/** The capacity of the old table. */
+		final int capacity;
+
+		/** The maximum probe length of the old table. */
+		final int maxProbeLenght;
+
+		/** The next slot of the old table to migrate. */
+		int next;
+
+		/**
+		 * Constructor for a migration of the given table.
+		 *
+		 * @param config         the hashing policy of the table.
+		 * @param table          the old table.
+		 * @param capacity       the capacity of the old table.
+		 * @param maxProbeLenght the maximum probe length of the old table.
+		 */
+		Migration(RobinHoodConfig config, Element[] table, int capacity, int maxProbeLenght) {
+			this.config = config;
+			this.table = table;
+			this.capacity = capacity;
+			this.maxProbeLenght = maxProbeLenght;
+			next = 0;
+		}
 
-		// If no suitable prime is found, double the current capacity
-		return currentCapacity * 2;
+		/**
+		 * Finds the slot of the old table holding the given character. Migrated slots
+		 * are empty, so the whole probe range is checked.
+		 *
+		 * @param key the character to look for.
+		 * @return the index of the slot, or -1 if the character is not stored.
+		 */
+		int findSlot(char key) {
+			for (int tries = 0; tries <= maxProbeLenght; tries++) {
+				int index = config.slot(key, tries, capacity);
+				if (table[index] != null && table[index].key == key) {
+					return index;
+				}
+			}
+			return -1;
+		}
 	}
 }
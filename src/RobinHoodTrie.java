@@ -2,7 +2,14 @@ package HW;
 
 import java.io.File;
 import java.io.FileNotFoundException;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
 import java.util.Scanner;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.atomic.LongAdder;
 
 /**
  * Implements a Trie using Robin Hood Hashing for efficient word storage and
@@ -15,107 +22,1225 @@ public class RobinHoodTrie extends Element {
 	/** The root of the Trie, implemented using Robin Hood Hashing. */
 	public RobinHoodHashing root;
 
+	/** The number of distinct words stored in the Trie. */
+	private int words;
+
+	/** The maximum probe length targeted by {@link #compact()}. */
+	public static final int COMPACT_MAX_PROBE = 1;
+
+	/** The query metrics, or {@code null} if metrics are disabled. */
+	private volatile Metrics metrics;
+
+	/** The latency of reaching a prefix and collecting its words. */
+	private Histogram prefixLatency;
+
+	/** The latency of the same-length scan. */
+	private Histogram sameLengthLatency;
+
+	/** The latency of the different-length scan. */
+	private Histogram diffLengthLatency;
+
+	/** The latency of glob pattern queries. */
+	private Histogram patternLatency;
+
+	/** The latency of extracting the suggestions from the heap. */
+	private Histogram extractLatency;
+
+	/** The latency of complete suggestion queries. */
+	private Histogram suggestLatency;
+
+	/** The number of tables visited by queries. */
+	private LongAdder nodesVisited;
+
+	/** The number of candidates tested for similarity by queries. */
+	private LongAdder candidatesTested;
+
+	/** The default latency above which suggestion queries are reported, 50 ms. */
+	public static final long SLOW_QUERY_NANOS = 50000000L;
+
+	/** The latency in nanoseconds above which suggestion queries are reported. */
+	private long slowQueryNanos = SLOW_QUERY_NANOS;
+
+	/** The score of one occurrence of a word while importance decays. */
+	public static final int DECAY_SCALE = WordIds.DECAY_SCALE;
+
+	/**
+	 * The highest score of a word while importance decays, reached after
+	 * {@link #MAX_DECAY_OCCURRENCES} undecayed occurrences.
+	 */
+	public static final int MAX_DECAY_SCORE = Integer.MAX_VALUE;
+
+	/**
+	 * The number of undecayed occurrences at which the score of a word saturates
+	 * while importance decays, about 2.1 million. Further occurrences are not
+	 * counted until the score has decayed below {@link #MAX_DECAY_SCORE}.
+	 */
+	public static final int MAX_DECAY_OCCURRENCES = WordIds.MAX_DECAY_OCCURRENCES;
+
+	/** The number of words read per reported ingestion batch. */
+	static final int INGESTION_BATCH = 10000;
+
+	/** The default number of words from which fuzzy scans run in parallel. */
+	public static final int PARALLEL_THRESHOLD = 50000;
+
+	/** The pool running fuzzy scans in parallel, or {@code null} if they run sequentially. */
+	private volatile ForkJoinPool parallelPool;
+
+	/** The number of words from which fuzzy scans run in parallel. */
+	private int parallelThreshold = PARALLEL_THRESHOLD;
+
+	/** The filter rejecting words that are not stored, or {@code null} if disabled. */
+	private volatile BloomFilter filter;
+
+	/**
+	 * Whether the Bloom filter is shared with the version this Trie was copied
+	 * from, so it must be copied before a word is added to it.
+	 */
+	private boolean filterShared;
+
+	/** The dense ids of the stored words, which hold their importance. */
+	private WordIds ids = new WordIds();
+
+	/** The number of insertions and deletions of words so far. */
+	private int modifications;
+
+	/** Whether infix queries are answered by a substring index. */
+	private volatile boolean substringsEnabled;
+
+	/** The substring index of the words, or {@code null} if not built yet. */
+	private volatile SubstringIndex substrings;
+
+	/** The log of the importance updates, or {@code null} if they are not logged. */
+	private volatile ImportanceLog log;
+
+	/** Whether successful lookups are counted for {@link #reorderByAccesses()}. */
+	private volatile boolean accessCounts;
+
 	/** Constructor to initialize the Trie with a root node. */
 	public RobinHoodTrie() {
-		root = new RobinHoodHashing();
+		this(new RobinHoodConfig());
+	}
+
+	/**
+	 * Constructor to initialize the Trie with a root node whose tables use the
+	 * given hashing and growth policy.
+	 *
+	 * @param config the configuration shared by all tables of the Trie.
+	 */
+	public RobinHoodTrie(RobinHoodConfig config) {
+		root = new RobinHoodHashing(config);
+	}
+
+	/**
+	 * Constructor for a new version of a Trie. The new version shares the root
+	 * table, the word count and the query metrics of the given Trie, so it must be
+	 * modified only through path copying, as done by {@link VersionedTrie}. The
+	 * word ids and the Bloom filter are shared until the new version changes
+	 * them, when it copies them first, so the given Trie is never written. The
+	 * substring index is immutable and rebuilt by whichever version changed.
+	 * The importance log is shared on purpose: it records the updates of every
+	 * version in order. Access counting is not carried over, since counting
+	 * would write to tables the versions share.
+	 *
+	 * @param base the version to start from.
+	 */
+	RobinHoodTrie(RobinHoodTrie base) {
+		root = base.root;
+		words = base.words;
+		metrics = base.metrics;
+		prefixLatency = base.prefixLatency;
+		sameLengthLatency = base.sameLengthLatency;
+		diffLengthLatency = base.diffLengthLatency;
+		patternLatency = base.patternLatency;
+		extractLatency = base.extractLatency;
+		suggestLatency = base.suggestLatency;
+		nodesVisited = base.nodesVisited;
+		candidatesTested = base.candidatesTested;
+		slowQueryNanos = base.slowQueryNanos;
+		parallelPool = base.parallelPool;
+		parallelThreshold = base.parallelThreshold;
+		filter = base.filter;
+		filterShared = filter != null;
+		ids = base.ids.copy();
+		modifications = base.modifications;
+		substringsEnabled = base.substringsEnabled;
+		substrings = base.substrings;
+		log = base.log;
+	}
+
+	/**
+	 * Returns the hashing and growth policy of the Trie.
+	 *
+	 * @return the configuration shared by all tables.
+	 */
+	public RobinHoodConfig getConfig() {
+		return root.config;
+	}
+
+	/**
+	 * Inserts a word into the Trie.
+	 *
+	 * @param word the word to insert.
+	 */
+	public void insert(String word) {
+		word = word.toLowerCase();
+		if (root.insertWord(word, 0, ids)) {
+			added(word);
+		}
+	}
+
+	/**
+	 * Counts a newly stored word and adds it to the filter. A filter holding more
+	 * words than it is sized for is rebuilt at twice the number of words.
+	 *
+	 * @param word the lowercase word.
+	 */
+	private void added(String word) {
+		words++;
+		modifications++;
+		BloomFilter current = filter;
+		if (current != null) {
+			if (filterShared) {
+				current = new BloomFilter(current);
+				filter = current;
+				filterShared = false;
+			}
+			current.add(word);
+			if (current.isFull()) {
+				filter = buildFilter(2 * words);
+			}
+		}
+	}
+
+	/**
+	 * Inserts words that arrive in sorted order. Each word resumes at the longest
+	 * prefix it shares with the previous one, so only the characters of its new
+	 * suffix are probed and allocated. Words that are not in order are still
+	 * inserted correctly, they only share less work. Words are filtered like
+	 * those of {@link #readDictionary(String)}, so words with characters
+	 * outside a-z are skipped, and pending resizes are finished before
+	 * returning.
+	 *
+	 * @param sorted the words to insert, ideally sorted.
+	 */
+	public void insertSorted(Iterable<String> sorted) {
+		SortedPath path = new SortedPath();
+		for (String word : sorted) {
+			String buffer = word == null ? null : filterWord(word);
+			if (buffer != null) {
+				path.insert(buffer);
+			}
+		}
+		finishResizes();
+	}
+
+	/**
+	 * Reads a dictionary file whose words are sorted and inserts all valid words
+	 * into the Trie like {@link #insertSorted(Iterable)}.
+	 *
+	 * @param inFile the file path of the dictionary.
+	 * @throws FileNotFoundException if the file cannot be found.
+	 */
+	public void readSortedDictionary(String inFile) throws FileNotFoundException {
+		File input = new File(inFile);
+		Scanner scan = new Scanner(input);
+		SortedPath path = new SortedPath();
+		while (scan.hasNext()) {
+			String buffer = filterWord(scan.next());
+			if (buffer != null) {
+				path.insert(buffer);
+			}
+		}
+		scan.close();
+		finishResizes();
+	}
+
+	/**
+	 * The path stack of a sorted bulk build. It keeps the table and element of
+	 * every character of the previously inserted word.
+	 */
+	private class SortedPath {
+
+		/** The table holding each character of the previous word. */
+		private RobinHoodHashing[] tables = new RobinHoodHashing[16];
+
+		/** The element of each character of the previous word. */
+		private Element[] path = new Element[16];
+
+		/** The previously inserted word. */
+		private String prev = "";
+
+		/** Constructor starting the path at the root table. */
+		SortedPath() {
+			tables[0] = root;
+		}
+
+		/**
+		 * Inserts a lowercase word, resuming at the prefix shared with the previous
+		 * word.
+		 *
+		 * @param word the word to insert.
+		 */
+		void insert(String word) {
+			if (word.isEmpty()) {
+				return;
+			}
+			if (word.length() > path.length) {
+				tables = Arrays.copyOf(tables, word.length() * 2);
+				path = Arrays.copyOf(path, word.length() * 2);
+			}
+
+			// Find the longest prefix shared with the previous word
+			int lcp = 0;
+			int max = Math.min(prev.length(), word.length());
+			while (lcp < max && prev.charAt(lcp) == word.charAt(lcp)) {
+				lcp++;
+			}
+
+			// Insert the remaining characters below the shared prefix
+			for (int d = lcp; d < word.length(); d++) {
+				if (d > 0) {
+					if (path[d - 1].next == null) {
+						path[d - 1].next = new RobinHoodHashing(root.config);
+					}
+					tables[d] = path[d - 1].next;
+				}
+				path[d] = tables[d].insertKey(word.charAt(d), d);
+			}
+
+			Element last = path[word.length() - 1];
+			if (last.wl != word.length()) {
+				last.wl = word.length();
+				last.id = ids.add(word);
+				for (int d = 0; d < word.length(); d++) {
+					path[d].count++;
+				}
+				added(word);
+			}
+			prev = word;
+		}
+	}
+
+	/**
+	 * Deletes a word from the Trie. Tables along the path are cleaned up so the
+	 * structure stays as compact as after building it without the word.
+	 *
+	 * @param word the word to delete.
+	 * @return {@code true} if the word was found and deleted, {@code false}
+	 *         otherwise.
+	 */
+	public boolean delete(String word) {
+		if (word == null) {
+			return false;
+		}
+		word = word.toLowerCase();
+		if (!root.deleteWord(word, 0, ids)) {
+			return false;
+		}
+		words--;
+		modifications++;
+		ImportanceLog current = log;
+		if (current != null) {
+			current.reset(word, this);
+		}
+		return true;
+	}
+
+	/**
+	 * Returns the number of distinct words stored in the Trie.
+	 *
+	 * @return the number of words.
+	 */
+	public int getWordCount() {
+		return words;
+	}
+
+	/**
+	 * Searches for a word in the Trie.
+	 *
+	 * @param word the word to search for.
+	 * @return {@code true} if the word is found, {@code false} otherwise.
+	 */
+	public boolean search(String word) {
+		if (word == null) {
+			return false;
+		}
+		word = word.toLowerCase();
+		if (!mightContain(word)) {
+			return false;
+		}
+		boolean found = root.searchWord(word, 0);
+		if (found && accessCounts) {
+			root.recordAccess(word, 0);
+		}
+		return found;
+	}
+
+	/**
+	 * Retrieves the importance score of a word. While importance decays, this is
+	 * the decayed score of the current epoch, at most {@link #MAX_DECAY_SCORE},
+	 * see {@link #enableDecay(int)}.
+	 *
+	 * @param word the word whose importance is to be retrieved.
+	 * @return the importance score of the word, or 0 if the word is not found.
+	 */
+	public int importance(String word) {
+		int id = wordId(word);
+		return id < 0 ? 0 : ids.importance(id);
+	}
+
+	/**
+	 * Increments the importance score of a word.
+	 *
+	 * @param word the word whose importance is to be incremented.
+	 */
+	public void incImp(String word) {
+		int id = wordId(word);
+		if (id >= 0) {
+			incImp(id);
+		}
+	}
+
+	/**
+	 * Returns the dense id of a word. Every stored word has an id below
+	 * {@link #getWordIdLimit()} for as long as it is stored; the ids of deleted
+	 * words are given to later insertions.
+	 *
+	 * @param word the word.
+	 * @return the id of the word, or -1 if the word is not stored.
+	 */
+	public int wordId(String word) {
+		if (word == null) {
+			return -1;
+		}
+		word = word.toLowerCase();
+		if (!mightContain(word)) {
+			return -1;
+		}
+		int id = root.wordId(word, 0);
+		if (id >= 0 && accessCounts) {
+			root.recordAccess(word, 0);
+		}
+		return id;
+	}
+
+	/**
+	 * Counts the stored words starting with a prefix from the subtree counts of
+	 * the elements, in time proportional to the length of the prefix.
+	 *
+	 * @param prefix the prefix, the empty prefix counts all words.
+	 * @return the number of words with the prefix, 0 if the prefix has a
+	 *         character outside a-z.
+	 */
+	public int countPrefix(String prefix) {
+		if (prefix == null) {
+			return 0;
+		}
+		prefix = prefix.toLowerCase();
+		return prefix.isEmpty() ? words : root.countPrefix(prefix, 0);
+	}
+
+	/**
+	 * Counts the stored words that sort before a word, in time proportional to
+	 * the length of the word. The rank of a prefix is the position of the first
+	 * word starting with it, so together with {@link #countPrefix(String)} it
+	 * gives the positions of all completions of the prefix.
+	 *
+	 * @param word the word, which need not be stored and may contain characters
+	 *             outside a-z, which sort like in {@link String#compareTo}.
+	 * @return the number of smaller words.
+	 */
+	public int rank(String word) {
+		if (word == null || word.isEmpty()) {
+			return 0;
+		}
+		return root.rank(word.toLowerCase(), 0);
+	}
+
+	/**
+	 * Returns the stored word at a position in sorted order, in time proportional
+	 * to the length of the word. Pages of completions are selected from
+	 * {@link #rank(String)} of their prefix onwards.
+	 *
+	 * @param index the position, counting from 0.
+	 * @return the word, or {@code null} if the position is out of range.
+	 */
+	public String select(int index) {
+		if (index < 0 || index >= words) {
+			return null;
+		}
+		return root.select(index, "");
+	}
+
+	/**
+	 * Returns the word of an id.
+	 *
+	 * @param id the id of the word.
+	 * @return the word, or {@code null} if no word has the id.
+	 */
+	public String wordAt(int id) {
+		return ids.word(id);
+	}
+
+	/**
+	 * Inserts a word into a heap by its id, which is resolved to the word only if
+	 * it is retrieved from the heap.
+	 *
+	 * @param minHeap the heap receiving the word.
+	 * @param id      the id of a stored word.
+	 */
+	void insertById(Heap minHeap, int id) {
+		minHeap.insert(ids, id, ids.importance(id));
+	}
+
+	/**
+	 * Retrieves the importance score of a word by its id.
+	 *
+	 * @param id the id of a stored word.
+	 * @return the importance score of the word.
+	 */
+	public int importance(int id) {
+		return ids.importance(id);
+	}
+
+	/**
+	 * Increments the importance score of a word by its id.
+	 *
+	 * @param id the id of a stored word.
+	 */
+	public void incImp(int id) {
+		ids.increment(id);
+		ImportanceLog current = log;
+		if (current != null) {
+			current.append(ids.word(id), 1, this);
+		}
+	}
+
+	/**
+	 * Sets the importance of a word by its id without logging it, as done when
+	 * the importance is recovered from an {@link ImportanceLog}.
+	 *
+	 * @param id         the id of a stored word.
+	 * @param importance the new importance.
+	 */
+	void setImportance(int id, int importance) {
+		ids.set(id, importance);
+	}
+
+	/**
+	 * Returns the bound of the word ids. All ids are below it and at most the
+	 * number of deleted words are unused, so arrays indexed by id stay dense.
+	 *
+	 * @return the id limit.
+	 */
+	public int getWordIdLimit() {
+		return ids.limit();
+	}
+
+	/**
+	 * Tests a lowercase word against the filter.
+	 *
+	 * @param word the lowercase word.
+	 * @return {@code false} if the word is certainly not stored, {@code true} if
+	 *         it may be or no filter is enabled.
+	 */
+	private boolean mightContain(String word) {
+		BloomFilter current = filter;
+		return current == null || current.mightContain(word);
+	}
+
+	/** The result of a batch lookup, indexed like the words of the batch. */
+	public static class BatchResult {
+
+		/** Whether each word is stored in the Trie. */
+		public final boolean[] found;
+
+		/** The id of each word, or -1 if the word is not stored. */
+		public final int[] ids;
+
+		/** The importance of each word, or 0 if the word is not stored. */
+		public final int[] importance;
+
+		/**
+		 * Constructor for the result of a batch of the given size.
+		 *
+		 * @param size the number of words in the batch.
+		 */
+		BatchResult(int size) {
+			found = new boolean[size];
+			ids = new int[size];
+			importance = new int[size];
+			Arrays.fill(ids, -1);
+		}
+	}
+
+	/**
+	 * Looks up a batch of words. The words are sorted so that words sharing a
+	 * prefix are resolved by a single walk through its tables.
+	 *
+	 * @param words the words to look up, {@code null} entries and words that are
+	 *              not made of letters a-z only are not found.
+	 * @return the presence, id and importance of each word.
+	 */
+	public BatchResult searchBatch(String[] words) {
+		return batch(words, false);
+	}
+
+	/**
+	 * Increments the importance of every stored word of a batch, once per
+	 * occurrence. The words are sorted so that words sharing a prefix are resolved
+	 * by a single walk through its tables.
+	 *
+	 * @param words the words whose importance is incremented, {@code null}
+	 *              entries and words that are not made of letters a-z only are
+	 *              not found.
+	 * @return the presence and the incremented importance of each word.
+	 */
+	public BatchResult incImpBatch(String[] words) {
+		return batch(words, true);
+	}
+
+	/**
+	 * Sorts a batch of words, resolves their ids in one pass over the Trie, then
+	 * reads or increments their importance in the id array and maps the results
+	 * back to the order of the batch.
+	 *
+	 * @param words     the words of the batch.
+	 * @param increment whether the importance of the stored words is incremented.
+	 * @return the presence and importance of each word.
+	 */
+	private BatchResult batch(String[] words, boolean increment) {
+		// Sort the positions of the valid words by word, a word that filterWord
+		// rejects or would have to trim cannot be stored
+		String[] lower = new String[words.length];
+		Integer[] order = new Integer[words.length];
+		int count = 0;
+		for (int i = 0; i < words.length; i++) {
+			if (words[i] != null) {
+				lower[i] = filterWord(words[i]);
+				if (lower[i] != null && lower[i].length() == words[i].length() && mightContain(lower[i])) {
+					order[count++] = i;
+				}
+			}
+		}
+		Arrays.sort(order, 0, count, (a, b) -> lower[a].compareTo(lower[b]));
+
+		String[] sorted = new String[count];
+		for (int i = 0; i < count; i++) {
+			sorted[i] = lower[order[i]];
+		}
+
+		int[] found = new int[count];
+		Arrays.fill(found, -1);
+		root.lookupBatch(sorted, 0, count, 0, found);
+
+		BatchResult result = new BatchResult(words.length);
+		ImportanceLog current = increment ? log : null;
+		boolean counting = accessCounts;
+		for (int i = 0; i < count; i++) {
+			int id = found[i];
+			if (id >= 0) {
+				if (counting) {
+					root.recordAccess(sorted[i], 0);
+				}
+				result.found[order[i]] = true;
+				result.ids[order[i]] = id;
+				result.importance[order[i]] = increment ? ids.increment(id) : ids.importance(id);
+				if (current != null) {
+					current.append(sorted[i], 1, this);
+				}
+			}
+		}
+
+		// The increments of a batch are committed to the log as one group
+		if (current != null) {
+			current.commit(this);
+		}
+		return result;
+	}
+
+	/**
+	 * Retrieves all words in the Trie that start with a given prefix.
+	 *
+	 * @param minHeap the heap to store suggested words.
+	 * @param word    the prefix to search for.
+	 * @param k       the maximum number of suggestions.
+	 */
+	public void getPrefixWords(Heap minHeap, String word, int k) {
+		if (!search(word.toLowerCase())) {
+			System.out.println("Word " + word.toLowerCase() + " not found!");
+			return;
+		}
+		prefixWords(minHeap, word, k);
+	}
+
+	/**
+	 * Collects the words starting with a stored word, recording the latency of
+	 * the phase if metrics are enabled.
+	 *
+	 * @param minHeap the heap to store suggested words.
+	 * @param word    the stored prefix.
+	 * @param k       the maximum number of suggestions.
+	 */
+	private void prefixWords(Heap minHeap, String word, int k) {
+		long start = metrics != null ? System.nanoTime() : 0;
+		long[] counters = metrics != null ? new long[2] : null;
+		root.reachWordPrefix(minHeap, word, k, 0, counters, ids);
+		if (counters != null) {
+			record(prefixLatency, start, counters);
+		}
+	}
+
+	/**
+	 * Retrieves all words in the Trie that are of the same length as the given
+	 * word.
+	 *
+	 * @param minHeap the heap to store suggested words.
+	 * @param word    the word to compare lengths with.
+	 * @param k       the maximum number of suggestions.
+	 */
+	public void getSameLengthWords(Heap minHeap, String word, int k) {
+		if (!search(word.toLowerCase())) {
+			System.out.println("Word " + word.toLowerCase() + " not found!");
+			return;
+		}
+		similarWords(minHeap, word, k, true);
+	}
+
+	/**
+	 * Collects the words similar to a stored word, recording the latency of the
+	 * phase if metrics are enabled.
+	 *
+	 * @param minHeap the heap to store suggested words.
+	 * @param word    the stored word.
+	 * @param k       the maximum number of suggestions.
+	 * @param same    whether the words of the same length are collected, or
+	 *                those slightly shorter or longer.
+	 */
+	private void similarWords(Heap minHeap, String word, int k, boolean same) {
+		long start = metrics != null ? System.nanoTime() : 0;
+		long[] counters = metrics != null ? new long[2] : null;
+		ForkJoinPool pool = parallelPool;
+		if (pool != null && words >= parallelThreshold) {
+			root.parallelScan(pool, minHeap, word, k, same, counters, ids);
+		} else if (same) {
+			root.getSameLengthWords(minHeap, word, k, 0, "", counters, ids);
+		} else {
+			root.getDiffLengthWords(minHeap, word, k, 0, "", counters, ids);
+		}
+		if (counters != null) {
+			record(same ? sameLengthLatency : diffLengthLatency, start, counters);
+		}
+	}
+
+	/**
+	 * Retrieves all words in the Trie that are slightly shorter or longer than the
+	 * given word.
+	 *
+	 * @param minHeap the heap to store suggested words.
+	 * @param word    the word to compare lengths with.
+	 * @param k       the maximum number of suggestions.
+	 */
+	public void getDiffLengthWords(Heap minHeap, String word, int k) {
+		if (!search(word.toLowerCase())) {
+			System.out.println("Word " + word.toLowerCase() + " not found!");
+			return;
+		}
+		similarWords(minHeap, word, k, false);
+	}
+
+	/**
+	 * Collects the suggestion candidates of a word into a heap like
+	 * {@link #suggest(String, int)}, but without requiring the word to be stored.
+	 * The shards of a {@link ShardedTrie} that do not own a word still hold some
+	 * of its candidates.
+	 *
+	 * @param minHeap the heap to store the candidates by importance.
+	 * @param word    the word to suggest for.
+	 * @param k       the maximum number of suggestions.
+	 * @param prefix  whether the completions of the word are collected.
+	 * @param similar whether the words of similar length are collected.
+	 */
+	void collectSuggestions(Heap minHeap, String word, int k, boolean prefix, boolean similar) {
+		String lower = word.toLowerCase();
+		if (lower.isEmpty()) {
+			return;
+		}
+		if (prefix) {
+			root.reachWordPrefix(minHeap, lower, k, 0, null, ids);
+		}
+		ForkJoinPool pool = parallelPool;
+		if (!similar) {
+			return;
+		} else if (pool != null && words >= parallelThreshold) {
+			root.parallelScan(pool, minHeap, lower, k, true, null, ids);
+			root.parallelScan(pool, minHeap, lower, k, false, null, ids);
+		} else {
+			root.getSameLengthWords(minHeap, lower, k, 0, "", null, ids);
+			root.getDiffLengthWords(minHeap, lower, k, 0, "", null, ids);
+		}
+	}
+
+	/**
+	 * Answers infix queries with a suffix array over the stored words. The index
+	 * is built now and rebuilt by the first infix query after words were
+	 * inserted or deleted.
+	 */
+	public void enableSubstringIndex() {
+		substringsEnabled = true;
+		substringIndex();
+	}
+
+	/** Drops the substring index, so infix queries scan all words. */
+	public void disableSubstringIndex() {
+		substringsEnabled = false;
+		substrings = null;
+	}
+
+	/**
+	 * Returns the substring index of the current words, rebuilding it if words
+	 * changed since it was built.
+	 *
+	 * @return the index, or {@code null} if it is disabled.
+	 */
+	public SubstringIndex substringIndex() {
+		if (!substringsEnabled) {
+			return null;
+		}
+		SubstringIndex index = substrings;
+		if (index == null || index.modifications != modifications) {
+			index = SubstringIndex.build(this, modifications);
+			substrings = index;
+		}
+		return index;
+	}
+
+	/**
+	 * Retrieves the words containing an infix, such as {@code tion}. With the
+	 * substring index enabled only the matching suffixes are visited, otherwise
+	 * all words are scanned.
+	 *
+	 * @param minHeap the heap to store the matching words by importance.
+	 * @param infix   the infix, the empty infix matches no word.
+	 * @param k       the maximum number of words.
+	 */
+	public void getInfixWords(Heap minHeap, String infix, int k) {
+		if (infix == null || infix.isEmpty() || infix.indexOf(0) >= 0) {
+			return;
+		}
+		String lower = infix.toLowerCase();
+		SubstringIndex index = substringIndex();
+		if (index != null) {
+			index.getInfixWords(this, minHeap, lower);
+			return;
+		}
+		for (WordNode node : collectWords()) {
+			if (node.word.contains(lower)) {
+				minHeap.insert(node.word, node.importance);
+			}
+		}
+	}
+
+	/**
+	 * Returns the k most important words containing an infix.
+	 *
+	 * @param infix the infix.
+	 * @param k     the maximum number of words.
+	 * @return the matching words with the highest importance.
+	 */
+	public String[] containing(String infix, int k) {
+		Heap minHeap = new Heap(k);
+		getInfixWords(minHeap, infix, k);
+		return minHeap.getTopKWords();
 	}
 
 	/**
-	 * Inserts a word into the Trie.
+	 * Retrieves the words matching a glob pattern such as {@code c?t},
+	 * {@code ca*} or {@code [bc]at}, see {@link GlobPattern} for the syntax.
 	 *
-	 * @param word the word to insert.
+	 * @param minHeap the heap to store the matching words by importance.
+	 * @param pattern the pattern.
+	 * @param k       the maximum number of words.
+	 * @throws IllegalArgumentException if the pattern is malformed.
 	 */
-	public void insert(String word) {
-		word = word.toLowerCase();
-		root.insertWord(word, 0);
+	public void getPatternWords(Heap minHeap, String pattern, int k) {
+		getPatternWords(minHeap, GlobPattern.compile(pattern), k);
 	}
 
 	/**
-	 * Searches for a word in the Trie.
+	 * Retrieves the words matching a compiled glob pattern. Only the branches of
+	 * the Trie that can still match the pattern are walked.
 	 *
-	 * @param word the word to search for.
-	 * @return {@code true} if the word is found, {@code false} otherwise.
+	 * @param minHeap the heap to store the matching words by importance.
+	 * @param pattern the pattern.
+	 * @param k       the maximum number of words.
 	 */
-	public boolean search(String word) {
-		if (word == null) {
-			return false;
+	public void getPatternWords(Heap minHeap, GlobPattern pattern, int k) {
+		long start = metrics != null ? System.nanoTime() : 0;
+		long[] counters = metrics != null ? new long[2] : null;
+		if (pattern.canContinue(pattern.start())) {
+			root.getPatternWords(minHeap, pattern, pattern.start(), "", counters, ids);
+		}
+		if (counters != null) {
+			record(patternLatency, start, counters);
 		}
-		word = word.toLowerCase();
-		return root.searchWord(word, 0);
 	}
 
 	/**
-	 * Retrieves the importance score of a word.
+	 * Returns the k most important words matching a glob pattern.
 	 *
-	 * @param word the word whose importance is to be retrieved.
-	 * @return the importance score of the word, or 0 if the word is not found.
+	 * @param pattern the pattern.
+	 * @param k       the maximum number of words.
+	 * @return the matching words with the highest importance.
+	 * @throws IllegalArgumentException if the pattern is malformed.
 	 */
-	public int importance(String word) {
-		if (!search(word)) {
-			return 0;
+	public String[] match(String pattern, int k) {
+		Heap minHeap = new Heap(k);
+		getPatternWords(minHeap, pattern, k);
+		return minHeap.getTopKWords();
+	}
+
+	/**
+	 * Runs the complete suggestion pipeline for a word: prefix words, same-length
+	 * words and different-length words are collected into a heap and the top k
+	 * words are extracted. Nothing is printed for a word that is not stored.
+	 *
+	 * @param word the word to suggest for.
+	 * @param k    the maximum number of suggestions.
+	 * @return the suggested words, empty if the word is not stored.
+	 */
+	public String[] suggest(String word, int k) {
+		if (!search(word.toLowerCase())) {
+			return new String[0];
 		}
-		word = word.toLowerCase();
-		return root.importance(word, 0);
+		SlowQueryEvent event = new SlowQueryEvent();
+		event.begin();
+		long start = System.nanoTime();
+
+		Heap minHeap = new Heap(k);
+		prefixWords(minHeap, word, k);
+		similarWords(minHeap, word, k, true);
+		similarWords(minHeap, word, k, false);
+
+		long extract = metrics != null ? System.nanoTime() : 0;
+		String[] words = minHeap.getTopKWords();
+
+		long end = System.nanoTime();
+		if (metrics != null) {
+			extractLatency.record(end - extract);
+			suggestLatency.record(end - start);
+		}
+
+		// Report slow queries to Flight Recorder
+		if (end - start >= slowQueryNanos && event.shouldCommit()) {
+			event.word = word;
+			event.k = k;
+			event.results = words.length;
+			event.threshold = slowQueryNanos;
+			event.commit();
+		}
+		return words;
 	}
 
 	/**
-	 * Increments the importance score of a word.
+	 * Sets the latency above which suggestion queries are reported to Flight
+	 * Recorder as {@code HW.SlowQuery} events.
 	 *
-	 * @param word the word whose importance is to be incremented.
+	 * @param nanos the threshold in nanoseconds.
 	 */
-	public void incImp(String word) {
-		if (!search(word)) {
+	public void setSlowQueryThreshold(long nanos) {
+		slowQueryNanos = nanos;
+	}
+
+	/**
+	 * Enables the collection of query metrics. Latencies of the query phases and
+	 * the work done by queries are recorded into the registry returned by
+	 * {@link #getMetrics()}.
+	 */
+	public void enableMetrics() {
+		if (metrics != null) {
 			return;
 		}
-		word = word.toLowerCase();
-		root.incImportance(word, 0);
+		Metrics registry = new Metrics();
+		prefixLatency = registry.histogram("query.prefix.ns");
+		sameLengthLatency = registry.histogram("query.sameLength.ns");
+		diffLengthLatency = registry.histogram("query.diffLength.ns");
+		patternLatency = registry.histogram("query.pattern.ns");
+		extractLatency = registry.histogram("query.extract.ns");
+		suggestLatency = registry.histogram("query.suggest.ns");
+		nodesVisited = registry.counter("query.nodesVisited");
+		candidatesTested = registry.counter("query.candidatesTested");
+		metrics = registry;
+	}
+
+	/** Disables the collection of query metrics and drops the recorded values. */
+	public void disableMetrics() {
+		metrics = null;
 	}
 
 	/**
-	 * Retrieves all words in the Trie that start with a given prefix.
+	 * Runs the same-length and different-length scans of tries with at least
+	 * {@link #PARALLEL_THRESHOLD} words on the common fork/join pool.
+	 */
+	public void enableParallelSearch() {
+		enableParallelSearch(ForkJoinPool.commonPool(), PARALLEL_THRESHOLD);
+	}
+
+	/**
+	 * Runs the same-length and different-length scans in parallel once the Trie
+	 * holds enough words. Each scan is split by the entries of the root table,
+	 * every task collects its own top k words and the results are merged, so
+	 * suggestions may order words of equal importance differently than a
+	 * sequential scan. Smaller tries keep scanning sequentially, where the tasks
+	 * would cost more than they save.
 	 *
-	 * @param minHeap the heap to store suggested words.
-	 * @param word    the prefix to search for.
-	 * @param k       the maximum number of suggestions.
+	 * @param pool      the pool running the scan tasks.
+	 * @param threshold the number of words from which scans run in parallel.
 	 */
-	public void getPrefixWords(Heap minHeap, String word, int k) {
-		if (!search(word.toLowerCase())) {
-			System.out.println("Word " + word.toLowerCase() + " not found!");
-			return;
+	public void enableParallelSearch(ForkJoinPool pool, int threshold) {
+		parallelThreshold = threshold;
+		parallelPool = pool;
+	}
+
+	/** Runs all scans sequentially on the querying thread. */
+	public void disableParallelSearch() {
+		parallelPool = null;
+	}
+
+	/**
+	 * Builds a Bloom filter of the stored words and keeps it up to date on every
+	 * insertion, including those of {@link #readDictionary(String)}. Searches,
+	 * importance lookups and updates consult the filter first, so most words that
+	 * are not stored are rejected after hashing them once, without walking the
+	 * tables. Deleted words stay in the filter until it is rebuilt, which only
+	 * costs them the full walk. Enabling the filter before reading the dictionary
+	 * builds it during the read.
+	 */
+	public void enableBloomFilter() {
+		filter = buildFilter(2 * words);
+		filterShared = false;
+	}
+
+	/** Drops the Bloom filter, so every lookup walks the tables. */
+	public void disableBloomFilter() {
+		filter = null;
+	}
+
+	/**
+	 * Returns the Bloom filter of the stored words.
+	 *
+	 * @return the filter, or {@code null} if it is disabled.
+	 */
+	public BloomFilter getBloomFilter() {
+		return filter;
+	}
+
+	/**
+	 * Builds a filter holding all stored words.
+	 *
+	 * @param capacity the number of words the filter is sized for.
+	 * @return the filter.
+	 */
+	private BloomFilter buildFilter(int capacity) {
+		BloomFilter built = new BloomFilter(capacity);
+		for (WordNode node : collectWords()) {
+			built.add(node.word);
 		}
-		root.reachWordPrefix(minHeap, word, k, 0);
+		return built;
 	}
 
 	/**
-	 * Retrieves all words in the Trie that are of the same length as the given
-	 * word.
+	 * Recovers the importance of the stored words from a log directory and logs
+	 * every later importance update there, with the default group size and
+	 * checkpoint interval. See {@link #enableImportanceLog(String, int, long)}.
 	 *
-	 * @param minHeap the heap to store suggested words.
-	 * @param word    the word to compare lengths with.
-	 * @param k       the maximum number of suggestions.
+	 * @param directory the directory of the log.
+	 * @return what recovery found in the directory.
+	 * @throws IOException if the log cannot be read or written.
 	 */
-	public void getSameLengthWords(Heap minHeap, String word, int k) {
-		if (!search(word.toLowerCase())) {
-			System.out.println("Word " + word.toLowerCase() + " not found!");
-			return;
+	public ImportanceLog.Recovery enableImportanceLog(String directory) throws IOException {
+		return enableImportanceLog(directory, ImportanceLog.DEFAULT_GROUP, ImportanceLog.DEFAULT_CHECKPOINT_INTERVAL);
+	}
+
+	/**
+	 * Recovers the importance of the stored words from a log directory and logs
+	 * every later importance update there. The dictionary must be read first,
+	 * without the text: recovery restores the importance the text gave before
+	 * by loading the last checkpoint and replaying the log written since.
+	 * Updates are committed in groups, one per {@link #incImpBatch} call and
+	 * one per {@code groupSize} distinct words of single updates, and a
+	 * checkpoint is written every {@code checkpointInterval} committed records.
+	 *
+	 * @param directory          the directory of the log, created if missing.
+	 * @param groupSize          the distinct words after which single updates
+	 *                           are committed.
+	 * @param checkpointInterval the committed records after which a checkpoint
+	 *                           is written.
+	 * @return what recovery found in the directory.
+	 * @throws IOException           if the log cannot be read or written, or is
+	 *                               corrupt.
+	 * @throws IllegalStateException if importance decays.
+	 */
+	public ImportanceLog.Recovery enableImportanceLog(String directory, int groupSize, long checkpointInterval)
+			throws IOException {
+		if (ids.halfLife() > 0) {
+			throw new IllegalStateException("Decaying importance cannot be logged");
 		}
-		root.getSameLengthWords(minHeap, word, k, 0, "");
+		disableImportanceLog();
+		ImportanceLog opened = ImportanceLog.open(new File(directory), this, groupSize, checkpointInterval);
+		log = opened;
+		return opened.getRecovery();
 	}
 
 	/**
-	 * Retrieves all words in the Trie that are slightly shorter or longer than the
-	 * given word.
+	 * Commits the pending importance updates to the log, so they survive a
+	 * crash.
 	 *
-	 * @param minHeap the heap to store suggested words.
-	 * @param word    the word to compare lengths with.
-	 * @param k       the maximum number of suggestions.
+	 * @throws UncheckedIOException if the log cannot be written.
 	 */
-	public void getDiffLengthWords(Heap minHeap, String word, int k) {
-		if (!search(word.toLowerCase())) {
-			System.out.println("Word " + word.toLowerCase() + " not found!");
-			return;
+	public void commitImportanceLog() {
+		ImportanceLog current = log;
+		if (current != null) {
+			current.commit(this);
+		}
+	}
+
+	/**
+	 * Writes a checkpoint of the importance of all words now, so a recovery
+	 * replays no log written before it.
+	 *
+	 * @throws UncheckedIOException if the checkpoint cannot be written.
+	 */
+	public void checkpointImportance() {
+		ImportanceLog current = log;
+		if (current != null) {
+			current.checkpoint(this);
+		}
+	}
+
+	/**
+	 * Commits the pending importance updates and stops logging them.
+	 *
+	 * @throws IOException if the log cannot be written or closed.
+	 */
+	public void disableImportanceLog() throws IOException {
+		ImportanceLog current = log;
+		if (current != null) {
+			log = null;
+			try {
+				current.commit(this);
+			} catch (UncheckedIOException e) {
+				current.close();
+				throw e.getCause();
+			}
+			current.close();
+		}
+	}
+
+	/**
+	 * Returns the log of the importance updates.
+	 *
+	 * @return the log, or {@code null} if updates are not logged.
+	 */
+	public ImportanceLog getImportanceLog() {
+		return log;
+	}
+
+	/**
+	 * Makes importance decay exponentially over epochs, so recent occurrences
+	 * outweigh old ones in every ranking. The importance of a word becomes a
+	 * score of {@link #DECAY_SCALE} per occurrence, halved every
+	 * {@code halfLife} epochs. Each score remembers the epoch of its last update
+	 * and is decayed only when it is read or incremented, so advancing the epoch
+	 * costs nothing and no word is rewritten until it is touched.
+	 *
+	 * <p>
+	 * Scores are ints and saturate at {@link #MAX_DECAY_SCORE}: a word whose
+	 * decayed score would exceed {@link #MAX_DECAY_OCCURRENCES} occurrences
+	 * keeps that score instead of wrapping, including a count above it when
+	 * decay is enabled. With a half-life of {@code h} epochs a word stays below
+	 * the limit as long as it occurs fewer than about
+	 * {@code MAX_DECAY_OCCURRENCES * (1 - 0.5^(1/h))} times per epoch.
+	 *
+	 * @param halfLife the number of epochs after which a score has halved.
+	 * @throws IllegalArgumentException if the half-life is not positive.
+	 * @throws IllegalStateException    if importance updates are logged.
+	 */
+	public void enableDecay(int halfLife) {
+		if (halfLife < 1) {
+			throw new IllegalArgumentException("Half-life must be positive: " + halfLife);
+		}
+		if (log != null) {
+			throw new IllegalStateException("Logged importance cannot decay");
+		}
+		ids.enableDecay(halfLife);
+	}
+
+	/**
+	 * Stops the decay of importance. The decayed scores of the current epoch
+	 * are rounded back to occurrences.
+	 */
+	public void disableDecay() {
+		ids.disableDecay();
+	}
+
+	/**
+	 * Returns the number of epochs after which importance has halved.
+	 *
+	 * @return the half-life, or 0 if importance does not decay.
+	 */
+	public int getDecayHalfLife() {
+		return ids.halfLife();
+	}
+
+	/** Advances the epoch of the decay by one, for example once an hour. */
+	public void advanceEpoch() {
+		advanceEpoch(1);
+	}
+
+	/**
+	 * Advances the epoch of the decay. No score is touched, each one decays when
+	 * it is next read or incremented.
+	 *
+	 * @param epochs the number of epochs to advance by.
+	 * @throws IllegalArgumentException if the number of epochs is negative.
+	 */
+	public void advanceEpoch(int epochs) {
+		if (epochs < 0) {
+			throw new IllegalArgumentException("Epochs must not be negative: " + epochs);
 		}
-		root.getDiffLengthWords(minHeap, word, k, 0, "");
+		ids.advanceEpoch(epochs);
+	}
+
+	/**
+	 * Returns the current epoch of the decay.
+	 *
+	 * @return the number of epochs advanced so far.
+	 */
+	public int getEpoch() {
+		return ids.epoch();
+	}
+
+	/**
+	 * Returns the registry holding the query metrics.
+	 *
+	 * @return the metrics, or {@code null} if metrics are disabled.
+	 */
+	public Metrics getMetrics() {
+		return metrics;
+	}
+
+	/**
+	 * Records the latency and counters of one query phase.
+	 *
+	 * @param latency  the histogram of the phase.
+	 * @param start    the start time of the phase in nanoseconds.
+	 * @param counters the counters collected by the phase.
+	 */
+	private void record(Histogram latency, long start, long[] counters) {
+		latency.record(System.nanoTime() - start);
+		nodesVisited.add(counters[RobinHoodHashing.VISITED]);
+		candidatesTested.add(counters[RobinHoodHashing.TESTED]);
 	}
 
 	/**
@@ -127,18 +1252,24 @@ public class RobinHoodTrie extends Element {
 	public void readDictionary(String inFile) throws FileNotFoundException {
 		File input = new File(inFile);
 		Scanner scan = new Scanner(input);
+		IngestionEvent event = startBatch(inFile, "dictionary", 0);
+		long total = 0;
 		while (scan.hasNext()) {
 			String buffer = scan.next();
 			if (filterWord(buffer) != null) {
 				insert(filterWord(buffer));
+				event.wordsAccepted++;
 			}
+			event = nextBatch(event, ++total);
 		}
 		scan.close();
+		finishResizes();
+		endBatch(event, total);
 	}
 
 	/**
 	 * Reads a text file and increments the importance of all valid words in the
-	 * Trie.
+	 * Trie. The words are applied in batches sharing their prefix walks.
 	 *
 	 * @param textFile the file path of the text.
 	 * @throws FileNotFoundException if the file cannot be found.
@@ -146,13 +1277,73 @@ public class RobinHoodTrie extends Element {
 	public void insertText(String textFile) throws FileNotFoundException {
 		File text = new File(textFile);
 		Scanner scan = new Scanner(text);
+		IngestionEvent event = startBatch(textFile, "text", 0);
+		String[] batch = new String[INGESTION_BATCH];
+		int count = 0;
+		long total = 0;
 		while (scan.hasNext()) {
-			String buffer = scan.next();
-			if (filterWord(buffer) != null) {
-				incImp(filterWord(buffer));
+			String buffer = filterWord(scan.next());
+			if (buffer != null) {
+				batch[count++] = buffer;
+				event.wordsAccepted++;
 			}
+
+			// Apply the importance updates of each complete batch together
+			if (++total % INGESTION_BATCH == 0) {
+				incImpBatch(Arrays.copyOf(batch, count));
+				count = 0;
+			}
+			event = nextBatch(event, total);
 		}
 		scan.close();
+		incImpBatch(Arrays.copyOf(batch, count));
+		endBatch(event, total);
+	}
+
+	/**
+	 * Starts the Flight Recorder event of an ingestion batch.
+	 *
+	 * @param file  the file being read.
+	 * @param phase the kind of file, either dictionary or text.
+	 * @param batch the index of the batch.
+	 * @return the started event.
+	 */
+	private static IngestionEvent startBatch(String file, String phase, int batch) {
+		IngestionEvent event = new IngestionEvent();
+		event.file = file;
+		event.phase = phase;
+		event.batch = batch;
+		event.begin();
+		return event;
+	}
+
+	/**
+	 * Commits the current batch once it is complete and starts the next one.
+	 *
+	 * @param event the event of the current batch.
+	 * @param total the number of tokens read from the file so far.
+	 * @return the event of the batch receiving the next token.
+	 */
+	private static IngestionEvent nextBatch(IngestionEvent event, long total) {
+		if (total % INGESTION_BATCH != 0) {
+			return event;
+		}
+		endBatch(event, total);
+		return startBatch(event.file, event.phase, event.batch + 1);
+	}
+
+	/**
+	 * Commits the event of an ingestion batch if it read any token.
+	 *
+	 * @param event the event of the batch.
+	 * @param total the number of tokens read from the file so far.
+	 */
+	private static void endBatch(IngestionEvent event, long total) {
+		event.wordsRead = (int) (total - (long) event.batch * INGESTION_BATCH);
+		event.totalWords = total;
+		if (event.wordsRead > 0 && event.shouldCommit()) {
+			event.commit();
+		}
 	}
 
 	/**
@@ -161,7 +1352,7 @@ public class RobinHoodTrie extends Element {
 	 * @param input the word to filter.
 	 * @return the filtered word, or {@code null} if the word is invalid.
 	 */
-	private static String filterWord(String input) {
+	static String filterWord(String input) {
 		String output = "";
 		input = input.toLowerCase();
 		int i = input.length() - 1;
@@ -186,13 +1377,99 @@ public class RobinHoodTrie extends Element {
 	}
 
 	/**
-	 * Calculates the memory usage of the Trie by traversing all nodes.
+	 * Right-sizes every table of the Trie with the default target maximum probe
+	 * length of {@value #COMPACT_MAX_PROBE}.
+	 */
+	public void compact() {
+		compact(COMPACT_MAX_PROBE);
+	}
+
+	/**
+	 * Right-sizes every table of the Trie after loading. Each table is rebuilt at
+	 * the smallest capacity that keeps its maximum probe length within the target
+	 * and empty leaf tables are dropped. Tables still grow normally on later
+	 * insertions.
+	 *
+	 * @param maxProbe the target maximum probe length.
+	 */
+	public void compact(int maxProbe) {
+		root.compact(maxProbe);
+	}
+
+	/**
+	 * Counts the accesses of every table element on the path of each word found
+	 * by {@link #search(String)}, {@link #wordId(String)} or a batch of
+	 * {@link #searchBatch(String[])} and {@link #incImpBatch(String[])},
+	 * including the batches of {@link #insertText(String)}, so that
+	 * {@link #reorderByAccesses()} can move the hot keys of each table to their
+	 * home slots. Counting walks the path of a found word a second time. A new
+	 * version of a {@link VersionedTrie} starts without counting, since its
+	 * readers must not write to the tables it shares with other versions; count
+	 * on a Trie before publishing it instead.
+	 */
+	public void enableAccessCounts() {
+		accessCounts = true;
+	}
+
+	/** Stops counting accesses, the counts recorded so far are kept. */
+	public void disableAccessCounts() {
+		accessCounts = false;
+	}
+
+	/**
+	 * Reorders the slots of every table by the accesses counted since
+	 * {@link #enableAccessCounts()}. The most accessed keys of each table are
+	 * placed first, so they sit at their home slot and are found with the
+	 * fewest probes, while rarely accessed keys may end up further from home
+	 * than plain Robin Hood hashing would place them. Later insertions keep
+	 * hot keys ahead of others equally far from home. The counts are halved,
+	 * so repeated passes follow a changing workload.
+	 */
+	public void reorderByAccesses() {
+		root.reorder();
+	}
+
+	/**
+	 * Completes all pending incremental resizes, so the Trie is only read by
+	 * subsequent queries.
+	 */
+	public void finishResizes() {
+		finishDFS(root);
+	}
+
+	/**
+	 * Depth-first traversal of the Trie completing the resize of every table.
+	 *
+	 * @param v the current node being processed.
+	 */
+	private void finishDFS(RobinHoodHashing v) {
+		v.finishMigration();
+		for (int i = 0; i < v.capacity; i++) {
+			if (v.table[i] != null && v.table[i].next != null) {
+				finishDFS(v.table[i].next);
+			}
+		}
+	}
+
+	/**
+	 * Calculates the memory usage of the Trie by traversing all nodes, including
+	 * its word ids and its Bloom filter and substring index if enabled.
 	 *
 	 * @return the total memory size of the Trie.
 	 */
 	public int findMemorySize() {
+		finishResizes();
 		int[] size = { 0 };
 		DFS(root, size);
+		size[0] += (int) ids.findMemorySize();
+		BloomFilter current = filter;
+		if (current != null) {
+			size[0] += (int) current.findMemorySize();
+		}
+		SubstringIndex index = substrings;
+		if (index != null) {
+			size[0] += (int) index.findMemorySize();
+		}
 		return size[0];
 	}
 
@@ -205,6 +1482,9 @@ public class RobinHoodTrie extends Element {
 	private void DFS(RobinHoodHashing v, int[] size) {
 		// Add memory size of the current node
 		size[0] += (3 * 16) + (v.size * (16 * 4));
+		if (v.keys != null) {
+			size[0] += 16 + (v.keys.length * 8); // Memory for the key lane
+		}
 		if (v.table != null) {
 			for (int i = 0; i < v.capacity; i++) {
 				if (v.table[i] != null) {
@@ -216,4 +1496,115 @@ public class RobinHoodTrie extends Element {
 			}
 		}
 	}
+
+	/**
+	 * Collects every word of the Trie with its importance, in no particular
+	 * order.
+	 *
+	 * @return the words.
+	 */
+	List<WordNode> collectWords() {
+		finishResizes();
+		List<WordNode> list = new ArrayList<>();
+		root.collectWords("", list, ids);
+		return list;
+	}
+
+	/**
+	 * Collects the structural statistics of the Trie: tables, elements, load
+	 * factors, rehashes and fanout and probe-length histograms per depth.
+	 *
+	 * @return the statistics.
+	 */
+	public TrieStatistics getStatistics() {
+		finishResizes();
+		return new TrieStatistics(root);
+	}
+
+	/**
+	 * Counts the slots allocated by all tables of the Trie, whether they are used
+	 * or not.
+	 *
+	 * @return the total number of slots.
+	 */
+	public long findSlotCount() {
+		finishResizes();
+		long[] slots = { 0 };
+		slotDFS(root, slots);
+		return slots[0];
+	}
+
+	/**
+	 * Depth-first traversal of the Trie summing the capacities of all tables.
+	 *
+	 * @param v     the current node being processed.
+	 * @param slots an array holding the cumulative number of slots.
+	 */
+	private void slotDFS(RobinHoodHashing v, long[] slots) {
+		slots[0] += v.capacity;
+		for (int i = 0; i < v.capacity; i++) {
+			if (v.table[i] != null && v.table[i].next != null) {
+				slotDFS(v.table[i].next, slots);
+			}
+		}
+	}
+
+	/**
+	 * Calculates the average probe length over all elements of the Trie.
+	 *
+	 * @return the average probe length, or 0 if the Trie is empty.
+	 */
+	public double findAverageProbeLength() {
+		finishResizes();
+		long[] probes = { 0, 0 }; // Sum of probe lengths and number of elements
+		probeDFS(root, probes);
+		return probes[1] == 0 ? 0 : (double) probes[0] / probes[1];
+	}
+
+	/**
+	 * Finds the largest maximum probe length of any table in the Trie.
+	 *
+	 * @return the maximum probe length.
+	 */
+	public int findMaxProbeLength() {
+		finishResizes();
+		int[] max = { 0 };
+		maxProbeDFS(root, max);
+		return max[0];
+	}
+
+	/**
+	 * Depth-first traversal of the Trie summing the probe lengths of all elements.
+	 *
+	 * @param v      the current node being processed.
+	 * @param probes an array holding the probe length sum and element count.
+	 */
+	private void probeDFS(RobinHoodHashing v, long[] probes) {
+		for (int i = 0; i < v.capacity; i++) {
+			if (v.table[i] != null) {
+				probes[0] += v.table[i].probeLength;
+				probes[1]++;
+				if (v.table[i].next != null) {
+					probeDFS(v.table[i].next, probes);
+				}
+			}
+		}
+	}
+
+	/**
+	 * Depth-first traversal of the Trie tracking the largest maximum probe length.
+	 *
+	 * @param v   the current node being processed.
+	 * @param max an array holding the largest maximum probe length found.
+	 */
+	private void maxProbeDFS(RobinHoodHashing v, int[] max) {
+		if (max[0] < v.maxProbeLenght) {
+			max[0] = v.maxProbeLenght;
+		}
+		for (int i = 0; i < v.capacity; i++) {
+			if (v.table[i] != null && v.table[i].next != null) {
+				maxProbeDFS(v.table[i].next, max);
+			}
+		}
+	}
 }
@@ -0,0 +1,190 @@
+package HW;
+
+import java.io.FileNotFoundException;
+import java.io.PrintWriter;
+
+import HW.WorkloadGenerator.Lengths;
+
+/**
+ * Reruns the scaling study of the report: builds a {@link Trie} and a
+ * {@link RobinHoodTrie} for every combination of dictionary size and word
+ * lengths and writes build time, memory, lookup throughput and, for the Robin
+ * Hood Trie, suggestion throughput as CSV.
+ *
+ * <p>
+ * Dictionaries are streamed from {@link WorkloadGenerator#wordAt(long, long, Lengths)},
+ * so sizes of tens of millions of words only need memory for the tries
+ * themselves. Implementations can be left out of the matrix, since the static
+ * Trie needs far more heap than the Robin Hood Trie at those sizes.
+ *
+ * <p>
+ * Usage:
+ * {@code java -cp bin HW.ScalingExperiment [output-file] [sizes] [lengths] [trie,robinhood] [seed]}<br>
+ * for example
+ * {@code java -Xmx32g -cp bin HW.ScalingExperiment scaling.csv 5000000,10000000,50000000 3-12 robinhood}
+ */
+public class ScalingExperiment {
+
+	/** The dictionary sizes of the report. */
+	private static final String DEFAULT_SIZES = "1000,5000,10000,100000,250000,500000";
+
+	/** The word lengths of the report: fixed lengths and a weighted 3-12 range. */
+	private static final String DEFAULT_LENGTHS = "3,5,7,10,3-12";
+
+	/** The number of lookups timed per dictionary. */
+	private static final int LOOKUPS = 1000000;
+
+	/** The fraction of lookups that are random words. */
+	private static final double MISS_RATIO = 0.2;
+
+	/** The maximum number of corpus tokens loaded as importance. */
+	private static final int CORPUS_TOKENS = 1000000;
+
+	/** The number of suggestion queries timed per dictionary. */
+	private static final int SUGGESTIONS = 2000;
+
+	/** The number of suggestion queries run before timing. */
+	private static final int SUGGESTION_WARMUP = 50;
+
+	/** The time after which no more suggestion queries are timed. */
+	private static final long SUGGESTION_BUDGET_NANOS = 5000000000L;
+
+	/** The number of words suggested per query. */
+	private static final int K = 10;
+
+	public static void main(String[] args) throws FileNotFoundException {
+		String output = args.length > 0 ? args[0] : "scaling.csv";
+		String[] sizes = (args.length > 1 ? args[1] : DEFAULT_SIZES).split(",");
+		String[] lengths = (args.length > 2 ? args[2] : DEFAULT_LENGTHS).split(",");
+		String impls = args.length > 3 ? args[3] : "trie,robinhood";
+		long seed = args.length > 4 ? Long.parseLong(args[4]) : 42;
+
+		PrintWriter out = new PrintWriter(output);
+		String header = "impl,lengths,words,build_ms,memory,heap_bytes,lookups_per_sec,hits,suggestions_per_sec";
+		out.println(header);
+		System.out.println(header);
+
+		for (String spec : lengths) {
+			Lengths shape = Lengths.parse(spec);
+			for (String size : sizes) {
+				long words = Long.parseLong(size);
+				String[] queries = WorkloadGenerator.queryTrace(seed, words, shape, LOOKUPS, MISS_RATIO,
+						WorkloadGenerator.DEFAULT_EXPONENT);
+				for (String impl : impls.split(",")) {
+					String row = impl + "," + shape + "," + words + ","
+							+ (impl.equals("trie") ? runTrie(seed, words, shape, queries)
+									: runRobinHood(seed, words, shape, queries));
+					out.println(row);
+					out.flush();
+					System.out.println(row);
+				}
+			}
+		}
+		out.close();
+	}
+
+	/**
+	 * Measures a static {@link Trie}.
+	 *
+	 * @param seed    the seed of the dictionary.
+	 * @param words   the number of dictionary words.
+	 * @param lengths the word lengths of the dictionary.
+	 * @param queries the lookup trace.
+	 * @return the measured CSV columns after the word count.
+	 */
+	private static String runTrie(long seed, long words, Lengths lengths, String[] queries) {
+		long baseline = CompactBenchmark.usedHeap();
+		Trie trie = new Trie();
+		long start = System.nanoTime();
+		for (long i = 0; i < words; i++) {
+			trie.insert(WorkloadGenerator.wordAt(seed, i, lengths));
+		}
+		long build = System.nanoTime() - start;
+		long heap = CompactBenchmark.usedHeap() - baseline;
+
+		// Warm up once, then measure
+		int hits = 0;
+		for (String query : queries) {
+			hits += trie.search(query) ? 1 : 0;
+		}
+		start = System.nanoTime();
+		for (String query : queries) {
+			trie.search(query);
+		}
+		long lookup = System.nanoTime() - start;
+
+		// The static Trie has no suggestions
+		return build / 1000000 + "," + trie.findMemorySize() + "," + heap + "," + perSecond(queries.length, lookup)
+				+ "," + hits + ",";
+	}
+
+	/**
+	 * Measures a {@link RobinHoodTrie}, including suggestions after loading a
+	 * Zipfian corpus as importance.
+	 *
+	 * @param seed    the seed of the dictionary.
+	 * @param words   the number of dictionary words.
+	 * @param lengths the word lengths of the dictionary.
+	 * @param queries the lookup trace.
+	 * @return the measured CSV columns after the word count.
+	 */
+	private static String runRobinHood(long seed, long words, Lengths lengths, String[] queries) {
+		long baseline = CompactBenchmark.usedHeap();
+		RobinHoodTrie trie = new RobinHoodTrie();
+		long start = System.nanoTime();
+		for (long i = 0; i < words; i++) {
+			trie.insert(WorkloadGenerator.wordAt(seed, i, lengths));
+		}
+		trie.finishResizes();
+		long build = System.nanoTime() - start;
+		long heap = CompactBenchmark.usedHeap() - baseline;
+
+		int hits = 0;
+		for (String query : queries) {
+			hits += trie.search(query) ? 1 : 0;
+		}
+		start = System.nanoTime();
+		for (String query : queries) {
+			trie.search(query);
+		}
+		long lookup = System.nanoTime() - start;
+
+		trie.incImpBatch(WorkloadGenerator.zipfCorpus(seed, words, lengths, (int) Math.min(words, CORPUS_TOKENS),
+				WorkloadGenerator.DEFAULT_EXPONENT));
+
+		// Suggestions are asked for stored words only
+		String[] stored = new String[SUGGESTIONS];
+		int count = 0;
+		for (int i = 0; i < queries.length && count < stored.length; i++) {
+			if (trie.search(queries[i])) {
+				stored[count++] = queries[i];
+			}
+		}
+		for (int i = 0; i < Math.min(count, SUGGESTION_WARMUP); i++) {
+			trie.suggest(stored[i], K);
+		}
+
+		// Suggestions scan most of the trie, so large dictionaries stop at the budget
+		int suggested = 0;
+		long suggest = 0;
+		start = System.nanoTime();
+		while (suggested < count && suggest < SUGGESTION_BUDGET_NANOS) {
+			trie.suggest(stored[suggested++], K);
+			suggest = System.nanoTime() - start;
+		}
+
+		return build / 1000000 + "," + trie.findMemorySize() + "," + heap + "," + perSecond(queries.length, lookup)
+				+ "," + hits + "," + perSecond(suggested, suggest);
+	}
+
+	/**
+	 * Converts a count of operations and their total time to a throughput.
+	 *
+	 * @param operations the number of operations.
+	 * @param nanos      the total time in nanoseconds.
+	 * @return the operations per second.
+	 */
+	private static long perSecond(int operations, long nanos) {
+		return Math.round(operations * 1e9 / Math.max(1, nanos));
+	}
+}
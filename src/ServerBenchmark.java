@@ -0,0 +1,175 @@
+package HW;
+
+import java.io.IOException;
+import java.util.ArrayDeque;
+import java.util.SplittableRandom;
+import java.util.concurrent.atomic.LongAdder;
+
+import HW.WorkloadGenerator.Lengths;
+import HW.WorkloadGenerator.Zipf;
+
+/**
+ * Measures sustained throughput and tail latency of {@link SuggestServer}.
+ * Every connection keeps a fixed number of pipelined requests in flight for
+ * Zipfian hot words and sends a new one whenever an answer arrives. Latency is
+ * measured from sending a request to reading its answer.
+ *
+ * <p>
+ * Without a server address the benchmark loads a generated dictionary and
+ * starts a server in the same JVM. Before measuring, it checks that a request
+ * for a malformed word is answered with an error and does not hold up the
+ * request pipelined after it.
+ *
+ * <p>
+ * Usage:
+ * {@code java -cp bin HW.ServerBenchmark [words] [connections] [pipeline-depth] [seconds] [workers] [k] [host:port]}
+ */
+public class ServerBenchmark {
+
+	public static void main(String[] args) throws IOException, InterruptedException {
+		int count = args.length > 0 ? Integer.parseInt(args[0]) : 10000;
+		String[] connections = (args.length > 1 ? args[1] : "1,4,16,64").split(",");
+		int depth = args.length > 2 ? Integer.parseInt(args[2]) : 8;
+		int seconds = args.length > 3 ? Integer.parseInt(args[3]) : 10;
+		int threads = args.length > 4 ? Integer.parseInt(args[4]) : Runtime.getRuntime().availableProcessors();
+		int k = args.length > 5 ? Integer.parseInt(args[5]) : 5;
+		String address = args.length > 6 ? args[6] : null;
+
+		// The words are the dictionary the server was loaded with
+		long seed = 42;
+		Lengths lengths = Lengths.parse("3-12");
+		String[] words = new String[count];
+		for (int i = 0; i < count; i++) {
+			words[i] = WorkloadGenerator.wordAt(seed, i, lengths);
+		}
+
+		String host = "localhost";
+		int port;
+		SuggestServer server = null;
+		if (address == null) {
+			RobinHoodTrie trie = new RobinHoodTrie();
+			for (String word : words) {
+				trie.insert(word);
+			}
+			trie.finishResizes();
+			trie.incImpBatch(WorkloadGenerator.zipfCorpus(seed, count, lengths, count,
+					WorkloadGenerator.DEFAULT_EXPONENT));
+			server = new SuggestServer(trie, 0, threads, threads * SuggestServer.MAX_PIPELINE);
+			server.start();
+			port = server.getPort();
+		} else {
+			host = address.substring(0, address.lastIndexOf(':'));
+			port = Integer.parseInt(address.substring(address.lastIndexOf(':') + 1));
+		}
+
+		try {
+			checkMalformed(host, port, words[0], k);
+
+			System.out.println("connections,depth,qps,p50_us,p99_us,p999_us,max_us,errors");
+			for (String connection : connections) {
+				run(host, port, words, Integer.parseInt(connection), depth, seconds * 1000000000L, k);
+			}
+		} finally {
+			if (server != null) {
+				server.close();
+			}
+		}
+	}
+
+	/**
+	 * Checks that a malformed word is rejected without stalling the connection.
+	 * A request for a word with a digit is pipelined before a valid request, and
+	 * both must be answered in order.
+	 *
+	 * @param host the host of the server.
+	 * @param port the port of the server.
+	 * @param word a stored word.
+	 * @param k    the number of words suggested per request.
+	 * @throws IOException           if the connection fails.
+	 * @throws IllegalStateException if the server does not answer both requests.
+	 */
+	private static void checkMalformed(String host, int port, String word, int k) throws IOException {
+		try (SuggestClient client = new SuggestClient(host, port)) {
+			client.setTimeout(5000);
+			client.send("1" + word, k);
+			client.send(word, k);
+			client.flush();
+			try {
+				client.receive();
+				throw new IllegalStateException("Malformed word 1" + word + " was not rejected");
+			} catch (IOException e) {
+				if (e.getMessage() == null || !e.getMessage().startsWith("ERR")) {
+					throw new IllegalStateException("Malformed word 1" + word + " got no answer", e);
+				}
+			}
+			try {
+				client.receive();
+			} catch (IOException e) {
+				throw new IllegalStateException("Request after a malformed word got no answer", e);
+			}
+		}
+	}
+
+	/**
+	 * Runs one configuration and prints its CSV row.
+	 *
+	 * @param host        the host of the server.
+	 * @param port        the port of the server.
+	 * @param words       the stored words, in Zipfian rank order.
+	 * @param connections the number of connections.
+	 * @param depth       the number of requests in flight per connection.
+	 * @param durationNs  the length of the run.
+	 * @param k           the number of words suggested per request.
+	 * @throws InterruptedException if interrupted while waiting for the
+	 *                              connections.
+	 */
+	private static void run(String host, int port, String[] words, int connections, int depth, long durationNs, int k)
+			throws InterruptedException {
+		Histogram latency = new Histogram();
+		LongAdder errors = new LongAdder();
+		Zipf zipf = new Zipf(words.length, WorkloadGenerator.DEFAULT_EXPONENT);
+		long deadline = System.nanoTime() + durationNs;
+
+		Thread[] threads = new Thread[connections];
+		for (int c = 0; c < connections; c++) {
+			SplittableRandom rnd = new SplittableRandom(c);
+			threads[c] = new Thread(() -> {
+				ArrayDeque<Long> sent = new ArrayDeque<>();
+				try (SuggestClient client = new SuggestClient(host, port)) {
+					for (int i = 0; i < depth; i++) {
+						client.send(words[(int) zipf.sample(rnd) - 1], k);
+						sent.add(System.nanoTime());
+					}
+					client.flush();
+					while (!sent.isEmpty()) {
+						try {
+							client.receive();
+						} catch (IOException e) {
+							if (!e.getMessage().startsWith("ERR")) {
+								throw e;
+							}
+							errors.increment();
+						}
+						long now = System.nanoTime();
+						latency.record(now - sent.poll());
+						if (now < deadline) {
+							client.send(words[(int) zipf.sample(rnd) - 1], k);
+							sent.add(System.nanoTime());
+							client.flush();
+						}
+					}
+				} catch (IOException e) {
+					throw new RuntimeException(e);
+				}
+			});
+			threads[c].start();
+		}
+		for (Thread thread : threads) {
+			thread.join();
+		}
+
+		System.out.printf("%d,%d,%.1f,%d,%d,%d,%d,%d%n", connections, depth, latency.getCount() * 1e9 / durationNs,
+				latency.getValueAtPercentile(50) / 1000, latency.getValueAtPercentile(99) / 1000,
+				latency.getValueAtPercentile(99.9) / 1000, latency.getMax() / 1000, errors.sum());
+	}
+}
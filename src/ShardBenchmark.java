@@ -0,0 +1,165 @@
+package HW;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.Arrays;
+
+import HW.WorkloadGenerator.Lengths;
+
+/**
+ * Compares suggestion queries of one {@link RobinHoodTrie} with those of a
+ * {@link ShardedTrie}, both with shards in the same JVM and with one shard
+ * server process per shard on this machine. A generated dictionary and
+ * Zipfian corpus are written to temporary files, which every configuration
+ * loads. The queries are a Zipfian trace with unknown words mixed in.
+ *
+ * <p>
+ * Every row reports the load time, the share of the words held by the largest
+ * shard relative to an even split, the mean query latency, and how many
+ * queries return suggestions whose importance differs from the single trie.
+ * Suggestions of equal importance may be chosen differently.
+ *
+ * <p>
+ * Usage:
+ * {@code java -cp bin HW.ShardBenchmark [words] [shard-counts] [queries] [k] [seed]}
+ */
+public class ShardBenchmark {
+
+	public static void main(String[] args) throws IOException {
+		int count = args.length > 0 ? Integer.parseInt(args[0]) : 20000;
+		String[] shardCounts = (args.length > 1 ? args[1] : "2,4").split(",");
+		int queries = args.length > 2 ? Integer.parseInt(args[2]) : 500;
+		int k = args.length > 3 ? Integer.parseInt(args[3]) : 5;
+		long seed = args.length > 4 ? Long.parseLong(args[4]) : 42;
+
+		Lengths lengths = Lengths.parse("3-12");
+		File dictionary = File.createTempFile("shard-dictionary", ".txt");
+		File text = File.createTempFile("shard-text", ".txt");
+		dictionary.deleteOnExit();
+		text.deleteOnExit();
+		WorkloadGenerator.writeDictionary(dictionary.getPath(), seed, count, lengths);
+		WorkloadGenerator.writeCorpus(text.getPath(), seed, count, lengths, 10L * count,
+				WorkloadGenerator.DEFAULT_EXPONENT);
+		String[] trace = WorkloadGenerator.queryTrace(seed, count, lengths, queries, 0.2,
+				WorkloadGenerator.DEFAULT_EXPONENT);
+
+		long start = System.nanoTime();
+		RobinHoodTrie single = new RobinHoodTrie();
+		single.readDictionary(dictionary.getPath());
+		single.insertText(text.getPath());
+		long load = System.nanoTime() - start;
+
+		// Unknown words get no suggestions, as from a sharded trie
+		Suggester direct = (word, n) -> single.search(word) ? single.suggest(word, n) : new String[0];
+		String[][] expected = new String[queries][];
+		for (int i = 0; i < queries; i++) {
+			expected[i] = direct.suggest(trace[i], k);
+		}
+
+		System.out.println("mode,policy,shards,words,load_ms,max_shard_share,us_per_query,importance_differs");
+		System.out.printf("single,-,1,%d,%d,1.00,%.1f,0%n", single.getWordCount(), load / 1000000,
+				time(direct, trace, k) / 1000.0 / queries);
+		for (String shardCount : shardCounts) {
+			int shards = Integer.parseInt(shardCount);
+			for (ShardRouter.Policy policy : ShardRouter.Policy.values()) {
+				ShardRouter router = new ShardRouter(policy, shards);
+				start = System.nanoTime();
+				ShardedTrie local = new ShardedTrie(router);
+				local.readDictionary(dictionary.getPath());
+				local.insertText(text.getPath());
+				load = System.nanoTime() - start;
+				int largest = 0;
+				for (int i = 0; i < shards; i++) {
+					largest = Math.max(largest, local.getShard(i).getWordCount());
+				}
+				double share = (double) largest * shards / local.getWordCount();
+				report("local", router, single, local, load, share, trace, expected, k);
+				local.close();
+
+				start = System.nanoTime();
+				ShardedTrie remote = ShardedTrie.launch(router, dictionary.getPath(), text.getPath());
+				load = System.nanoTime() - start;
+				report("processes", router, single, remote, load, share, trace, expected, k);
+				remote.close();
+			}
+		}
+	}
+
+	/** A suggestion query of some trie. */
+	private interface Suggester {
+
+		/**
+		 * Suggests words.
+		 *
+		 * @param word the word to suggest for.
+		 * @param k    the maximum number of suggestions.
+		 * @return the suggested words.
+		 */
+		String[] suggest(String word, int k);
+	}
+
+	/**
+	 * Times a trace of queries after one warm-up pass.
+	 *
+	 * @param suggester the queried trie.
+	 * @param trace     the query words.
+	 * @param k         the number of suggestions per query.
+	 * @return the time of the measured pass in nanoseconds.
+	 */
+	private static long time(Suggester suggester, String[] trace, int k) {
+		long checksum = 0;
+		long start = 0;
+		for (int round = 0; round < 2; round++) {
+			start = System.nanoTime();
+			for (String word : trace) {
+				checksum += suggester.suggest(word, k).length;
+			}
+		}
+		if (checksum < 0) {
+			System.out.println(checksum);
+		}
+		return System.nanoTime() - start;
+	}
+
+	/**
+	 * Prints the row of one sharded configuration.
+	 *
+	 * @param mode     the name of the configuration.
+	 * @param router   the router of the shards.
+	 * @param single   the single trie holding all words.
+	 * @param sharded  the sharded trie.
+	 * @param load     the load time in nanoseconds.
+	 * @param share    the share of the largest shard.
+	 * @param trace    the query words.
+	 * @param expected the suggestions of the single trie.
+	 * @param k        the number of suggestions per query.
+	 */
+	private static void report(String mode, ShardRouter router, RobinHoodTrie single, ShardedTrie sharded,
+			long load, double share, String[] trace, String[][] expected, int k) {
+		int differs = 0;
+		for (int i = 0; i < trace.length; i++) {
+			if (!Arrays.equals(importance(single, sharded.suggest(trace[i], k)), importance(single, expected[i]))) {
+				differs++;
+			}
+		}
+		System.out.printf("%s,%s,%d,%d,%d,%.2f,%.1f,%d%n", mode, router.getPolicy().name().toLowerCase(),
+				router.getShardCount(), single.getWordCount(), load / 1000000, share,
+				time(sharded::suggest, trace, k) / 1000.0 / trace.length, differs);
+	}
+
+	/**
+	 * Returns the sorted importance of suggested words in the single trie.
+	 *
+	 * @param single the single trie.
+	 * @param words  the suggested words.
+	 * @return the sorted importance.
+	 */
+	private static int[] importance(RobinHoodTrie single, String[] words) {
+		int[] importance = new int[words.length];
+		for (int i = 0; i < words.length; i++) {
+			importance[i] = single.importance(words[i]);
+		}
+		Arrays.sort(importance);
+		return importance;
+	}
+}
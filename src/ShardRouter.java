@@ -0,0 +1,120 @@
+package HW;
+
+/**
+ * Assigns every word to one of a fixed number of shards of a
+ * {@link ShardedTrie}. Words are split either by contiguous ranges of their
+ * first letter or by a hash of the whole word.
+ *
+ * <p>
+ * Range routing keeps all words sharing a first letter, and so every
+ * completion of a prefix, on one shard, while hash routing spreads the words
+ * evenly whatever their first letters are.
+ */
+public final class ShardRouter {
+
+	/** The ways words can be assigned to shards. */
+	public enum Policy {
+		/** Contiguous ranges of first letters, of nearly equal size. */
+		RANGE,
+		/** A hash of the whole word modulo the number of shards. */
+		HASH
+	}
+
+	/** The number of letters split into ranges. */
+	private static final int LETTERS = 26;
+
+	/** How words are assigned to shards. */
+	private final Policy policy;
+
+	/** The number of shards. */
+	private final int shards;
+
+	/**
+	 * Constructor for a router.
+	 *
+	 * @param policy how words are assigned to shards.
+	 * @param shards the number of shards.
+	 * @throws IllegalArgumentException if the number of shards is not positive,
+	 *                                  or larger than the number of letters for
+	 *                                  range routing.
+	 */
+	public ShardRouter(Policy policy, int shards) {
+		if (shards < 1) {
+			throw new IllegalArgumentException("Shard count must be positive: " + shards);
+		}
+		if (policy == Policy.RANGE && shards > LETTERS) {
+			throw new IllegalArgumentException("Range routing allows at most " + LETTERS + " shards: " + shards);
+		}
+		this.policy = policy;
+		this.shards = shards;
+	}
+
+	/**
+	 * Parses a router from a policy name such as {@code range} or {@code hash}.
+	 *
+	 * @param policy the name of the policy.
+	 * @param shards the number of shards.
+	 * @return the router.
+	 * @throws IllegalArgumentException if the policy is unknown or the number of
+	 *                                  shards is not allowed.
+	 */
+	public static ShardRouter parse(String policy, int shards) {
+		try {
+			return new ShardRouter(Policy.valueOf(policy.toUpperCase()), shards);
+		} catch (IllegalArgumentException e) {
+			if (e.getMessage().startsWith("No enum")) {
+				throw new IllegalArgumentException("Unknown shard policy: " + policy);
+			}
+			throw e;
+		}
+	}
+
+	/**
+	 * Returns how words are assigned to shards.
+	 *
+	 * @return the policy.
+	 */
+	public Policy getPolicy() {
+		return policy;
+	}
+
+	/**
+	 * Returns the number of shards.
+	 *
+	 * @return the number of shards.
+	 */
+	public int getShardCount() {
+		return shards;
+	}
+
+	/**
+	 * Returns the shard owning a word.
+	 *
+	 * @param word the lowercase word, not empty.
+	 * @return the index of the shard.
+	 */
+	public int shardOf(String word) {
+		if (policy == Policy.RANGE) {
+			int letter = Math.min(Math.max(word.charAt(0) - 'a', 0), LETTERS - 1);
+			return letter * shards / LETTERS;
+		}
+		int h = word.hashCode() * 0x9E3779B9;
+		return (int) (((h ^ (h >>> 16)) & 0xFFFFFFFFL) % shards);
+	}
+
+	/**
+	 * Tests whether all words starting with a prefix are stored on the shard
+	 * owning the prefix itself, so prefix completions need not be asked from the
+	 * other shards.
+	 *
+	 * @return {@code true} for range routing.
+	 */
+	public boolean keepsPrefixes() {
+		return policy == Policy.RANGE;
+	}
+
+	@Override
+	public String toString() {
+		return policy.name().toLowerCase() + "/" + shards;
+	}
+}
@@ -0,0 +1,564 @@
+package HW;
+
+import java.io.BufferedReader;
+import java.io.Closeable;
+import java.io.File;
+import java.io.FileNotFoundException;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.UncheckedIOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Scanner;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.function.IntPredicate;
+
+/**
+ * Splits a dictionary over several {@link RobinHoodTrie} shards chosen by a
+ * {@link ShardRouter}. Lookups and updates of a word run on the shard owning
+ * it. Suggestion queries are scattered to the shards in parallel, each shard
+ * returns its own top k candidates with their importance, and the candidate
+ * lists are merged into the overall top k.
+ *
+ * <p>
+ * The shards are either tries in this JVM or {@link SuggestServer} processes
+ * reached over TCP, each holding only its own words. {@link #launch} starts
+ * such processes on the local machine. Remote shards are only queried, their
+ * words and importance are loaded by the shard processes themselves.
+ *
+ * <p>
+ * Up to ties in importance, the suggestions equal those of one trie holding
+ * all words: every candidate is stored on exactly one shard, so the top k of
+ * all candidates is among the top k candidates of the shards.
+ */
+public class ShardedTrie implements Closeable {
+
+	/** The line printed by a shard process once it serves its words. */
+	private static final String READY = "Serving suggestions on port ";
+
+	/** The router assigning words to shards. */
+	private final ShardRouter router;
+
+	/** The local tries of the shards, or {@code null} for remote shards. */
+	private final RobinHoodTrie[] tries;
+
+	/** The connections to remote shards, or {@code null} for local shards. */
+	private final SuggestClient[] clients;
+
+	/** The shard processes started by {@link #launch}, or {@code null}. */
+	private final Process[] processes;
+
+	/** The threads querying the shards in parallel. */
+	private final ExecutorService pool;
+
+	/**
+	 * Constructor for empty shards in this JVM.
+	 *
+	 * @param router the router assigning words to shards.
+	 */
+	public ShardedTrie(ShardRouter router) {
+		this(router, new RobinHoodTrie[router.getShardCount()], null, null);
+		for (int i = 0; i < tries.length; i++) {
+			tries[i] = new RobinHoodTrie();
+		}
+	}
+
+	/**
+	 * Constructor for the given shards.
+	 *
+	 * @param router    the router assigning words to shards.
+	 * @param tries     the local tries, or {@code null}.
+	 * @param clients   the connections to remote shards, or {@code null}.
+	 * @param processes the started shard processes, or {@code null}.
+	 */
+	private ShardedTrie(ShardRouter router, RobinHoodTrie[] tries, SuggestClient[] clients, Process[] processes) {
+		this.router = router;
+		this.tries = tries;
+		this.clients = clients;
+		this.processes = processes;
+		pool = Executors.newFixedThreadPool(router.getShardCount(), task -> {
+			Thread thread = new Thread(task, "shard-query");
+			thread.setDaemon(true);
+			return thread;
+		});
+	}
+
+	/**
+	 * Connects to shard servers that already run, one per shard in shard order.
+	 * Each server must hold exactly the words the router assigns to its shard.
+	 *
+	 * @param router    the router assigning words to shards.
+	 * @param addresses the {@code host:port} address of every shard.
+	 * @return the sharded trie querying the servers.
+	 * @throws IOException if a server cannot be reached.
+	 */
+	public static ShardedTrie connect(ShardRouter router, String[] addresses) throws IOException {
+		return new ShardedTrie(router, null, open(router, addresses), null);
+	}
+
+	/**
+	 * Opens a connection to every shard server.
+	 *
+	 * @param router    the router assigning words to shards.
+	 * @param addresses the {@code host:port} address of every shard.
+	 * @return the connections in shard order.
+	 * @throws IOException if a server cannot be reached.
+	 */
+	private static SuggestClient[] open(ShardRouter router, String[] addresses) throws IOException {
+		if (addresses.length != router.getShardCount()) {
+			throw new IllegalArgumentException(
+					"Expected " + router.getShardCount() + " shard addresses: " + addresses.length);
+		}
+		SuggestClient[] clients = new SuggestClient[addresses.length];
+		try {
+			for (int i = 0; i < addresses.length; i++) {
+				String address = addresses[i];
+				int colon = address.lastIndexOf(':');
+				clients[i] = new SuggestClient(address.substring(0, colon),
+						Integer.parseInt(address.substring(colon + 1)));
+			}
+		} catch (IOException | RuntimeException e) {
+			for (SuggestClient client : clients) {
+				if (client != null) {
+					client.close();
+				}
+			}
+			throw e;
+		}
+		return clients;
+	}
+
+	/**
+	 * Starts one shard server process per shard on the local machine and
+	 * connects to them. Every process runs {@link HashingMain} with
+	 * {@code --shard}, loading only its own words from the dictionary and their
+	 * importance from the text. The processes end when the returned trie is
+	 * closed, or when this JVM exits and their standard input closes.
+	 *
+	 * @param router     the router assigning words to shards.
+	 * @param dictionary the dictionary file.
+	 * @param text       the text file giving the importance.
+	 * @return the sharded trie querying the processes.
+	 * @throws IOException if a process cannot be started or reached.
+	 */
+	public static ShardedTrie launch(ShardRouter router, String dictionary, String text) throws IOException {
+		int shards = router.getShardCount();
+		Process[] processes = new Process[shards];
+		String java = System.getProperty("java.home") + File.separator + "bin" + File.separator + "java";
+		for (int i = 0; i < shards; i++) {
+			ProcessBuilder builder = new ProcessBuilder(java, "-cp", System.getProperty("java.class.path"),
+					HashingMain.class.getName(), dictionary, text, "--shard", Integer.toString(i),
+					Integer.toString(shards), router.getPolicy().name().toLowerCase(), "--serve", "0");
+			builder.redirectError(ProcessBuilder.Redirect.INHERIT);
+			processes[i] = builder.start();
+		}
+
+		// Wait until every shard has loaded its words and reports its port
+		String[] addresses = new String[shards];
+		try {
+			for (int i = 0; i < shards; i++) {
+				addresses[i] = "localhost:" + awaitPort(processes[i]);
+			}
+			return new ShardedTrie(router, null, open(router, addresses), processes);
+		} catch (IOException | RuntimeException e) {
+			for (Process process : processes) {
+				process.destroy();
+			}
+			throw e;
+		}
+	}
+
+	/**
+	 * Reads the output of a shard process until it reports its port, and keeps
+	 * draining the output afterwards so the process never blocks on it.
+	 *
+	 * @param process the shard process.
+	 * @return the port of the shard server.
+	 * @throws IOException if the process ends before it serves.
+	 */
+	private static int awaitPort(Process process) throws IOException {
+		BufferedReader out = new BufferedReader(new InputStreamReader(process.getInputStream()));
+		String line;
+		while ((line = out.readLine()) != null) {
+			if (line.startsWith(READY)) {
+				Thread drain = new Thread(() -> {
+					try {
+						while (out.readLine() != null) {
+							// Discard the output of the shard
+						}
+					} catch (IOException e) {
+						// The shard ended
+					}
+				}, "shard-output");
+				drain.setDaemon(true);
+				drain.start();
+				return Integer.parseInt(line.substring(READY.length()).trim());
+			}
+		}
+		throw new IOException("Shard process ended before serving, exit code " + waitFor(process));
+	}
+
+	/**
+	 * Waits for a process to end.
+	 *
+	 * @param process the process.
+	 * @return the exit code.
+	 */
+	private static int waitFor(Process process) {
+		try {
+			return process.waitFor();
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			return -1;
+		}
+	}
+
+	/**
+	 * Reads the words of one shard from a dictionary into a new trie, and their
+	 * importance from a text. This is how shard processes load their words.
+	 *
+	 * @param router     the router assigning words to shards.
+	 * @param shard      the index of the shard.
+	 * @param dictionary the dictionary file.
+	 * @param text       the text file giving the importance.
+	 * @return the trie holding the words of the shard.
+	 * @throws FileNotFoundException if a file cannot be found.
+	 */
+	public static RobinHoodTrie loadShard(ShardRouter router, int shard, String dictionary, String text)
+			throws FileNotFoundException {
+		if (shard < 0 || shard >= router.getShardCount()) {
+			throw new IllegalArgumentException("Shard index must be in [0, " + router.getShardCount() + "): " + shard);
+		}
+		RobinHoodTrie trie = new RobinHoodTrie();
+		Scanner scan = new Scanner(new File(dictionary));
+		while (scan.hasNext()) {
+			String word = RobinHoodTrie.filterWord(scan.next());
+			if (word != null && router.shardOf(word) == shard) {
+				trie.insert(word);
+			}
+		}
+		scan.close();
+		trie.finishResizes();
+
+		// Words of other shards are not stored here and so leave the importance alone
+		trie.insertText(text);
+		return trie;
+	}
+
+	/**
+	 * Returns the router assigning words to shards.
+	 *
+	 * @return the router.
+	 */
+	public ShardRouter getRouter() {
+		return router;
+	}
+
+	/**
+	 * Returns the trie of a local shard.
+	 *
+	 * @param shard the index of the shard.
+	 * @return the trie of the shard.
+	 * @throws UnsupportedOperationException if the shards are remote.
+	 */
+	public RobinHoodTrie getShard(int shard) {
+		return local()[shard];
+	}
+
+	/**
+	 * Inserts a word into the shard owning it.
+	 *
+	 * @param word the word to insert.
+	 * @throws UnsupportedOperationException if the shards are remote.
+	 */
+	public void insert(String word) {
+		String lower = word.toLowerCase();
+		local()[router.shardOf(lower)].insert(lower);
+	}
+
+	/**
+	 * Deletes a word from the shard owning it.
+	 *
+	 * @param word the word to delete.
+	 * @return {@code true} if the word was stored.
+	 * @throws UnsupportedOperationException if the shards are remote.
+	 */
+	public boolean delete(String word) {
+		String lower = word.toLowerCase();
+		return !lower.isEmpty() && local()[router.shardOf(lower)].delete(lower);
+	}
+
+	/**
+	 * Increments the importance of a word on the shard owning it.
+	 *
+	 * @param word the word whose importance is incremented.
+	 * @throws UnsupportedOperationException if the shards are remote.
+	 */
+	public void incImp(String word) {
+		String lower = word.toLowerCase();
+		if (!lower.isEmpty()) {
+			local()[router.shardOf(lower)].incImp(lower);
+		}
+	}
+
+	/**
+	 * Returns the number of words stored on all shards.
+	 *
+	 * @return the number of words.
+	 * @throws UnsupportedOperationException if the shards are remote.
+	 */
+	public int getWordCount() {
+		int count = 0;
+		for (RobinHoodTrie trie : local()) {
+			count += trie.getWordCount();
+		}
+		return count;
+	}
+
+	/**
+	 * Estimates the memory used by all shards in bytes.
+	 *
+	 * @return the memory size.
+	 * @throws UnsupportedOperationException if the shards are remote.
+	 */
+	public long findMemorySize() {
+		long size = 0;
+		for (RobinHoodTrie trie : local()) {
+			size += trie.findMemorySize();
+		}
+		return size;
+	}
+
+	/**
+	 * Reads a dictionary file and inserts every valid word into the shard owning
+	 * it.
+	 *
+	 * @param inFile the file path of the dictionary.
+	 * @throws FileNotFoundException if the file cannot be found.
+	 * @throws UnsupportedOperationException if the shards are remote.
+	 */
+	public void readDictionary(String inFile) throws FileNotFoundException {
+		RobinHoodTrie[] tries = local();
+		Scanner scan = new Scanner(new File(inFile));
+		while (scan.hasNext()) {
+			String word = RobinHoodTrie.filterWord(scan.next());
+			if (word != null) {
+				tries[router.shardOf(word)].insert(word);
+			}
+		}
+		scan.close();
+		for (RobinHoodTrie trie : tries) {
+			trie.finishResizes();
+		}
+	}
+
+	/**
+	 * Reads a text file and increments the importance of every valid word on the
+	 * shard owning it. The words of each shard are applied in batches.
+	 *
+	 * @param textFile the file path of the text.
+	 * @throws FileNotFoundException if the file cannot be found.
+	 * @throws UnsupportedOperationException if the shards are remote.
+	 */
+	public void insertText(String textFile) throws FileNotFoundException {
+		RobinHoodTrie[] tries = local();
+		String[][] batches = new String[tries.length][RobinHoodTrie.INGESTION_BATCH];
+		int[] counts = new int[tries.length];
+		Scanner scan = new Scanner(new File(textFile));
+		while (scan.hasNext()) {
+			String word = RobinHoodTrie.filterWord(scan.next());
+			if (word != null) {
+				int shard = router.shardOf(word);
+				batches[shard][counts[shard]++] = word;
+				if (counts[shard] == RobinHoodTrie.INGESTION_BATCH) {
+					tries[shard].incImpBatch(batches[shard]);
+					counts[shard] = 0;
+				}
+			}
+		}
+		scan.close();
+		for (int shard = 0; shard < tries.length; shard++) {
+			tries[shard].incImpBatch(Arrays.copyOf(batches[shard], counts[shard]));
+		}
+	}
+
+	/**
+	 * Searches the shard owning a word for it.
+	 *
+	 * @param word the word to search for.
+	 * @return {@code true} if the word is stored.
+	 * @throws UncheckedIOException if a remote shard fails.
+	 */
+	public boolean search(String word) {
+		return importance(word) >= 0;
+	}
+
+	/**
+	 * Returns the importance of a word from the shard owning it.
+	 *
+	 * @param word the word.
+	 * @return the importance, or -1 if the word is not stored.
+	 * @throws UncheckedIOException if a remote shard fails.
+	 */
+	public int importance(String word) {
+		String lower = word.toLowerCase();
+		if (lower.isEmpty()) {
+			return -1;
+		}
+		int shard = router.shardOf(lower);
+		if (tries != null) {
+			int id = tries[shard].wordId(lower);
+			return id < 0 ? -1 : tries[shard].importance(id);
+		}
+		SuggestClient client = clients[shard];
+		try {
+			synchronized (client) {
+				return client.importance(lower);
+			}
+		} catch (IOException e) {
+			throw new UncheckedIOException(e);
+		}
+	}
+
+	/**
+	 * Runs the suggestion pipeline of {@link RobinHoodTrie#suggest(String, int)}
+	 * over all shards. The owning shard is asked whether the word is stored, then
+	 * the prefix and fuzzy candidates are gathered from the shards in parallel.
+	 * With range routing the completions of the word are only asked from the
+	 * owning shard, which stores all of them.
+	 *
+	 * @param word the word to suggest for.
+	 * @param k    the maximum number of suggestions.
+	 * @return the suggested words, none if the word is not stored.
+	 * @throws UncheckedIOException if a remote shard fails.
+	 */
+	public String[] suggest(String word, int k) {
+		String lower = word.toLowerCase();
+		if (!search(lower)) {
+			return new String[0];
+		}
+		int owner = router.shardOf(lower);
+		return gather(lower, k, shard -> !router.keepsPrefixes() || shard == owner, true).getTopKWords();
+	}
+
+	/**
+	 * Returns the k most important words starting with a prefix, asking only
+	 * the shard owning the prefix with range routing and all shards otherwise.
+	 * The prefix itself is not returned.
+	 *
+	 * @param prefix the prefix.
+	 * @param k      the maximum number of words.
+	 * @return the completions with the highest importance.
+	 * @throws UncheckedIOException if a remote shard fails.
+	 */
+	public String[] complete(String prefix, int k) {
+		String lower = prefix.toLowerCase();
+		if (lower.isEmpty()) {
+			return new String[0];
+		}
+		int owner = router.shardOf(lower);
+		return gather(lower, k, shard -> !router.keepsPrefixes() || shard == owner, false).getTopKWords();
+	}
+
+	/**
+	 * Scatters a query to the shards in parallel and merges their top k
+	 * candidates in shard order. Shards asked neither for completions nor for
+	 * similar words are skipped.
+	 *
+	 * @param word     the lowercase word.
+	 * @param k        the maximum number of words.
+	 * @param prefixes the shards asked for the completions of the word.
+	 * @param similar  whether the words of similar length are asked for.
+	 * @return the heap of the merged candidates.
+	 */
+	private Heap gather(String word, int k, IntPredicate prefixes, boolean similar) {
+		List<Future<Heap>> answers = new ArrayList<>();
+		for (int shard = 0; shard < router.getShardCount(); shard++) {
+			boolean prefix = prefixes.test(shard);
+			if (prefix || similar) {
+				answers.add(pool.submit(query(shard, word, k, prefix, similar)));
+			}
+		}
+
+		Heap minHeap = new Heap(k);
+		try {
+			for (Future<Heap> answer : answers) {
+				minHeap.merge(answer.get());
+			}
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			throw new IllegalStateException("Interrupted while gathering shard answers", e);
+		} catch (ExecutionException e) {
+			if (e.getCause() instanceof IOException) {
+				throw new UncheckedIOException((IOException) e.getCause());
+			}
+			throw new IllegalStateException("Shard query failed", e.getCause());
+		}
+		return minHeap;
+	}
+
+	/**
+	 * Creates the query of one shard for the candidates of a word.
+	 *
+	 * @param shard   the index of the shard.
+	 * @param word    the lowercase word.
+	 * @param k       the maximum number of candidates.
+	 * @param prefix  whether the completions of the word are asked for.
+	 * @param similar whether the words of similar length are asked for.
+	 * @return the query returning the top k candidates of the shard.
+	 */
+	private Callable<Heap> query(int shard, String word, int k, boolean prefix, boolean similar) {
+		return () -> {
+			Heap heap = new Heap(k);
+			if (tries != null) {
+				tries[shard].collectSuggestions(heap, word, k, prefix, similar);
+			} else {
+				SuggestClient client = clients[shard];
+				synchronized (client) {
+					client.candidates(heap, word, k, !prefix ? "similar" : !similar ? "prefix" : "all");
+				}
+			}
+			return heap;
+		};
+	}
+
+	/**
+	 * Returns the local tries of the shards.
+	 *
+	 * @return the tries.
+	 * @throws UnsupportedOperationException if the shards are remote.
+	 */
+	private RobinHoodTrie[] local() {
+		if (tries == null) {
+			throw new UnsupportedOperationException("Remote shards are loaded by their own processes");
+		}
+		return tries;
+	}
+
+	/**
+	 * Stops the query threads, closes the connections to remote shards and ends
+	 * the shard processes started by {@link #launch}.
+	 */
+	@Override
+	public void close() throws IOException {
+		pool.shutdownNow();
+		if (clients != null) {
+			for (SuggestClient client : clients) {
+				client.close();
+			}
+		}
+		if (processes != null) {
+			for (Process process : processes) {
+				process.destroy();
+			}
+			for (Process process : processes) {
+				waitFor(process);
+			}
+		}
+	}
+}
@@ -0,0 +1,32 @@
+package HW;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.Timespan;
+
+/**
+ * Flight Recorder event emitted when a suggestion query of a
+ * {@link RobinHoodTrie} takes longer than the slow query threshold of the trie.
+ */
+@Name("HW.SlowQuery")
+@Label("Slow Suggestion Query")
+@Category({ "Robin Hood Trie", "Query" })
+@Description("A suggestion query exceeded the slow query threshold")
+class SlowQueryEvent extends Event {
+
+	@Label("Word")
+	String word;
+
+	@Label("Suggestions Requested")
+	int k;
+
+	@Label("Suggestions Returned")
+	int results;
+
+	@Label("Threshold")
+	@Timespan(Timespan.NANOSECONDS)
+	long threshold;
+}
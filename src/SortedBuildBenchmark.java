@@ -0,0 +1,83 @@
+package HW;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.lang.management.ManagementFactory;
+import java.util.Arrays;
+
+/**
+ * Compares building a {@link RobinHoodTrie} from a sorted dictionary file with
+ * {@link RobinHoodTrie#readDictionary(String)} and with
+ * {@link RobinHoodTrie#readSortedDictionary(String)}. Reports the build time,
+ * the bytes allocated by the building thread and the number of tables. Both
+ * builds create a child table only below an element that continues a word, so
+ * they must produce the same number of tables and the difference in allocation
+ * is that of reusing the path of the previous word.
+ *
+ * <p>
+ * Usage: {@code java -cp bin HW.SortedBuildBenchmark [words] [seed]}
+ */
+public class SortedBuildBenchmark {
+
+	public static void main(String[] args) throws IOException {
+		int count = args.length > 0 ? Integer.parseInt(args[0]) : 500000;
+		long seed = args.length > 1 ? Long.parseLong(args[1]) : 42;
+
+		// Write a sorted dictionary to a temporary file
+		String[] words = WorkloadGenerator.randomDictionary(seed, count, 3, 12);
+		Arrays.sort(words);
+		File file = File.createTempFile("sorted-dictionary", ".txt");
+		file.deleteOnExit();
+		PrintWriter out = new PrintWriter(file);
+		for (String word : words) {
+			out.println(word);
+		}
+		out.close();
+
+		System.out.println("mode,words,build_ms,allocated_bytes,tables");
+		for (int round = 0; round < 3; round++) {
+			long unsortedTables = -1;
+			for (boolean sorted : new boolean[] { false, true }) {
+				RobinHoodTrie trie = new RobinHoodTrie();
+				long allocated = allocatedBytes();
+				long start = System.nanoTime();
+				if (sorted) {
+					trie.readSortedDictionary(file.getPath());
+				} else {
+					trie.readDictionary(file.getPath());
+				}
+				long elapsed = System.nanoTime() - start;
+				allocated = allocatedBytes() - allocated;
+
+				long tables = 0;
+				for (TrieStatistics.Level level : trie.getStatistics().getLevels()) {
+					tables += level.tables;
+				}
+				if (!sorted) {
+					unsortedTables = tables;
+				} else if (tables != unsortedTables) {
+					throw new IllegalStateException(
+							"Builds differ in shape: " + unsortedTables + " and " + tables + " tables");
+				}
+				if (round > 0) {
+					System.out.println((sorted ? "readSortedDictionary" : "readDictionary") + ","
+							+ trie.getWordCount() + "," + elapsed / 1000000 + "," + allocated + "," + tables);
+				}
+			}
+		}
+	}
+
+	/**
+	 * Returns the bytes allocated by the current thread so far.
+	 *
+	 * @return the allocated bytes, or 0 if the JVM does not track them.
+	 */
+	private static long allocatedBytes() {
+		java.lang.management.ThreadMXBean bean = ManagementFactory.getThreadMXBean();
+		if (bean instanceof com.sun.management.ThreadMXBean) {
+			return ((com.sun.management.ThreadMXBean) bean).getThreadAllocatedBytes(Thread.currentThread().getId());
+		}
+		return 0;
+	}
+}
@@ -0,0 +1,38 @@
+package HW;
+
+import java.io.FileNotFoundException;
+import java.io.PrintWriter;
+
+/**
+ * Loads a dictionary into a {@link RobinHoodTrie} and writes its structural
+ * statistics, so the structure built from different dictionaries can be
+ * compared.
+ *
+ * <p>
+ * Usage: {@code java -cp bin HW.StatisticsReport <dictionary-file> [json | csv] [output-file]}
+ */
+public class StatisticsReport {
+
+	public static void main(String[] args) throws FileNotFoundException {
+		String format = args.length > 1 ? args[1] : "json";
+
+		RobinHoodTrie trie = new RobinHoodTrie();
+		trie.readDictionary(args[0]);
+		TrieStatistics statistics = trie.getStatistics();
+
+		String report;
+		if (format.equals("csv")) {
+			report = statistics.toCsv() + "\n" + statistics.histogramsToCsv();
+		} else {
+			report = statistics.toJson();
+		}
+
+		if (args.length > 2) {
+			PrintWriter out = new PrintWriter(args[2]);
+			out.println(report);
+			out.close();
+		} else {
+			System.out.println(report);
+		}
+	}
+}
@@ -0,0 +1,302 @@
+package HW;
+
+import java.util.Arrays;
+
+/**
+ * A suffix array over the words of a {@link RobinHoodTrie}, answering which
+ * words contain a given infix. The words are laid out one after another in a
+ * single character array, each followed by a 0 separator, and the suffix array
+ * lists every position inside a word in the sorted order of the suffixes
+ * starting there, compared up to the end of their word. The suffixes starting
+ * with an infix then form one range, found by two binary searches.
+ *
+ * <p>
+ * The index records the word id of every word, so the words containing an
+ * infix are ranked by their current importance in the trie. It is a snapshot
+ * of the words at build time and has to be rebuilt after words are inserted or
+ * deleted, as done by {@link RobinHoodTrie#enableSubstringIndex()}.
+ */
+public final class SubstringIndex {
+
+	/** The size below which ranges are sorted by insertion. */
+	private static final int INSERTION_SORT = 16;
+
+	/** The words, each followed by a 0 separator. */
+	private final char[] text;
+
+	/** The position of the first character of each word in the text. */
+	private final int[] starts;
+
+	/** The word id of each word in the trie. */
+	private final int[] ids;
+
+	/** The positions of all characters of the words, sorted by suffix. */
+	private final int[] suffixes;
+
+	/** The number of changes of the trie when the index was built. */
+	final int modifications;
+
+	/**
+	 * Constructor for an index of the given words.
+	 *
+	 * @param text          the words with their separators.
+	 * @param starts        the start of each word.
+	 * @param ids           the word id of each word.
+	 * @param suffixes      the sorted suffixes.
+	 * @param modifications the number of changes of the trie.
+	 */
+	private SubstringIndex(char[] text, int[] starts, int[] ids, int[] suffixes, int modifications) {
+		this.text = text;
+		this.starts = starts;
+		this.ids = ids;
+		this.suffixes = suffixes;
+		this.modifications = modifications;
+	}
+
+	/**
+	 * Builds the index of all words stored in a trie.
+	 *
+	 * @param trie          the trie.
+	 * @param modifications the number of changes of the trie so far.
+	 * @return the index.
+	 */
+	static SubstringIndex build(RobinHoodTrie trie, int modifications) {
+		// Lay out the words in id order
+		int count = 0;
+		int length = 0;
+		for (int id = 0; id < trie.getWordIdLimit(); id++) {
+			String word = trie.wordAt(id);
+			if (word != null) {
+				count++;
+				length += word.length() + 1;
+			}
+		}
+		char[] text = new char[length];
+		int[] starts = new int[count];
+		int[] ids = new int[count];
+		int[] suffixes = new int[length - count];
+		int position = 0;
+		int w = 0;
+		int s = 0;
+		for (int id = 0; id < trie.getWordIdLimit(); id++) {
+			String word = trie.wordAt(id);
+			if (word != null) {
+				starts[w] = position;
+				ids[w++] = id;
+				word.getChars(0, word.length(), text, position);
+				for (int i = 0; i < word.length(); i++) {
+					suffixes[s++] = position++;
+				}
+				text[position++] = 0;
+			}
+		}
+
+		sort(text, suffixes, 0, suffixes.length, 0);
+		return new SubstringIndex(text, starts, ids, suffixes, modifications);
+	}
+
+	/**
+	 * Retrieves the words containing an infix, each once, into a heap ordered by
+	 * their importance in the trie.
+	 *
+	 * @param trie    the trie the index was built from.
+	 * @param minHeap the heap receiving the words.
+	 * @param infix   the lowercase infix, not empty.
+	 */
+	void getInfixWords(RobinHoodTrie trie, Heap minHeap, String infix) {
+		int from = bound(infix, false);
+		int to = bound(infix, true);
+		if (from == to) {
+			return;
+		}
+
+		// A word containing the infix more than once is reported once
+		int[] words = new int[to - from];
+		for (int i = from; i < to; i++) {
+			words[i - from] = wordOf(suffixes[i]);
+		}
+		Arrays.sort(words);
+		for (int i = 0; i < words.length; i++) {
+			if (i == 0 || words[i] != words[i - 1]) {
+				int id = ids[words[i]];
+				trie.insertById(minHeap, id);
+			}
+		}
+	}
+
+	/**
+	 * Counts the occurrences of an infix in the words.
+	 *
+	 * @param infix the lowercase infix, not empty.
+	 * @return the number of occurrences.
+	 */
+	int countOccurrences(String infix) {
+		return bound(infix, true) - bound(infix, false);
+	}
+
+	/**
+	 * Returns the number of indexed words.
+	 *
+	 * @return the number of words.
+	 */
+	public int getWordCount() {
+		return starts.length;
+	}
+
+	/**
+	 * Estimates the memory used by the index in bytes.
+	 *
+	 * @return the memory size.
+	 */
+	public long findMemorySize() {
+		return 16 + 4 * 16 + 2L * text.length + 4L * starts.length + 4L * ids.length + 4L * suffixes.length;
+	}
+
+	/**
+	 * Finds the first suffix that starts with the infix or sorts after it.
+	 *
+	 * @param infix the infix.
+	 * @param after {@code false} for the first suffix not before the infix,
+	 *              {@code true} for the first suffix after all suffixes starting
+	 *              with it.
+	 * @return the index into the suffixes.
+	 */
+	private int bound(String infix, boolean after) {
+		int lo = 0;
+		int hi = suffixes.length;
+		while (lo < hi) {
+			int mid = (lo + hi) >>> 1;
+			int cmp = compare(suffixes[mid], infix);
+			if (cmp < 0 || (after && cmp == 0)) {
+				lo = mid + 1;
+			} else {
+				hi = mid;
+			}
+		}
+		return lo;
+	}
+
+	/**
+	 * Compares the suffix at a position with an infix, up to the length of the
+	 * infix.
+	 *
+	 * @param position the start of the suffix.
+	 * @param infix    the infix.
+	 * @return a negative number, zero or a positive number if the suffix sorts
+	 *         before, starts with or sorts after the infix.
+	 */
+	private int compare(int position, String infix) {
+		for (int i = 0; i < infix.length(); i++) {
+			char c = text[position + i];
+			if (c != infix.charAt(i)) {
+				return c - infix.charAt(i);
+			}
+		}
+		return 0;
+	}
+
+	/**
+	 * Returns the word holding a position of the text.
+	 *
+	 * @param position the position.
+	 * @return the index of the word.
+	 */
+	private int wordOf(int position) {
+		int index = Arrays.binarySearch(starts, position);
+		return index >= 0 ? index : -index - 2;
+	}
+
+	/**
+	 * Sorts a range of suffixes that share their first {@code depth} characters
+	 * by three-way radix quicksort. Suffixes end at the separator of their word,
+	 * so equal suffixes of different words may be ordered arbitrarily.
+	 *
+	 * @param text     the text.
+	 * @param suffixes the suffixes.
+	 * @param from     the first index of the range.
+	 * @param to       the index after the range.
+	 * @param depth    the number of characters already known to be equal.
+	 */
+	private static void sort(char[] text, int[] suffixes, int from, int to, int depth) {
+		while (to - from > INSERTION_SORT) {
+			int pivot = median(text[suffixes[from] + depth], text[suffixes[(from + to) >>> 1] + depth],
+					text[suffixes[to - 1] + depth]);
+
+			// Partition into suffixes with a smaller, equal and larger character
+			int lt = from;
+			int gt = to;
+			int i = from;
+			while (i < gt) {
+				int c = text[suffixes[i] + depth];
+				if (c < pivot) {
+					swap(suffixes, lt++, i++);
+				} else if (c > pivot) {
+					swap(suffixes, i, --gt);
+				} else {
+					i++;
+				}
+			}
+			sort(text, suffixes, from, lt, depth);
+			sort(text, suffixes, gt, to, depth);
+			if (pivot == 0) {
+				return;
+			}
+			from = lt;
+			to = gt;
+			depth++;
+		}
+
+		for (int i = from + 1; i < to; i++) {
+			int suffix = suffixes[i];
+			int j = i;
+			while (j > from && compareSuffixes(text, suffixes[j - 1], suffix, depth) > 0) {
+				suffixes[j] = suffixes[j - 1];
+				j--;
+			}
+			suffixes[j] = suffix;
+		}
+	}
+
+	/**
+	 * Compares two suffixes from a depth up to the end of their words.
+	 *
+	 * @param text  the text.
+	 * @param a     the start of the first suffix.
+	 * @param b     the start of the second suffix.
+	 * @param depth the number of characters known to be equal.
+	 * @return a negative number, zero or a positive number if the first suffix
+	 *         sorts before, equal to or after the second.
+	 */
+	private static int compareSuffixes(char[] text, int a, int b, int depth) {
+		int i = depth;
+		while (text[a + i] == text[b + i] && text[a + i] != 0) {
+			i++;
+		}
+		return text[a + i] - text[b + i];
+	}
+
+	/**
+	 * Returns the median of three characters.
+	 *
+	 * @param a the first character.
+	 * @param b the second character.
+	 * @param c the third character.
+	 * @return the median.
+	 */
+	private static int median(int a, int b, int c) {
+		return Math.max(Math.min(a, b), Math.min(Math.max(a, b), c));
+	}
+
+	/**
+	 * Swaps two suffixes.
+	 *
+	 * @param suffixes the suffixes.
+	 * @param i        the index of the first suffix.
+	 * @param j        the index of the second suffix.
+	 */
+	private static void swap(int[] suffixes, int i, int j) {
+		int t = suffixes[i];
+		suffixes[i] = suffixes[j];
+		suffixes[j] = t;
+	}
+}
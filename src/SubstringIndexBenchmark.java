@@ -0,0 +1,78 @@
+package HW;
+
+import java.util.Random;
+
+/**
+ * Reports the build time and memory of the {@link SubstringIndex} of a
+ * {@link RobinHoodTrie} relative to the trie itself, and compares infix
+ * queries answered by the index with a scan of all words. The infixes are
+ * three-character fragments of random stored words. Memory is reported both by
+ * the models of the structures and as heap measured after garbage collection.
+ *
+ * <p>
+ * Usage:
+ * {@code java -cp bin HW.SubstringIndexBenchmark [sizes] [queries] [k] [seed]}
+ */
+public class SubstringIndexBenchmark {
+
+	/** The number of infix queries answered by the scan of all words. */
+	private static final int SCAN_QUERIES = 20;
+
+	public static void main(String[] args) {
+		String[] sizes = (args.length > 0 ? args[0] : "10000,100000,500000").split(",");
+		int queries = args.length > 1 ? Integer.parseInt(args[1]) : 10000;
+		int k = args.length > 2 ? Integer.parseInt(args[2]) : 10;
+		long seed = args.length > 3 ? Long.parseLong(args[3]) : 42;
+
+		System.out.println("words,trie_build_ms,trie_model_bytes,trie_heap_bytes,index_build_ms,index_model_bytes,"
+				+ "index_heap_bytes,heap_overhead,index_query_us,scan_query_us,results");
+		for (String size : sizes) {
+			int count = Integer.parseInt(size);
+			String[] words = WorkloadGenerator.randomDictionary(seed, count, 3, 12);
+			Random rnd = new Random(seed + 1);
+			String[] infixes = new String[queries];
+			for (int i = 0; i < queries; i++) {
+				String word = words[rnd.nextInt(count)];
+				int at = rnd.nextInt(word.length() - 2);
+				infixes[i] = word.substring(at, at + 3);
+			}
+
+			long baseline = CompactBenchmark.usedHeap();
+			long start = System.nanoTime();
+			RobinHoodTrie trie = new RobinHoodTrie();
+			for (String word : words) {
+				trie.insert(word);
+			}
+			long trieBuild = System.nanoTime() - start;
+			long trieHeap = CompactBenchmark.usedHeap() - baseline;
+			long trieModel = trie.findMemorySize();
+
+			baseline = CompactBenchmark.usedHeap();
+			start = System.nanoTime();
+			trie.enableSubstringIndex();
+			long indexBuild = System.nanoTime() - start;
+			long indexHeap = CompactBenchmark.usedHeap() - baseline;
+			long indexModel = trie.substringIndex().findMemorySize();
+
+			int[] found = new int[queries];
+			start = System.nanoTime();
+			for (int i = 0; i < queries; i++) {
+				found[i] = trie.containing(infixes[i], k).length;
+			}
+			long indexQuery = System.nanoTime() - start;
+
+			trie.disableSubstringIndex();
+			int scanned = Math.min(queries, SCAN_QUERIES);
+			boolean same = true;
+			start = System.nanoTime();
+			for (int i = 0; i < scanned; i++) {
+				same &= trie.containing(infixes[i], k).length == found[i];
+			}
+			long scanQuery = System.nanoTime() - start;
+
+			System.out.printf("%d,%d,%d,%d,%d,%d,%d,%.2f,%.1f,%.1f,%s%n", trie.getWordCount(), trieBuild / 1000000,
+					trieModel, trieHeap, indexBuild / 1000000, indexModel, indexHeap, (double) indexHeap / trieHeap,
+					indexQuery / 1000.0 / queries, scanQuery / 1000.0 / scanned, same ? "same" : "differ");
+		}
+	}
+}
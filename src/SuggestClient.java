@@ -0,0 +1,195 @@
+package HW;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStreamWriter;
+import java.net.Socket;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * A blocking client of {@link SuggestServer}. Requests can be sent one at a
+ * time with {@link #suggest(String, int)}, or pipelined by calling
+ * {@link #send(String, int)} several times, then {@link #flush()}, and reading
+ * the responses in order with {@link #receive()}.
+ *
+ * <p>
+ * Usage: {@code java -cp bin HW.SuggestClient [host] [port]}, then type
+ * {@code <word> <k>} lines.
+ */
+public class SuggestClient implements Closeable {
+
+	/** The connection to the server. */
+	private final Socket socket;
+
+	/** The buffered request stream. */
+	private final BufferedWriter out;
+
+	/** The buffered response stream. */
+	private final BufferedReader in;
+
+	/**
+	 * Constructor connecting to a server.
+	 *
+	 * @param host the host of the server.
+	 * @param port the port of the server.
+	 * @throws IOException if the connection fails.
+	 */
+	public SuggestClient(String host, int port) throws IOException {
+		socket = new Socket(host, port);
+		socket.setTcpNoDelay(true);
+		out = new BufferedWriter(new OutputStreamWriter(socket.getOutputStream(), StandardCharsets.US_ASCII));
+		in = new BufferedReader(new InputStreamReader(socket.getInputStream(), StandardCharsets.US_ASCII));
+	}
+
+	/**
+	 * Limits how long a read waits for an answer.
+	 *
+	 * @param millis the longest wait in milliseconds, or 0 to wait forever.
+	 * @throws IOException if the limit cannot be set.
+	 */
+	public void setTimeout(int millis) throws IOException {
+		socket.setSoTimeout(millis);
+	}
+
+	/**
+	 * Asks for suggestions and waits for the answer.
+	 *
+	 * @param word the word to suggest for.
+	 * @param k    the maximum number of suggestions.
+	 * @return the suggested words.
+	 * @throws IOException if the server fails or answers with an error.
+	 */
+	public String[] suggest(String word, int k) throws IOException {
+		send(word, k);
+		flush();
+		return receive();
+	}
+
+	/**
+	 * Buffers a request without waiting for its answer.
+	 *
+	 * @param word the word to suggest for.
+	 * @param k    the maximum number of suggestions.
+	 * @throws IOException if the request cannot be written.
+	 */
+	public void send(String word, int k) throws IOException {
+		out.write("SUGGEST " + word + " " + k + "\n");
+	}
+
+	/**
+	 * Sends all buffered requests.
+	 *
+	 * @throws IOException if the requests cannot be written.
+	 */
+	public void flush() throws IOException {
+		out.flush();
+	}
+
+	/**
+	 * Reads the answer to the oldest unanswered request.
+	 *
+	 * @return the suggested words.
+	 * @throws IOException if the server fails or answers with an error.
+	 */
+	public String[] receive() throws IOException {
+		String line = readAnswer();
+		return line.isEmpty() ? new String[0] : line.split(" ");
+	}
+
+	/**
+	 * Asks for the importance of a word and waits for the answer.
+	 *
+	 * @param word the word.
+	 * @return the importance of the word, or -1 if it is not stored.
+	 * @throws IOException if the server fails or answers with another error.
+	 */
+	public int importance(String word) throws IOException {
+		out.write("IMPORTANCE " + word + "\n");
+		flush();
+		try {
+			return Integer.parseInt(readAnswer());
+		} catch (IOException e) {
+			if (e.getMessage().equals("ERR word not found")) {
+				return -1;
+			}
+			throw e;
+		}
+	}
+
+	/**
+	 * Asks for the suggestion candidates of a word stored on the server, whether
+	 * or not the word itself is, and inserts them into a heap by their
+	 * importance.
+	 *
+	 * @param minHeap the heap receiving the candidates.
+	 * @param word    the word to suggest for.
+	 * @param k       the maximum number of candidates.
+	 * @param scope   {@code all}, {@code prefix} for the completions of the word
+	 *                only, or {@code similar} for the words of similar length
+	 *                only.
+	 * @throws IOException if the server fails or answers with an error.
+	 */
+	public void candidates(Heap minHeap, String word, int k, String scope) throws IOException {
+		out.write("CANDIDATES " + word + " " + k + " " + scope + "\n");
+		flush();
+		String line = readAnswer();
+		if (line.isEmpty()) {
+			return;
+		}
+		for (String pair : line.split(" ")) {
+			int colon = pair.lastIndexOf(':');
+			minHeap.insert(pair.substring(0, colon), Integer.parseInt(pair.substring(colon + 1)));
+		}
+	}
+
+	/**
+	 * Reads one answer line and strips its {@code OK}.
+	 *
+	 * @return the rest of the answer, empty if there is none.
+	 * @throws IOException if the server fails or answers with an error.
+	 */
+	private String readAnswer() throws IOException {
+		String line = in.readLine();
+		if (line == null) {
+			throw new IOException("connection closed by server");
+		}
+		if (line.equals("OK")) {
+			return "";
+		}
+		if (!line.startsWith("OK ")) {
+			throw new IOException(line);
+		}
+		return line.substring(3);
+	}
+
+	/** Closes the connection. */
+	@Override
+	public void close() throws IOException {
+		socket.close();
+	}
+
+	public static void main(String[] args) throws IOException {
+		String host = args.length > 0 ? args[0] : "localhost";
+		int port = args.length > 1 ? Integer.parseInt(args[1]) : SuggestServer.DEFAULT_PORT;
+
+		SuggestClient client = new SuggestClient(host, port);
+		BufferedReader console = new BufferedReader(new InputStreamReader(System.in));
+		String line;
+		while ((line = console.readLine()) != null) {
+			String[] parts = line.trim().split("\\s+");
+			if (parts.length != 2) {
+				System.out.println("Enter a word and how many words you want to suggest");
+				continue;
+			}
+			try {
+				System.out.println(String.join(" ", client.suggest(parts[0], Integer.parseInt(parts[1]))));
+			} catch (IOException | NumberFormatException e) {
+				System.out.println(e.getMessage());
+			}
+		}
+		client.close();
+	}
+}
@@ -0,0 +1,476 @@
+package HW;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.nio.ByteBuffer;
+import java.nio.channels.ClosedSelectorException;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.Selector;
+import java.nio.channels.ServerSocketChannel;
+import java.nio.channels.SocketChannel;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayDeque;
+import java.util.Iterator;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Serves suggestions from a loaded {@link RobinHoodTrie} over TCP. One selector
+ * thread accepts connections, reads requests and writes responses without
+ * blocking. The queries themselves run on a bounded pool of worker threads.
+ *
+ * <p>
+ * The protocol is line based. A request is {@code SUGGEST <word> <k>} and is
+ * answered by {@code OK} followed by the suggested words, or by {@code ERR}
+ * followed by a reason. Clients may pipeline requests by sending several
+ * before reading any response. Responses always come back in request order. A
+ * request that finds the worker queue full is answered with
+ * {@code ERR busy} instead of waiting. Words are checked like those of a
+ * dictionary, a word with characters outside a-z is answered with
+ * {@code ERR invalid word}.
+ *
+ * <p>
+ * The shards of a {@link ShardedTrie} are queried with two more requests.
+ * {@code IMPORTANCE <word>} is answered by {@code OK} and the importance of the
+ * word. {@code CANDIDATES <word> <k> <all | prefix | similar>} is answered by
+ * {@code OK} and up to k {@code word:importance} pairs, the suggestion
+ * candidates stored here whether or not the word itself is. The scope
+ * {@code prefix} asks only for the completions of the word, {@code similar}
+ * only for the words of similar length.
+ *
+ * <p>
+ * The trie is only read, so it must be fully loaded before the server starts.
+ */
+public class SuggestServer implements Closeable {
+
+	/** The port used unless another one is given. */
+	public static final int DEFAULT_PORT = 7070;
+
+	/** The longest request line accepted, in bytes. */
+	public static final int MAX_LINE = 1024;
+
+	/** The largest number of suggestions a request may ask for. */
+	public static final int MAX_K = 1000;
+
+	/** The number of unanswered requests after which a connection is not read. */
+	public static final int MAX_PIPELINE = 256;
+
+	/** The trie serving the suggestions. */
+	private final RobinHoodTrie trie;
+
+	/** The listening channel. */
+	private final ServerSocketChannel server;
+
+	/** The selector of the network thread. */
+	private final Selector selector;
+
+	/** The worker pool running the queries. */
+	private final ThreadPoolExecutor workers;
+
+	/** Connections with requests answered by a worker but not yet written. */
+	private final ConcurrentLinkedQueue<Connection> answered = new ConcurrentLinkedQueue<>();
+
+	/** Whether the network thread keeps running. */
+	private volatile boolean running = true;
+
+	/**
+	 * Constructor binding the server to a local port.
+	 *
+	 * @param trie    the loaded trie.
+	 * @param port    the port, or 0 for any free port.
+	 * @param threads the number of worker threads.
+	 * @param queue   the number of requests that may wait for a worker.
+	 * @throws IOException if the port cannot be bound.
+	 */
+	public SuggestServer(RobinHoodTrie trie, int port, int threads, int queue) throws IOException {
+		this.trie = trie;
+		selector = Selector.open();
+		server = ServerSocketChannel.open();
+		server.bind(new InetSocketAddress(port));
+		server.configureBlocking(false);
+		server.register(selector, SelectionKey.OP_ACCEPT);
+		workers = new ThreadPoolExecutor(threads, threads, 0, TimeUnit.MILLISECONDS,
+				new ArrayBlockingQueue<Runnable>(queue));
+	}
+
+	/**
+	 * Returns the port the server listens on.
+	 *
+	 * @return the port.
+	 */
+	public int getPort() {
+		return server.socket().getLocalPort();
+	}
+
+	/**
+	 * Runs the network loop on a new thread.
+	 *
+	 * @return the started thread.
+	 */
+	public Thread start() {
+		Thread thread = new Thread(this::run, "suggest-server");
+		thread.setDaemon(true);
+		thread.start();
+		return thread;
+	}
+
+	/** Runs the network loop on the calling thread until the server is closed. */
+	public void run() {
+		try {
+			while (running) {
+				selector.select();
+
+				// Write the responses finished by workers
+				Connection done;
+				while ((done = answered.poll()) != null) {
+					flush(done);
+				}
+
+				Iterator<SelectionKey> keys = selector.selectedKeys().iterator();
+				while (keys.hasNext()) {
+					SelectionKey key = keys.next();
+					keys.remove();
+					if (!key.isValid()) {
+						continue;
+					}
+					if (key.isAcceptable()) {
+						accept();
+						continue;
+					}
+					Connection connection = (Connection) key.attachment();
+					try {
+						if (key.isReadable()) {
+							read(connection);
+						}
+						if (key.isValid() && key.isWritable()) {
+							flush(connection);
+						}
+					} catch (IOException e) {
+						connection.close();
+					}
+				}
+			}
+		} catch (IOException | ClosedSelectorException e) {
+			// Closing the server closes the selector under the loop
+			if (running) {
+				throw new RuntimeException(e);
+			}
+		}
+	}
+
+	/** Stops the server, closing all connections and the worker pool. */
+	@Override
+	public void close() throws IOException {
+		running = false;
+		workers.shutdownNow();
+		selector.wakeup();
+		for (SelectionKey key : selector.keys()) {
+			key.channel().close();
+		}
+		selector.close();
+	}
+
+	/**
+	 * Accepts a pending connection.
+	 *
+	 * @throws IOException if the connection cannot be set up.
+	 */
+	private void accept() throws IOException {
+		SocketChannel channel = server.accept();
+		if (channel == null) {
+			return;
+		}
+		channel.configureBlocking(false);
+		channel.socket().setTcpNoDelay(true);
+		Connection connection = new Connection(channel);
+		connection.key = channel.register(selector, SelectionKey.OP_READ, connection);
+	}
+
+	/**
+	 * Reads from a connection and hands every complete request line to the
+	 * workers.
+	 *
+	 * @param connection the connection.
+	 * @throws IOException if reading fails.
+	 */
+	private void read(Connection connection) throws IOException {
+		ByteBuffer in = connection.in;
+		if (connection.channel.read(in) < 0) {
+			connection.eof = true;
+			flush(connection);
+			return;
+		}
+
+		// Split the buffered bytes into lines
+		in.flip();
+		int start = 0;
+		for (int i = 0; i < in.limit(); i++) {
+			if (in.get(i) == '\n') {
+				int end = i > start && in.get(i - 1) == '\r' ? i - 1 : i;
+				submit(connection, new String(in.array(), start, end - start, StandardCharsets.US_ASCII));
+				start = i + 1;
+			}
+		}
+		in.position(start);
+		in.compact();
+
+		if (!in.hasRemaining()) {
+			// A line longer than the buffer cannot be parsed, so the connection ends
+			connection.reject("ERR line too long");
+		}
+		flush(connection);
+	}
+
+	/**
+	 * Queues a request of a connection and hands it to a worker.
+	 *
+	 * @param connection the connection.
+	 * @param line       the request line.
+	 */
+	private void submit(Connection connection, String line) {
+		Request request = new Request();
+		connection.pending.add(request);
+		try {
+			workers.execute(() -> {
+				// Every request is answered, or the responses after it would wait forever
+				String response = "ERR internal error";
+				try {
+					response = handle(line);
+				} finally {
+					request.response = response;
+					answered.add(connection);
+					selector.wakeup();
+				}
+			});
+		} catch (RejectedExecutionException e) {
+			request.response = "ERR busy";
+			answered.add(connection);
+		}
+	}
+
+	/**
+	 * Answers one request line. A request that fails unexpectedly is answered
+	 * with an error instead of leaving the connection without a response.
+	 *
+	 * @param line the request line.
+	 * @return the response line without its line break.
+	 */
+	private String handle(String line) {
+		try {
+			return answer(line);
+		} catch (RuntimeException e) {
+			return "ERR internal error " + e.getClass().getSimpleName();
+		}
+	}
+
+	/**
+	 * Answers one request line.
+	 *
+	 * @param line the request line.
+	 * @return the response line without its line break.
+	 */
+	private String answer(String line) {
+		String[] parts = line.trim().split("\\s+");
+		String command = parts[0].toUpperCase();
+		if (command.equals("IMPORTANCE") && parts.length == 2) {
+			String word = RobinHoodTrie.filterWord(parts[1]);
+			if (word == null) {
+				return "ERR invalid word " + parts[1];
+			}
+			int id = trie.wordId(word);
+			return id < 0 ? "ERR word not found" : "OK " + trie.importance(id);
+		}
+		if (command.equals("CANDIDATES") && parts.length == 4) {
+			return candidates(parts);
+		}
+		if (parts.length != 3 || !command.equals("SUGGEST")) {
+			return "ERR expected SUGGEST <word> <k>, IMPORTANCE <word> or CANDIDATES <word> <k> <scope>";
+		}
+		int k;
+		try {
+			k = parseK(parts[2]);
+		} catch (IllegalArgumentException e) {
+			return "ERR " + e.getMessage();
+		}
+		String word = RobinHoodTrie.filterWord(parts[1]);
+		if (word == null) {
+			return "ERR invalid word " + parts[1];
+		}
+		if (!trie.search(word)) {
+			return "ERR word not found";
+		}
+
+		StringBuilder response = new StringBuilder("OK");
+		for (String suggestion : trie.suggest(word, k)) {
+			response.append(' ').append(suggestion);
+		}
+		return response.toString();
+	}
+
+	/**
+	 * Answers a {@code CANDIDATES <word> <k> <scope>} request of a
+	 * {@link ShardedTrie} with the suggestion candidates of this server's trie
+	 * and their importance, whether or not the word is stored here.
+	 *
+	 * @param parts the words of the request line.
+	 * @return the response line, {@code OK} followed by {@code word:importance}
+	 *         pairs.
+	 */
+	private String candidates(String[] parts) {
+		int k;
+		try {
+			k = parseK(parts[2]);
+		} catch (IllegalArgumentException e) {
+			return "ERR " + e.getMessage();
+		}
+		String scope = parts[3].toLowerCase();
+		if (!scope.equals("all") && !scope.equals("prefix") && !scope.equals("similar")) {
+			return "ERR invalid scope " + parts[3];
+		}
+		String word = RobinHoodTrie.filterWord(parts[1]);
+		if (word == null) {
+			return "ERR invalid word " + parts[1];
+		}
+
+		Heap minHeap = new Heap(k);
+		trie.collectSuggestions(minHeap, word, k, !scope.equals("similar"), !scope.equals("prefix"));
+		String[] words = minHeap.getTopKWords();
+		int[] importance = minHeap.getTopKImportance();
+		StringBuilder response = new StringBuilder("OK");
+		for (int i = 0; i < words.length; i++) {
+			response.append(' ').append(words[i]).append(':').append(importance[i]);
+		}
+		return response.toString();
+	}
+
+	/**
+	 * Parses the number of suggestions of a request.
+	 *
+	 * @param value the number as sent.
+	 * @return the number of suggestions.
+	 * @throws IllegalArgumentException if the number is malformed or out of
+	 *                                  range.
+	 */
+	private static int parseK(String value) {
+		int k;
+		try {
+			k = Integer.parseInt(value);
+		} catch (NumberFormatException e) {
+			throw new IllegalArgumentException("invalid k " + value);
+		}
+		if (k < 1 || k > MAX_K) {
+			throw new IllegalArgumentException("k must be between 1 and " + MAX_K);
+		}
+		return k;
+	}
+
+	/**
+	 * Writes the answered requests at the head of a connection in request order,
+	 * and closes the connection once it ended and everything was written. Reading
+	 * pauses while too many requests of the connection are unanswered.
+	 *
+	 * @param connection the connection.
+	 */
+	private void flush(Connection connection) {
+		if (!connection.channel.isOpen()) {
+			return;
+		}
+		try {
+			while (true) {
+				if (connection.out != null && connection.out.hasRemaining()) {
+					connection.channel.write(connection.out);
+					if (connection.out.hasRemaining()) {
+						break;
+					}
+				}
+				Request head = connection.pending.peek();
+				if (head == null || head.response == null) {
+					connection.out = null;
+					break;
+				}
+				connection.pending.poll();
+				connection.out = ByteBuffer.wrap((head.response + "\n").getBytes(StandardCharsets.US_ASCII));
+			}
+		} catch (IOException e) {
+			connection.close();
+			return;
+		}
+
+		boolean writing = connection.out != null;
+		if (!writing && (connection.eof || connection.closing) && connection.pending.isEmpty()) {
+			connection.close();
+			return;
+		}
+		int ops = writing ? SelectionKey.OP_WRITE : 0;
+		if (!connection.eof && !connection.closing && connection.pending.size() < MAX_PIPELINE) {
+			ops |= SelectionKey.OP_READ;
+		}
+		connection.key.interestOps(ops);
+	}
+
+	/** A request waiting for its response. */
+	private static final class Request {
+
+		/** The response line, set by the worker that answered the request. */
+		volatile String response;
+	}
+
+	/** The state of one client connection, only used by the network thread. */
+	private static final class Connection {
+
+		/** The channel of the connection. */
+		final SocketChannel channel;
+
+		/** The bytes read but not yet split into lines. */
+		final ByteBuffer in = ByteBuffer.allocate(MAX_LINE);
+
+		/** The requests not yet written, in request order. */
+		final ArrayDeque<Request> pending = new ArrayDeque<>();
+
+		/** The response being written, or {@code null}. */
+		ByteBuffer out;
+
+		/** The selection key of the channel. */
+		SelectionKey key;
+
+		/** Whether the client closed its side. */
+		boolean eof;
+
+		/** Whether the connection closes after the pending responses. */
+		boolean closing;
+
+		/**
+		 * Constructor for a new connection.
+		 *
+		 * @param channel the channel of the connection.
+		 */
+		Connection(SocketChannel channel) {
+			this.channel = channel;
+		}
+
+		/**
+		 * Answers with an error after the pending requests and then closes.
+		 *
+		 * @param error the error line.
+		 */
+		void reject(String error) {
+			Request request = new Request();
+			request.response = error;
+			pending.add(request);
+			closing = true;
+		}
+
+		/** Closes the channel, dropping unanswered requests. */
+		void close() {
+			try {
+				channel.close();
+			} catch (IOException e) {
+				// Nothing left to release
+			}
+		}
+	}
+}
@@ -0,0 +1,269 @@
+package HW;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * Structural statistics of a {@link RobinHoodTrie}. For every depth it records
+ * the number of tables, elements, words and slots, the load factors, the number
+ * of rehashes and histograms of the fanout, the probe lengths and the maximum
+ * probe lengths of the tables. The statistics can be exported as JSON or CSV.
+ */
+public class TrieStatistics {
+
+	/** Statistics of all tables at one depth of the Trie. */
+	public static class Level {
+
+		/** The depth of the tables, the root table has depth 0. */
+		public final int depth;
+
+		/** The number of tables. */
+		public long tables;
+
+		/** The number of elements stored in the tables. */
+		public long elements;
+
+		/** The number of elements that end a word. */
+		public long words;
+
+		/** The number of allocated slots. */
+		public long slots;
+
+		/** The number of times the tables grew through a rehash. */
+		public long rehashes;
+
+		/** The lowest load factor of a table. */
+		public double minLoad = Double.MAX_VALUE;
+
+		/** The highest load factor of a table. */
+		public double maxLoad;
+
+		/** The number of tables for each number of elements. */
+		public final Map<Integer, Long> fanout = new TreeMap<>();
+
+		/** The number of elements for each probe length. */
+		public final Map<Integer, Long> probeLengths = new TreeMap<>();
+
+		/** The number of tables for each maximum probe length. */
+		public final Map<Integer, Long> maxProbeLengths = new TreeMap<>();
+
+		/**
+		 * Constructor for the statistics of one depth.
+		 *
+		 * @param depth the depth of the tables.
+		 */
+		Level(int depth) {
+			this.depth = depth;
+		}
+
+		/**
+		 * Returns the average load factor of the tables, weighted by capacity.
+		 *
+		 * @return the number of elements per slot.
+		 */
+		public double getLoad() {
+			return slots == 0 ? 0 : (double) elements / slots;
+		}
+
+		/**
+		 * Returns the average probe length of the elements.
+		 *
+		 * @return the average probe length.
+		 */
+		public double getAverageProbeLength() {
+			long sum = 0;
+			for (Map.Entry<Integer, Long> entry : probeLengths.entrySet()) {
+				sum += entry.getKey() * entry.getValue();
+			}
+			return elements == 0 ? 0 : (double) sum / elements;
+		}
+	}
+
+	/** The statistics of each depth, indexed by depth. */
+	private final List<Level> levels = new ArrayList<>();
+
+	/**
+	 * Collects the statistics of all tables below the given root.
+	 *
+	 * @param root the root table of the Trie.
+	 */
+	TrieStatistics(RobinHoodHashing root) {
+		collect(root, 0);
+	}
+
+	/**
+	 * Depth-first traversal of the Trie adding every table to the statistics of its
+	 * depth.
+	 *
+	 * @param v     the current node being processed.
+	 * @param depth the depth of the node.
+	 */
+	private void collect(RobinHoodHashing v, int depth) {
+		if (levels.size() == depth) {
+			levels.add(new Level(depth));
+		}
+		Level level = levels.get(depth);
+
+		double load = v.capacity == 0 ? 0 : (double) v.size / v.capacity;
+		level.tables++;
+		level.slots += v.capacity;
+		level.rehashes += v.rehashes;
+		level.minLoad = Math.min(level.minLoad, load);
+		level.maxLoad = Math.max(level.maxLoad, load);
+		increment(level.fanout, v.size);
+		increment(level.maxProbeLengths, v.maxProbeLenght);
+
+		for (int i = 0; i < v.capacity; i++) {
+			if (v.table[i] != null) {
+				level.elements++;
+				if (v.table[i].wl != 0) {
+					level.words++;
+				}
+				increment(level.probeLengths, v.table[i].probeLength);
+				if (v.table[i].next != null) {
+					collect(v.table[i].next, depth + 1);
+				}
+			}
+		}
+	}
+
+	/**
+	 * Increments the count of a histogram bucket.
+	 *
+	 * @param histogram the histogram.
+	 * @param bucket    the bucket to increment.
+	 */
+	private static void increment(Map<Integer, Long> histogram, int bucket) {
+		histogram.merge(bucket, 1L, Long::sum);
+	}
+
+	/**
+	 * Returns the statistics of each depth.
+	 *
+	 * @return the statistics, indexed by depth.
+	 */
+	public List<Level> getLevels() {
+		return levels;
+	}
+
+	/**
+	 * Returns the total number of times a table grew through a rehash.
+	 *
+	 * @return the number of rehashes.
+	 */
+	public long getRehashes() {
+		long rehashes = 0;
+		for (Level level : levels) {
+			rehashes += level.rehashes;
+		}
+		return rehashes;
+	}
+
+	/**
+	 * Exports the statistics as a JSON document with one object per depth.
+	 *
+	 * @return the JSON document.
+	 */
+	public String toJson() {
+		StringBuilder json = new StringBuilder();
+		json.append("{\"rehashes\":").append(getRehashes()).append(",\"levels\":[");
+		for (int i = 0; i < levels.size(); i++) {
+			Level level = levels.get(i);
+			json.append(i == 0 ? "" : ",").append("{\"depth\":").append(level.depth);
+			json.append(",\"tables\":").append(level.tables);
+			json.append(",\"elements\":").append(level.elements);
+			json.append(",\"words\":").append(level.words);
+			json.append(",\"slots\":").append(level.slots);
+			json.append(",\"rehashes\":").append(level.rehashes);
+			json.append(",\"load\":").append(format(level.getLoad()));
+			json.append(",\"minLoad\":").append(format(level.minLoad));
+			json.append(",\"maxLoad\":").append(format(level.maxLoad));
+			json.append(",\"averageProbeLength\":").append(format(level.getAverageProbeLength()));
+			json.append(",\"fanout\":");
+			appendJson(json, level.fanout);
+			json.append(",\"probeLengths\":");
+			appendJson(json, level.probeLengths);
+			json.append(",\"maxProbeLengths\":");
+			appendJson(json, level.maxProbeLengths);
+			json.append('}');
+		}
+		return json.append("]}").toString();
+	}
+
+	/**
+	 * Exports the per-depth summary as CSV with one row per depth.
+	 *
+	 * @return the CSV document including a header row.
+	 */
+	public String toCsv() {
+		StringBuilder csv = new StringBuilder(
+				"depth,tables,elements,words,slots,rehashes,load,min_load,max_load,avg_probe\n");
+		for (Level level : levels) {
+			csv.append(level.depth).append(',').append(level.tables).append(',').append(level.elements).append(',')
+					.append(level.words).append(',').append(level.slots).append(',').append(level.rehashes).append(',')
+					.append(format(level.getLoad())).append(',').append(format(level.minLoad)).append(',')
+					.append(format(level.maxLoad)).append(',').append(format(level.getAverageProbeLength()))
+					.append('\n');
+		}
+		return csv.toString();
+	}
+
+	/**
+	 * Exports the histograms as CSV with one row per depth and bucket.
+	 *
+	 * @return the CSV document including a header row.
+	 */
+	public String histogramsToCsv() {
+		StringBuilder csv = new StringBuilder("histogram,depth,bucket,count\n");
+		for (Level level : levels) {
+			appendCsv(csv, "fanout", level.depth, level.fanout);
+			appendCsv(csv, "probe_length", level.depth, level.probeLengths);
+			appendCsv(csv, "max_probe_length", level.depth, level.maxProbeLengths);
+		}
+		return csv.toString();
+	}
+
+	/**
+	 * Appends a histogram as a JSON object mapping buckets to counts.
+	 *
+	 * @param json      the JSON being built.
+	 * @param histogram the histogram.
+	 */
+	private static void appendJson(StringBuilder json, Map<Integer, Long> histogram) {
+		json.append('{');
+		boolean first = true;
+		for (Map.Entry<Integer, Long> entry : histogram.entrySet()) {
+			json.append(first ? "" : ",").append('"').append(entry.getKey()).append("\":").append(entry.getValue());
+			first = false;
+		}
+		json.append('}');
+	}
+
+	/**
+	 * Appends the buckets of a histogram as CSV rows.
+	 *
+	 * @param csv       the CSV being built.
+	 * @param name      the name of the histogram.
+	 * @param depth     the depth of the histogram.
+	 * @param histogram the histogram.
+	 */
+	private static void appendCsv(StringBuilder csv, String name, int depth, Map<Integer, Long> histogram) {
+		for (Map.Entry<Integer, Long> entry : histogram.entrySet()) {
+			csv.append(name).append(',').append(depth).append(',').append(entry.getKey()).append(',')
+					.append(entry.getValue()).append('\n');
+		}
+	}
+
+	/**
+	 * Formats a ratio with four decimals independent of the default locale.
+	 *
+	 * @param value the ratio.
+	 * @return the formatted ratio.
+	 */
+	private static String format(double value) {
+		return String.format(Locale.ROOT, "%.4f", value);
+	}
+}
@@ -0,0 +1,265 @@
+package HW;
+
+import java.io.FileNotFoundException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Consumer;
+
+/**
+ * A handle to the current version of a {@link RobinHoodTrie} that can be
+ * updated while queries run. Readers take a snapshot without locking and keep
+ * querying that version for as long as they hold it, however many versions
+ * are published in the meantime.
+ *
+ * <p>
+ * Writers never touch a published version. An update copies the tables on the
+ * paths of the words it inserts or deletes, the chunks of the word ids it
+ * changes and the Bloom filter before its first insertion, applies the changes
+ * to the copies and publishes the new version with a single atomic write. All
+ * unchanged tables stay shared between the versions. A complete reload builds a new trie on the
+ * side and publishes it the same way. An old version is released by the
+ * garbage collector once no reader holds it any more.
+ *
+ * <p>
+ * Published versions are read only: they must not be modified through their
+ * {@link RobinHoodTrie} methods, and they never have a pending incremental
+ * resize, so their suggestion scans do not modify tables either. For the same
+ * reason new versions do not count accesses, see
+ * {@link RobinHoodTrie#enableAccessCounts()}.
+ */
+public class VersionedTrie {
+
+	/** One published version of the trie. */
+	public static final class Version {
+
+		/** The number of the version, counting up from 0. */
+		public final long number;
+
+		/** The trie of the version. It must only be read. */
+		public final RobinHoodTrie trie;
+
+		/**
+		 * Constructor for a published version.
+		 *
+		 * @param number the number of the version.
+		 * @param trie   the trie of the version.
+		 */
+		Version(long number, RobinHoodTrie trie) {
+			this.number = number;
+			this.trie = trie;
+		}
+	}
+
+	/**
+	 * Changes the next version of the trie. The tables on the path of a word are
+	 * copied the first time a change touches them and reused by later changes of
+	 * the same update.
+	 */
+	public static final class Editor {
+
+		/** The trie of the version being built. */
+		private final RobinHoodTrie trie;
+
+		/** The tables copied for this version, which may be modified in place. */
+		private final Set<RobinHoodHashing> copied = Collections.newSetFromMap(new IdentityHashMap<>());
+
+		/** The changed words, whose paths are checked before publishing. */
+		private final List<String> changed = new ArrayList<>();
+
+		/**
+		 * Constructor for an editor of a new version.
+		 *
+		 * @param trie the trie of the new version, sharing the tables of its base.
+		 */
+		private Editor(RobinHoodTrie trie) {
+			this.trie = trie;
+		}
+
+		/**
+		 * Inserts a word into the new version.
+		 *
+		 * @param word the word to insert.
+		 */
+		public void insert(String word) {
+			word = word.toLowerCase();
+			copyPath(word);
+			trie.insert(word);
+			changed.add(word);
+		}
+
+		/**
+		 * Deletes a word from the new version.
+		 *
+		 * @param word the word to delete.
+		 * @return {@code true} if the word was found and deleted.
+		 */
+		public boolean delete(String word) {
+			word = word.toLowerCase();
+			if (!trie.search(word)) {
+				return false;
+			}
+			copyPath(word);
+			changed.add(word);
+			return trie.delete(word);
+		}
+
+		/**
+		 * Increments the importance of a word in the new version. The importance
+		 * lives in the word ids, so no table is copied.
+		 *
+		 * @param word the word whose importance is incremented.
+		 */
+		public void incImp(String word) {
+			trie.incImp(word);
+		}
+
+		/**
+		 * Advances the epoch of decaying importance in the new version. No score
+		 * and no table is copied, each score decays when it is next touched.
+		 *
+		 * @param epochs the number of epochs to advance by.
+		 */
+		public void advanceEpoch(int epochs) {
+			trie.advanceEpoch(epochs);
+		}
+
+		/**
+		 * Copies every shared table on the stored path of a word, so the word can be
+		 * changed without modifying the versions sharing those tables.
+		 *
+		 * @param word the lowercase word.
+		 */
+		private void copyPath(String word) {
+			trie.root = own(trie.root);
+			RobinHoodHashing table = trie.root;
+			for (int i = 0; i < word.length(); i++) {
+				Element e = table.lookup(word.charAt(i));
+				if (e == null || e.next == null) {
+					return;
+				}
+				e.next = own(e.next);
+				table = e.next;
+			}
+		}
+
+		/**
+		 * Returns a table that may be modified in place: the table itself if this
+		 * version already copied or created it, a new copy otherwise.
+		 *
+		 * @param table the table.
+		 * @return the modifiable table.
+		 */
+		private RobinHoodHashing own(RobinHoodHashing table) {
+			if (copied.contains(table)) {
+				return table;
+			}
+			RobinHoodHashing copy = table.copyTable();
+			copied.add(copy);
+			return copy;
+		}
+
+		/**
+		 * Completes pending incremental resizes on the paths of the changed words, so
+		 * readers of the published version never migrate tables.
+		 */
+		private void seal() {
+			for (String word : changed) {
+				RobinHoodHashing table = trie.root;
+				table.finishMigration();
+				for (int i = 0; i < word.length() && table != null; i++) {
+					Element e = table.lookup(word.charAt(i));
+					if (e == null) {
+						break;
+					}
+					table = e.next;
+					if (table != null) {
+						table.finishMigration();
+					}
+				}
+			}
+		}
+	}
+
+	/** The currently published version. */
+	private final AtomicReference<Version> current;
+
+	/**
+	 * Constructor publishing the given trie as version 0.
+	 *
+	 * @param trie the first version, which must no longer be modified directly.
+	 */
+	public VersionedTrie(RobinHoodTrie trie) {
+		trie.finishResizes();
+		current = new AtomicReference<>(new Version(0, trie));
+	}
+
+	/**
+	 * Returns the current version without locking. The version stays consistent
+	 * while later versions are published.
+	 *
+	 * @return the current version.
+	 */
+	public Version snapshot() {
+		return current.get();
+	}
+
+	/**
+	 * Builds a new version from the current one by path copying and publishes
+	 * it. Updates are applied one at a time, readers are never blocked.
+	 *
+	 * @param changes the changes applied to the new version.
+	 * @return the published version.
+	 */
+	public synchronized Version update(Consumer<Editor> changes) {
+		Version base = current.get();
+		Editor editor = new Editor(new RobinHoodTrie(base.trie));
+		changes.accept(editor);
+		editor.seal();
+		return publish(base, editor.trie);
+	}
+
+	/**
+	 * Publishes a trie that was built on the side as the new version.
+	 *
+	 * @param trie the new version, which must no longer be modified directly.
+	 * @return the published version.
+	 */
+	public synchronized Version replace(RobinHoodTrie trie) {
+		trie.finishResizes();
+		return publish(current.get(), trie);
+	}
+
+	/**
+	 * Reloads the dictionary and the importance of its words into a new trie
+	 * with the configuration of the current version, while readers keep using
+	 * the current version, and publishes it.
+	 *
+	 * @param dictionary the file path of the dictionary.
+	 * @param text       the file path of the text giving the importance.
+	 * @return the published version.
+	 * @throws FileNotFoundException if a file cannot be found.
+	 */
+	public Version reload(String dictionary, String text) throws FileNotFoundException {
+		RobinHoodTrie trie = new RobinHoodTrie(current.get().trie.getConfig());
+		trie.readDictionary(dictionary);
+		trie.insertText(text);
+		return replace(trie);
+	}
+
+	/**
+	 * Publishes the next version after the given base.
+	 *
+	 * @param base the version the new one replaces.
+	 * @param trie the trie of the new version.
+	 * @return the published version.
+	 */
+	private Version publish(Version base, RobinHoodTrie trie) {
+		Version next = new Version(base.number + 1, trie);
+		current.set(next);
+		return next;
+	}
+}
@@ -0,0 +1,373 @@
+package HW;
+
+import java.util.Arrays;
+
+/**
+ * The dense ids of the words of a {@link RobinHoodTrie}. Every stored word gets
+ * an id when it is inserted, reusing the ids of deleted words before handing
+ * out new ones, so the ids stay close to the number of words. The importance
+ * of all words lives in one array indexed by id, next to the reverse mapping
+ * from ids to words, instead of in the elements of the tables.
+ *
+ * <p>
+ * Both arrays are split into chunks of {@link #CHUNK} ids. A copy shares all
+ * chunks with the store it was copied from and clones a chunk only the first
+ * time it changes it, so versions of a trie can share their ids like they
+ * share their unchanged tables.
+ *
+ * <p>
+ * With decay enabled the importance of a word is an exponentially decaying
+ * score in units of 1/{@link #DECAY_SCALE}, stored together with the epoch of
+ * its last update. Advancing the epoch touches no word: a score is decayed
+ * when it is read, without storing the result, and normalised to the current
+ * epoch when it is incremented. A score saturates at
+ * {@link Integer#MAX_VALUE}, the score of {@link #MAX_DECAY_OCCURRENCES}
+ * undecayed occurrences: it neither grows nor wraps beyond it, and only counts
+ * occurrences again once it has decayed below it.
+ */
+class WordIds {
+
+	/** The number of bits of an id addressing an entry within a chunk. */
+	static final int CHUNK_BITS = 10;
+
+	/** The number of ids per chunk. */
+	static final int CHUNK = 1 << CHUNK_BITS;
+
+	/** The score of one occurrence of a word when importance decays. */
+	static final int DECAY_SCALE = 1000;
+
+	/** The number of undecayed occurrences at which a decaying score saturates. */
+	static final int MAX_DECAY_OCCURRENCES = Integer.MAX_VALUE / DECAY_SCALE;
+
+	/** The number of epoch differences whose decay factors are precomputed. */
+	private static final int FACTORS = 256;
+
+	/** The importance of every id, by chunk. */
+	private int[][] importance = new int[0][];
+
+	/** The word of every id, or {@code null} for a free id, by chunk. */
+	private String[][] words = new String[0][];
+
+	/** Whether each chunk belongs to this store and may be modified in place. */
+	private boolean[] owned = new boolean[0];
+
+	/** The number of allocated chunks. */
+	private int chunks;
+
+	/** The number of ids handed out so far, all ids are below it. */
+	private int limit;
+
+	/** The freed ids, reused before new ones are handed out. */
+	private int[] free = new int[0];
+
+	/** The number of freed ids. */
+	private int freeCount;
+
+	/** The estimated memory of the stored words in bytes. */
+	private long wordBytes;
+
+	/** The epoch of the last update of every id by chunk, {@code null} without decay. */
+	private int[][] epochs;
+
+	/** The current epoch. */
+	private int epoch;
+
+	/** The number of epochs after which a score has halved, 0 without decay. */
+	private int halfLife;
+
+	/** The decay factor of every epoch difference below {@link #FACTORS}. */
+	private double[] factors;
+
+	/**
+	 * Assigns an id to a new word with an importance of 0.
+	 *
+	 * @param word the word.
+	 * @return the id of the word.
+	 */
+	int add(String word) {
+		int id;
+		if (freeCount > 0) {
+			id = free[--freeCount];
+		} else {
+			id = limit++;
+			if (id >> CHUNK_BITS == chunks) {
+				grow();
+			}
+		}
+		int chunk = writable(id);
+		importance[chunk][id & (CHUNK - 1)] = 0;
+		words[chunk][id & (CHUNK - 1)] = word;
+		if (epochs != null) {
+			epochs[chunk][id & (CHUNK - 1)] = epoch;
+		}
+		wordBytes += stringSize(word);
+		return id;
+	}
+
+	/**
+	 * Frees the id of a deleted word.
+	 *
+	 * @param id the id of the word.
+	 */
+	void remove(int id) {
+		int chunk = writable(id);
+		wordBytes -= stringSize(words[chunk][id & (CHUNK - 1)]);
+		importance[chunk][id & (CHUNK - 1)] = 0;
+		words[chunk][id & (CHUNK - 1)] = null;
+		if (freeCount == free.length) {
+			free = Arrays.copyOf(free, Math.max(16, freeCount * 2));
+		}
+		free[freeCount++] = id;
+	}
+
+	/**
+	 * Returns the importance of a word, decayed to the current epoch if decay is
+	 * enabled.
+	 *
+	 * @param id the id of the word.
+	 * @return the importance.
+	 */
+	int importance(int id) {
+		int value = importance[id >> CHUNK_BITS][id & (CHUNK - 1)];
+		if (epochs == null) {
+			return value;
+		}
+		return decay(value, epoch - epochs[id >> CHUNK_BITS][id & (CHUNK - 1)]);
+	}
+
+	/**
+	 * Increments the importance of a word. With decay the score is first
+	 * decayed to the current epoch and then grows by {@link #DECAY_SCALE}, up to
+	 * {@link Integer#MAX_VALUE}.
+	 *
+	 * @param id the id of the word.
+	 * @return the incremented importance.
+	 */
+	int increment(int id) {
+		int chunk = writable(id);
+		if (epochs == null) {
+			return ++importance[chunk][id & (CHUNK - 1)];
+		}
+		long value = (long) importance(id) + DECAY_SCALE;
+		int score = (int) Math.min(value, Integer.MAX_VALUE);
+		importance[chunk][id & (CHUNK - 1)] = score;
+		epochs[chunk][id & (CHUNK - 1)] = epoch;
+		return score;
+	}
+
+	/**
+	 * Sets the importance of a word as of the current epoch.
+	 *
+	 * @param id         the id of the word.
+	 * @param importance the new importance.
+	 */
+	void set(int id, int importance) {
+		int chunk = writable(id);
+		this.importance[chunk][id & (CHUNK - 1)] = importance;
+		if (epochs != null) {
+			epochs[chunk][id & (CHUNK - 1)] = epoch;
+		}
+	}
+
+	/**
+	 * Starts decaying the importance of all words with the given half-life. The
+	 * current importance becomes a score of {@link #DECAY_SCALE} per occurrence
+	 * as of the current epoch, saturating above {@link #MAX_DECAY_OCCURRENCES}
+	 * occurrences. If decay is already enabled, the new half-life
+	 * applies to all decay not yet applied to the stored scores.
+	 *
+	 * @param halfLife the number of epochs after which a score has halved.
+	 */
+	void enableDecay(int halfLife) {
+		if (epochs == null) {
+			int[][] started = new int[importance.length][];
+			for (int chunk = 0; chunk < chunks; chunk++) {
+				int[] values = importance[writable(chunk << CHUNK_BITS)];
+				for (int i = 0; i < CHUNK; i++) {
+					values[i] = (int) Math.min((long) values[i] * DECAY_SCALE, Integer.MAX_VALUE);
+				}
+				started[chunk] = new int[CHUNK];
+				Arrays.fill(started[chunk], epoch);
+			}
+			epochs = started;
+		}
+		this.halfLife = halfLife;
+		factors = new double[FACTORS];
+		for (int i = 0; i < FACTORS; i++) {
+			factors[i] = Math.pow(0.5, (double) i / halfLife);
+		}
+	}
+
+	/**
+	 * Stops decaying the importance. The decayed scores of the current epoch are
+	 * rounded back to occurrences.
+	 */
+	void disableDecay() {
+		if (epochs == null) {
+			return;
+		}
+		for (int chunk = 0; chunk < chunks; chunk++) {
+			int[] values = importance[writable(chunk << CHUNK_BITS)];
+			for (int i = 0; i < CHUNK; i++) {
+				values[i] = (int) ((decay(values[i], epoch - epochs[chunk][i]) + DECAY_SCALE / 2L) / DECAY_SCALE);
+			}
+		}
+		epochs = null;
+		halfLife = 0;
+		factors = null;
+	}
+
+	/**
+	 * Returns the number of epochs after which a score has halved.
+	 *
+	 * @return the half-life, or 0 if importance does not decay.
+	 */
+	int halfLife() {
+		return halfLife;
+	}
+
+	/**
+	 * Returns the current epoch.
+	 *
+	 * @return the epoch.
+	 */
+	int epoch() {
+		return epoch;
+	}
+
+	/**
+	 * Advances the current epoch. No score is touched, each one decays when it is
+	 * next read or incremented.
+	 *
+	 * @param epochs the number of epochs to advance by.
+	 */
+	void advanceEpoch(int epochs) {
+		epoch += epochs;
+	}
+
+	/**
+	 * Decays a score over a number of epochs.
+	 *
+	 * @param value   the score.
+	 * @param elapsed the epochs since the score was stored.
+	 * @return the decayed score.
+	 */
+	private int decay(int value, int elapsed) {
+		if (elapsed <= 0 || value == 0) {
+			return value;
+		}
+		double factor = elapsed < FACTORS ? factors[elapsed] : Math.pow(0.5, (double) elapsed / halfLife);
+		return (int) Math.round(value * factor);
+	}
+
+	/**
+	 * Returns the word of an id.
+	 *
+	 * @param id the id.
+	 * @return the word, or {@code null} if the id is free or was never handed out.
+	 */
+	String word(int id) {
+		if (id < 0 || id >= limit) {
+			return null;
+		}
+		return words[id >> CHUNK_BITS][id & (CHUNK - 1)];
+	}
+
+	/**
+	 * Returns the number of ids handed out so far. All ids are below it and at
+	 * most the freed ones are unused.
+	 *
+	 * @return the id limit.
+	 */
+	int limit() {
+		return limit;
+	}
+
+	/**
+	 * Returns a copy sharing all chunks with this store. The copy clones a chunk
+	 * before its first change, while this store is left untouched, so it must
+	 * not be changed itself once copied, as holds for a published version.
+	 *
+	 * @return the copy.
+	 */
+	WordIds copy() {
+		WordIds copy = new WordIds();
+		copy.importance = importance.clone();
+		copy.words = words.clone();
+		copy.owned = new boolean[owned.length];
+		copy.chunks = chunks;
+		copy.limit = limit;
+		copy.free = free.clone();
+		copy.freeCount = freeCount;
+		copy.wordBytes = wordBytes;
+		copy.epochs = epochs != null ? epochs.clone() : null;
+		copy.epoch = epoch;
+		copy.halfLife = halfLife;
+		copy.factors = factors;
+		return copy;
+	}
+
+	/**
+	 * Estimates the memory used by the ids in bytes: the chunks, the words and the
+	 * free list.
+	 *
+	 * @return the memory size.
+	 */
+	long findMemorySize() {
+		long size = 16 + 3 * (16 + 4L * importance.length) + 16 + 4L * free.length;
+		size += chunks * (epochs != null ? 3 : 2) * (16 + 4L * CHUNK);
+		if (epochs != null) {
+			size += 16 + 4L * epochs.length + 16 + 8L * FACTORS;
+		}
+		return size + wordBytes;
+	}
+
+	/** Adds an empty chunk for the next ids. */
+	private void grow() {
+		if (chunks == importance.length) {
+			int capacity = Math.max(4, chunks * 2);
+			importance = Arrays.copyOf(importance, capacity);
+			words = Arrays.copyOf(words, capacity);
+			owned = Arrays.copyOf(owned, capacity);
+			if (epochs != null) {
+				epochs = Arrays.copyOf(epochs, capacity);
+			}
+		}
+		importance[chunks] = new int[CHUNK];
+		words[chunks] = new String[CHUNK];
+		if (epochs != null) {
+			epochs[chunks] = new int[CHUNK];
+		}
+		owned[chunks] = true;
+		chunks++;
+	}
+
+	/**
+	 * Returns the chunk of an id after cloning it if it is shared.
+	 *
+	 * @param id the id.
+	 * @return the index of the chunk.
+	 */
+	private int writable(int id) {
+		int chunk = id >> CHUNK_BITS;
+		if (!owned[chunk]) {
+			importance[chunk] = importance[chunk].clone();
+			words[chunk] = words[chunk].clone();
+			if (epochs != null) {
+				epochs[chunk] = epochs[chunk].clone();
+			}
+			owned[chunk] = true;
+		}
+		return chunk;
+	}
+
+	/**
+	 * Estimates the memory of a word string with compact Latin-1 characters.
+	 *
+	 * @param word the word, or {@code null}.
+	 * @return the size in bytes.
+	 */
+	private static long stringSize(String word) {
+		return word == null ? 0 : 24 + ((16 + word.length() + 7) & ~7);
+	}
+}
@@ -0,0 +1,21 @@
+package HW;
+
+/**
+ * A word together with its importance score, as held by a {@link Heap} and as
+ * collected from the tables of a {@link RobinHoodTrie}.
+ */
+class WordNode {
+	String word;
+	int importance;
+
+	/**
+	 * Constructor for a WordNode object.
+	 *
+	 * @param word       the word to store.
+	 * @param importance the importance score of the word.
+	 */
+	public WordNode(String word, int importance) {
+		this.word = word;
+		this.importance = importance;
+	}
+}
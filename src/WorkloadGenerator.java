@@ -0,0 +1,382 @@
+package HW;
+
+import java.io.FileNotFoundException;
+import java.io.PrintWriter;
+import java.util.LinkedHashSet;
+import java.util.Random;
+import java.util.Set;
+import java.util.SplittableRandom;
+
+/**
+ * Generates random words, dictionaries, corpora and query traces for the
+ * benchmarks. All methods take a {@link Random} or a seed so every experiment
+ * can be reproduced.
+ *
+ * <p>
+ * Large workloads are addressed by index: {@link #wordAt(long, long, Lengths)}
+ * derives the i-th dictionary word from the seed alone, so dictionaries of tens
+ * of millions of words can be streamed, and corpora can draw words by Zipfian
+ * rank, without ever holding the dictionary in memory.
+ *
+ * <p>
+ * Usage:
+ * {@code java -cp bin HW.WorkloadGenerator dictionary <file> <words> <lengths> [seed]}<br>
+ * {@code java -cp bin HW.WorkloadGenerator corpus <file> <words> <lengths> <tokens> [exponent] [seed]}<br>
+ * {@code java -cp bin HW.WorkloadGenerator queries <file> <words> <lengths> <queries> [miss-ratio] [exponent] [seed]}
+ */
+public class WorkloadGenerator {
+
+	/** The Zipf exponent of corpora and query traces unless one is given. */
+	public static final double DEFAULT_EXPONENT = 1.0;
+
+	/**
+	 * The distribution of word lengths of a dictionary: a fixed length, or a range
+	 * of lengths that is either uniform or weighted towards shorter words like the
+	 * variable-length dictionaries of the report.
+	 */
+	public static final class Lengths {
+
+		/** The minimum word length. */
+		public final int minLen;
+
+		/** The maximum word length. */
+		public final int maxLen;
+
+		/** Whether shorter lengths are more likely than longer ones. */
+		public final boolean weighted;
+
+		/**
+		 * Constructor for a range of word lengths.
+		 *
+		 * @param minLen   the minimum word length.
+		 * @param maxLen   the maximum word length.
+		 * @param weighted whether length {@code l} has weight {@code maxLen - l + 1}
+		 *                 instead of all lengths being equally likely.
+		 * @throws IllegalArgumentException if the range is empty.
+		 */
+		public Lengths(int minLen, int maxLen, boolean weighted) {
+			if (minLen < 1 || maxLen < minLen) {
+				throw new IllegalArgumentException("invalid word lengths " + minLen + "-" + maxLen);
+			}
+			this.minLen = minLen;
+			this.maxLen = maxLen;
+			this.weighted = weighted;
+		}
+
+		/**
+		 * Parses a length specification: {@code "7"} for a fixed length,
+		 * {@code "3-12"} for lengths weighted towards shorter words and
+		 * {@code "3-12u"} for uniform lengths.
+		 *
+		 * @param spec the specification.
+		 * @return the parsed lengths.
+		 * @throws IllegalArgumentException if the specification is malformed.
+		 */
+		public static Lengths parse(String spec) {
+			try {
+				int dash = spec.indexOf('-');
+				if (dash < 0) {
+					int length = Integer.parseInt(spec);
+					return new Lengths(length, length, false);
+				}
+				boolean uniform = spec.endsWith("u");
+				int maxLen = Integer.parseInt(spec.substring(dash + 1, spec.length() - (uniform ? 1 : 0)));
+				return new Lengths(Integer.parseInt(spec.substring(0, dash)), maxLen, !uniform);
+			} catch (NumberFormatException e) {
+				throw new IllegalArgumentException("invalid word lengths " + spec);
+			}
+		}
+
+		/**
+		 * Draws a word length.
+		 *
+		 * @param rnd the random number generator.
+		 * @return the length.
+		 */
+		int next(SplittableRandom rnd) {
+			int span = maxLen - minLen + 1;
+			if (!weighted) {
+				return minLen + rnd.nextInt(span);
+			}
+			// Weights span, span - 1, ..., 1 sum to span * (span + 1) / 2
+			int r = rnd.nextInt(span * (span + 1) / 2);
+			int length = minLen;
+			for (int weight = span; r >= weight; weight--) {
+				r -= weight;
+				length++;
+			}
+			return length;
+		}
+
+		@Override
+		public String toString() {
+			if (minLen == maxLen) {
+				return Integer.toString(minLen);
+			}
+			return minLen + "-" + maxLen + (weighted ? "" : "u");
+		}
+	}
+
+	/**
+	 * Samples ranks {@code 1..n} with probability proportional to
+	 * {@code 1 / rank^exponent} by rejection-inversion, in constant time and
+	 * memory for any {@code n}.
+	 */
+	public static final class Zipf {
+
+		/** The number of ranks. */
+		private final long n;
+
+		/** The exponent of the distribution. */
+		private final double exponent;
+
+		/** The integral of the hat function at 1.5, shifted by one. */
+		private final double hIntegralX1;
+
+		/** The integral of the hat function at {@code n + 0.5}. */
+		private final double hIntegralN;
+
+		/** The width within which a sample is accepted without a test. */
+		private final double s;
+
+		/**
+		 * Constructor for a Zipf distribution.
+		 *
+		 * @param n        the number of ranks.
+		 * @param exponent the exponent, greater than 0.
+		 * @throws IllegalArgumentException if {@code n} or the exponent is not
+		 *                                  positive.
+		 */
+		public Zipf(long n, double exponent) {
+			if (n < 1 || !(exponent > 0)) {
+				throw new IllegalArgumentException("invalid Zipf distribution " + n + ", " + exponent);
+			}
+			this.n = n;
+			this.exponent = exponent;
+			hIntegralX1 = hIntegral(1.5) - 1;
+			hIntegralN = hIntegral(n + 0.5);
+			s = 2 - hIntegralInverse(hIntegral(2.5) - h(2));
+		}
+
+		/**
+		 * Draws a rank.
+		 *
+		 * @param rnd the random number generator.
+		 * @return the rank, between 1 and {@code n}.
+		 */
+		public long sample(SplittableRandom rnd) {
+			while (true) {
+				double u = hIntegralN + rnd.nextDouble() * (hIntegralX1 - hIntegralN);
+				double x = hIntegralInverse(u);
+				long k = Math.max(1, Math.min(n, (long) (x + 0.5)));
+				if (k - x <= s || u >= hIntegral(k + 0.5) - h(k)) {
+					return k;
+				}
+			}
+		}
+
+		/** The hat function {@code x^-exponent}. */
+		private double h(double x) {
+			return Math.exp(-exponent * Math.log(x));
+		}
+
+		/** The integral of the hat function. */
+		private double hIntegral(double x) {
+			double logX = Math.log(x);
+			return helper2((1 - exponent) * logX) * logX;
+		}
+
+		/** The inverse of {@link #hIntegral(double)}. */
+		private double hIntegralInverse(double x) {
+			double t = Math.max(-1, x * (1 - exponent));
+			return Math.exp(helper1(t) * x);
+		}
+
+		/** {@code log1p(x) / x}, accurate near 0. */
+		private static double helper1(double x) {
+			return Math.abs(x) > 1e-8 ? Math.log1p(x) / x : 1 - x * (0.5 - x * (1.0 / 3 - 0.25 * x));
+		}
+
+		/** {@code expm1(x) / x}, accurate near 0. */
+		private static double helper2(double x) {
+			return Math.abs(x) > 1e-8 ? Math.expm1(x) / x : 1 + x * 0.5 * (1 + x / 3 * (1 + 0.25 * x));
+		}
+	}
+
+	/**
+	 * Generates a random lowercase word.
+	 *
+	 * @param rnd    the random number generator.
+	 * @param minLen the minimum word length.
+	 * @param maxLen the maximum word length.
+	 * @return the generated word.
+	 */
+	public static String randomWord(Random rnd, int minLen, int maxLen) {
+		int length = minLen + rnd.nextInt(maxLen - minLen + 1);
+		char[] chars = new char[length];
+		for (int i = 0; i < length; i++) {
+			chars[i] = (char) ('a' + rnd.nextInt(26));
+		}
+		return new String(chars);
+	}
+
+	/**
+	 * Generates a dictionary of distinct random words.
+	 *
+	 * @param seed   the seed of the random number generator.
+	 * @param count  the number of words to generate.
+	 * @param minLen the minimum word length.
+	 * @param maxLen the maximum word length.
+	 * @return the generated words in generation order.
+	 */
+	public static String[] randomDictionary(long seed, int count, int minLen, int maxLen) {
+		Random rnd = new Random(seed);
+		Set<String> words = new LinkedHashSet<>();
+		while (words.size() < count) {
+			words.add(randomWord(rnd, minLen, maxLen));
+		}
+		return words.toArray(new String[0]);
+	}
+
+	/**
+	 * Returns the word at an index of a seeded dictionary. The word depends only
+	 * on the seed, the index and the lengths, so the same dictionary can be
+	 * regenerated word by word. Like the dictionaries of the report, different
+	 * indexes may give the same word once the lengths run out of distinct words.
+	 *
+	 * @param seed    the seed of the dictionary.
+	 * @param index   the index of the word.
+	 * @param lengths the distribution of word lengths.
+	 * @return the word.
+	 */
+	public static String wordAt(long seed, long index, Lengths lengths) {
+		SplittableRandom rnd = new SplittableRandom(seed * 0x9E3779B97F4A7C15L + index);
+		char[] chars = new char[lengths.next(rnd)];
+		for (int i = 0; i < chars.length; i++) {
+			chars[i] = (char) ('a' + rnd.nextInt(26));
+		}
+		return new String(chars);
+	}
+
+	/**
+	 * Generates a corpus whose words are drawn from a seeded dictionary by
+	 * Zipfian rank, so a few words are very frequent and most are rare.
+	 *
+	 * @param seed     the seed of the dictionary.
+	 * @param words    the number of dictionary words.
+	 * @param lengths  the distribution of word lengths of the dictionary.
+	 * @param tokens   the number of tokens to generate.
+	 * @param exponent the Zipf exponent.
+	 * @return the tokens.
+	 */
+	public static String[] zipfCorpus(long seed, long words, Lengths lengths, int tokens, double exponent) {
+		Zipf zipf = new Zipf(words, exponent);
+		SplittableRandom rnd = new SplittableRandom(seed + 1);
+		String[] corpus = new String[tokens];
+		for (int i = 0; i < tokens; i++) {
+			corpus[i] = wordAt(seed, zipf.sample(rnd) - 1, lengths);
+		}
+		return corpus;
+	}
+
+	/**
+	 * Generates a query trace. Hits are drawn from a seeded dictionary by Zipfian
+	 * rank and misses are random words of the same lengths, most of which are not
+	 * in the dictionary.
+	 *
+	 * @param seed      the seed of the dictionary.
+	 * @param words     the number of dictionary words.
+	 * @param lengths   the distribution of word lengths of the dictionary.
+	 * @param queries   the number of queries to generate.
+	 * @param missRatio the fraction of queries that are random words.
+	 * @param exponent  the Zipf exponent.
+	 * @return the queries.
+	 */
+	public static String[] queryTrace(long seed, long words, Lengths lengths, int queries, double missRatio,
+			double exponent) {
+		Zipf zipf = new Zipf(words, exponent);
+		SplittableRandom rnd = new SplittableRandom(seed + 2);
+		String[] trace = new String[queries];
+		for (int i = 0; i < queries; i++) {
+			if (rnd.nextDouble() < missRatio) {
+				trace[i] = wordAt(seed + 3, i, lengths);
+			} else {
+				trace[i] = wordAt(seed, zipf.sample(rnd) - 1, lengths);
+			}
+		}
+		return trace;
+	}
+
+	/**
+	 * Writes a seeded dictionary, one word per line, in the format read by
+	 * {@link RobinHoodTrie#readDictionary(String)}.
+	 *
+	 * @param file    the output file.
+	 * @param seed    the seed of the dictionary.
+	 * @param words   the number of words.
+	 * @param lengths the distribution of word lengths.
+	 * @throws FileNotFoundException if the file cannot be created.
+	 */
+	public static void writeDictionary(String file, long seed, long words, Lengths lengths)
+			throws FileNotFoundException {
+		PrintWriter out = new PrintWriter(file);
+		for (long i = 0; i < words; i++) {
+			out.println(wordAt(seed, i, lengths));
+		}
+		out.close();
+	}
+
+	/**
+	 * Writes a Zipfian corpus of a seeded dictionary, one line of words at a time,
+	 * in the format read by {@link RobinHoodTrie#insertText(String)}.
+	 *
+	 * @param file     the output file.
+	 * @param seed     the seed of the dictionary.
+	 * @param words    the number of dictionary words.
+	 * @param lengths  the distribution of word lengths of the dictionary.
+	 * @param tokens   the number of tokens to write.
+	 * @param exponent the Zipf exponent.
+	 * @throws FileNotFoundException if the file cannot be created.
+	 */
+	public static void writeCorpus(String file, long seed, long words, Lengths lengths, long tokens, double exponent)
+			throws FileNotFoundException {
+		Zipf zipf = new Zipf(words, exponent);
+		SplittableRandom rnd = new SplittableRandom(seed + 1);
+		PrintWriter out = new PrintWriter(file);
+		for (long i = 0; i < tokens; i++) {
+			out.print(wordAt(seed, zipf.sample(rnd) - 1, lengths));
+			out.print(i % 16 == 15 ? '\n' : ' ');
+		}
+		out.println();
+		out.close();
+	}
+
+	public static void main(String[] args) throws FileNotFoundException {
+		String mode = args[0];
+		String file = args[1];
+		long words = Long.parseLong(args[2]);
+		Lengths lengths = Lengths.parse(args[3]);
+
+		if (mode.equals("dictionary")) {
+			long seed = args.length > 4 ? Long.parseLong(args[4]) : 42;
+			writeDictionary(file, seed, words, lengths);
+		} else if (mode.equals("corpus")) {
+			long tokens = Long.parseLong(args[4]);
+			double exponent = args.length > 5 ? Double.parseDouble(args[5]) : DEFAULT_EXPONENT;
+			long seed = args.length > 6 ? Long.parseLong(args[6]) : 42;
+			writeCorpus(file, seed, words, lengths, tokens, exponent);
+		} else if (mode.equals("queries")) {
+			int queries = Integer.parseInt(args[4]);
+			double missRatio = args.length > 5 ? Double.parseDouble(args[5]) : 0.2;
+			double exponent = args.length > 6 ? Double.parseDouble(args[6]) : DEFAULT_EXPONENT;
+			long seed = args.length > 7 ? Long.parseLong(args[7]) : 42;
+			PrintWriter out = new PrintWriter(file);
+			for (String query : queryTrace(seed, words, lengths, queries, missRatio, exponent)) {
+				out.println(query);
+			}
+			out.close();
+		} else {
+			throw new IllegalArgumentException("unknown mode " + mode);
+		}
+	}
+}